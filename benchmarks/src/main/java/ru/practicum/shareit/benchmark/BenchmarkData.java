@@ -0,0 +1,74 @@
+package ru.practicum.shareit.benchmark;
+
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Тестовые сущности для бенчмарков, похожие по размеру на реальные данные.
+ */
+final class BenchmarkData {
+
+    private static final LocalDateTime START = LocalDateTime.of(2023, 5, 1, 12, 0);
+
+    private BenchmarkData() {
+    }
+
+    static User user(long id) {
+        return User.builder()
+                .id(id)
+                .name("Пользователь " + id)
+                .email("user" + id + "@mail.ru")
+                .build();
+    }
+
+    static Item item(long id) {
+        return Item.builder()
+                .id(id)
+                .owner(1L)
+                .name("Аккумуляторная дрель " + id)
+                .description("Дрель-шуруповерт, два аккумулятора, набор бит и сверл в комплекте")
+                .available(true)
+                .request(id % 2 == 0 ? id : null)
+                .build();
+    }
+
+    static Booking booking(long id) {
+        return Booking.builder()
+                .id(id)
+                .start(START.plusDays(id))
+                .end(START.plusDays(id + 1))
+                .item(item(id))
+                .booker(user(id + 1))
+                .status(Status.APPROVED)
+                .build();
+    }
+
+    static List<Item> items(int count) {
+        return LongStream.rangeClosed(1, count)
+                .mapToObj(BenchmarkData::item)
+                .collect(Collectors.toList());
+    }
+
+    static List<Booking> bookings(int count) {
+        return LongStream.rangeClosed(1, count)
+                .mapToObj(BenchmarkData::booking)
+                .collect(Collectors.toList());
+    }
+
+    static ItemRequest request() {
+        return ItemRequest.builder()
+                .id(1L)
+                .description("Нужна дрель на выходные, чтобы повесить полки")
+                .requestor(2L)
+                .created(START)
+                .build();
+    }
+}
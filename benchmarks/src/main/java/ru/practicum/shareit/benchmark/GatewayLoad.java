@@ -0,0 +1,155 @@
+package ru.practicum.shareit.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Нагрузка на шлюз с заданным числом одновременных клиентов: каждый клиент шлет следующий
+ * запрос сразу после ответа на предыдущий. У каждого клиента свой X-Sharer-User-Id, поэтому
+ * одинаковых параллельных чтений нет и объединение запросов в шлюзе результат не меняет.
+ * <p>
+ * Сервер заменяет {@link SlowServer}: при его задержке d шлюз, который держит поток на запрос,
+ * не пропускает больше (потоков / d) запросов в секунду, сколько бы клиентов ни было,
+ * а неблокирующий упирается в пул соединений к серверу. Параллельно раз в 100 мс уходит запрос,
+ * на который шлюз отвечает сам, - его задержка показывает, ждет ли он свободный поток.
+ * Например: java -cp benchmarks/target/benchmarks.jar ru.practicum.shareit.benchmark.GatewayLoad
+ * http://localhost:8080 800 20
+ */
+public class GatewayLoad {
+
+    private static final String PATH = "/bookings?state=ALL&from=0&size=10";
+
+    public static void main(String[] args) {
+        String gatewayUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        long seconds = args.length > 2 ? Long.parseLong(args[2]) : 20;
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        /*Прогрев: по одному запросу от каждого клиента, заодно открываются соединения*/
+        run(httpClient, gatewayUrl, clients, System.nanoTime() + Duration.ofSeconds(5)
+                .toNanos(), new Stats());
+
+        Stats stats = new Stats();
+        Stats probeStats = new Stats();
+        long start = System.nanoTime();
+        long deadline = start + Duration.ofSeconds(seconds)
+                .toNanos();
+        CompletableFuture<Void> probes = CompletableFuture.runAsync(
+                () -> probe(httpClient, gatewayUrl, deadline, probeStats));
+        run(httpClient, gatewayUrl, clients, deadline, stats);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        probes.join();
+
+        List<Long> latencies = stats.sortedLatencies();
+        System.out.printf("clients=%d duration=%.1fs ok=%d errors=%d throughput=%.1f req/s "
+                        + "p50=%d ms p99=%d ms max=%d ms%n", clients, elapsed, latencies.size(),
+                stats.errors.get(), latencies.size() / elapsed, percentile(latencies, 0.50),
+                percentile(latencies, 0.99), latencies.isEmpty() ? 0
+                        : latencies.get(latencies.size() - 1));
+        List<Long> probeLatencies = probeStats.sortedLatencies();
+        System.out.printf("  local 400 under load: probes=%d p50=%d ms p99=%d ms%n",
+                probeLatencies.size(), percentile(probeLatencies, 0.50),
+                percentile(probeLatencies, 0.99));
+    }
+
+    /**
+     * Раз в 100 мс запрос без X-Sharer-User-Id: шлюз отвечает 400 сам, не обращаясь к серверу,
+     * поэтому задержка показывает, ждет ли такой запрос освободившийся поток
+     */
+    private static void probe(HttpClient httpClient,
+                              String gatewayUrl,
+                              long deadline,
+                              Stats stats) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(gatewayUrl + PATH))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        while (System.nanoTime() < deadline) {
+            long sent = System.nanoTime();
+            try {
+                HttpResponse<Void> response = httpClient.send(request,
+                        HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 400) {
+                    stats.latencies.add((System.nanoTime() - sent) / 1_000_000);
+                } else {
+                    stats.errors.incrementAndGet();
+                }
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread()
+                        .interrupt();
+                return;
+            } catch (IOException e) {
+                stats.errors.incrementAndGet();
+            }
+        }
+    }
+
+    private static void run(HttpClient httpClient,
+                            String gatewayUrl,
+                            int clients,
+                            long deadline,
+                            Stats stats) {
+        List<CompletableFuture<Void>> loops = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(gatewayUrl + PATH))
+                    .header("X-Sharer-User-Id", String.valueOf(i + 1))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            loops.add(loop(httpClient, request, deadline, stats));
+        }
+        CompletableFuture.allOf(loops.toArray(new CompletableFuture[0]))
+                .join();
+    }
+
+    private static CompletableFuture<Void> loop(HttpClient httpClient,
+                                                HttpRequest request,
+                                                long deadline,
+                                                Stats stats) {
+        long sent = System.nanoTime();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    if (error == null && response.statusCode() == 200) {
+                        stats.latencies.add((System.nanoTime() - sent) / 1_000_000);
+                    } else {
+                        stats.errors.incrementAndGet();
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> System.nanoTime() < deadline
+                        ? loop(httpClient, request, deadline, stats)
+                        : CompletableFuture.completedFuture(null));
+    }
+
+    private static long percentile(List<Long> sorted,
+                                   double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.floor(sorted.size() * percentile)));
+    }
+
+    private static class Stats {
+        private final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger errors = new AtomicInteger();
+
+        List<Long> sortedLatencies() {
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            return sorted;
+        }
+    }
+}
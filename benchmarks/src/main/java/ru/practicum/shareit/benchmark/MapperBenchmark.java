@@ -0,0 +1,59 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.booking.dto.BookingDtoOut;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.dto.ItemRequestDtoOut;
+import ru.practicum.shareit.request.mapper.RequestMapper;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.mapper.UserMapper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Маппинг сущностей в DTO на горячих путях чтения.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private BookingMapper bookingMapper;
+    private ItemMapper itemMapper;
+    private RequestMapper requestMapper;
+    private Booking booking;
+    private Item item;
+    private ItemRequest itemRequest;
+
+    @Setup
+    public void setUp() {
+        itemMapper = new ItemMapper();
+        bookingMapper = new BookingMapper(new UserMapper(), itemMapper);
+        requestMapper = new RequestMapper();
+        booking = BenchmarkData.booking(1);
+        item = BenchmarkData.item(1);
+        itemRequest = BenchmarkData.request();
+    }
+
+    @Benchmark
+    public BookingDtoOut bookingToBookingDtoOut() {
+        return bookingMapper.toBookingDtoOut(booking);
+    }
+
+    @Benchmark
+    public ItemDto itemToItemDto() {
+        return itemMapper.toItemDto(item);
+    }
+
+    @Benchmark
+    public ItemRequestDtoOut requestToDtoOut() {
+        return requestMapper.toDtoOut(itemRequest);
+    }
+}
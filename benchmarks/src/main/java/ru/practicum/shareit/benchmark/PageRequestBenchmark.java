@@ -0,0 +1,34 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.util.OffsetBasedPageRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Создание OffsetBasedPageRequest, которое происходит на каждый постраничный запрос.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageRequestBenchmark {
+
+    /*Не константы, чтобы JIT не свернул конструктор*/
+    private int from = 50;
+    private int size = 10;
+
+    @Benchmark
+    public Pageable unsorted() {
+        return new OffsetBasedPageRequest(from, size);
+    }
+
+    @Benchmark
+    public Pageable sortedById() {
+        return new OffsetBasedPageRequest(from, size, Sort.by(Sort.Direction.ASC, "id"));
+    }
+}
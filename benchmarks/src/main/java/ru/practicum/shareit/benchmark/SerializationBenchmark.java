@@ -0,0 +1,63 @@
+package ru.practicum.shareit.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.practicum.shareit.booking.dto.BookingDtoOut;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.user.mapper.UserMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Сериализация страниц ответа в JSON тем же ObjectMapper, что собирает Spring Boot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    /*Размер страницы: по умолчанию 10, крупные выгрузки - сотни записей*/
+    @Param({"10", "500"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<BookingDtoOut> bookings;
+    private List<ItemDto> items;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        ItemMapper itemMapper = new ItemMapper();
+        BookingMapper bookingMapper = new BookingMapper(new UserMapper(), itemMapper);
+        bookings = BenchmarkData.bookings(size)
+                .stream()
+                .map(bookingMapper::toBookingDtoOut)
+                .collect(Collectors.toList());
+        items = BenchmarkData.items(size)
+                .stream()
+                .map(itemMapper::toItemDto)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public byte[] bookingDtoOutList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bookings);
+    }
+
+    @Benchmark
+    public byte[] itemDtoList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(items);
+    }
+}
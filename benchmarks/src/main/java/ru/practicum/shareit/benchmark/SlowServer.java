@@ -0,0 +1,46 @@
+package ru.practicum.shareit.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Заглушка сервера ShareIt для нагрузки на шлюз: на любой запрос отвечает пустым JSON массивом
+ * через заданную задержку. Ответы откладываются таймером, а не потоками, поэтому одновременных
+ * запросов может быть сколько угодно, и узким местом остается шлюз.
+ * Например: java -cp benchmarks/target/benchmarks.jar ru.practicum.shareit.benchmark.SlowServer 9090 1000
+ */
+public class SlowServer {
+
+    private static final byte[] BODY = "[]".getBytes(StandardCharsets.UTF_8);
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 9090;
+        long delayMillis = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+        ScheduledExecutorService timer = Executors.newScheduledThreadPool(4);
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 4096);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody()
+                    .readAllBytes();
+            timer.schedule(() -> {
+                try (OutputStream body = exchange.getResponseBody()) {
+                    exchange.getResponseHeaders()
+                            .set("Content-Type", "application/json");
+                    exchange.sendResponseHeaders(200, BODY.length);
+                    body.write(BODY);
+                } catch (IOException e) {
+                    exchange.close();
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        });
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.start();
+        System.out.printf("SlowServer on port %d, delay %d ms%n", port, delayMillis);
+    }
+}
@@ -1,14 +1,21 @@
 package ru.practicum.shareit.booking.client;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.booking.dto.BookingDtoIn;
-import ru.practicum.shareit.booking.dto.BookingDtoOut;
 import ru.practicum.shareit.booking.model.State;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.RequestCoalescer;
+import ru.practicum.shareit.client.cache.CachedRoute;
+import ru.practicum.shareit.client.cache.ResponseCache;
 
-import java.util.List;
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -16,42 +23,76 @@ public class BookingClient extends BaseClient {
 
     private static final String API_PREFIX = "/bookings";
 
-    public BookingClient(@Value("${shareit-server.url}") String baseUrl) {
-        super(baseUrl + API_PREFIX);
+    private final ResponseCache responseCache;
+
+    @Autowired
+    public BookingClient(WebClient.Builder webClientBuilder,
+                         @Value("${shareit-server.url}") String baseUrl,
+                         RequestCoalescer requestCoalescer,
+                         ResponseCache responseCache) {
+        super(webClientBuilder, baseUrl + API_PREFIX, requestCoalescer);
+        this.responseCache = responseCache;
+    }
+
+    /*Владелец видит брони в ответе GET /items/{id}, поэтому бронь сбрасывает кэш вещи*/
+    public Mono<ResponseEntity<Flux<DataBuffer>>> create(Long userId,
+                                                         BookingDtoIn bookingDtoIn) {
+        return responseCache.invalidateOnSuccess(post("", bookingDtoIn, userId),
+                () -> responseCache.invalidate(CachedRoute.ITEM, "/" + bookingDtoIn.getItemId()));
+    }
+
+    public Mono<ResponseEntity<Flux<DataBuffer>>> update(Long bookingId,
+                                                         Boolean approved,
+                                                         Long userId) {
+        /*Вещь брони шлюзу неизвестна, сбрасываем все вещи*/
+        return responseCache.invalidateOnSuccess(
+                patch("/" + bookingId + "?approved=" + approved.toString(), null, userId),
+                () -> responseCache.invalidate(CachedRoute.ITEM));
+    }
+
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getBookingById(Long bookingId,
+                                                                 Long userId,
+                                                                 String ifNoneMatch) {
+        return getIfNoneMatch("/" + bookingId, userId, ifNoneMatch);
     }
 
-    public ResponseEntity<BookingDtoOut> create(Long userId,
-                                                BookingDtoIn bookingDtoIn) {
-        return post("", bookingDtoIn, userId, BookingDtoOut.class);
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getAllBookingsForCurrentUserId(Long userId,
+                                                                                 Integer from,
+                                                                                 Integer size,
+                                                                                 State state,
+                                                                                 String cursor) {
+        return get("", userId, pageParameters(from, size, state, cursor));
     }
 
-    public ResponseEntity<BookingDtoOut> update(Long bookingId,
-                                                Boolean approved,
-                                                Long userId) {
-        return patch("/" + bookingId + "?approved=" + approved.toString(), null, userId,
-                BookingDtoOut.class);
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getAllItemBookingsForOwnerId(Long userId,
+                                                                               Integer from,
+                                                                               Integer size,
+                                                                               State state,
+                                                                               String cursor) {
+        return get("/owner", userId, pageParameters(from, size, state, cursor));
     }
 
-    public ResponseEntity<BookingDtoOut> getBookingById(Long bookingId,
-                                                        Long userId) {
-        return get("/" + bookingId, userId, Map.of(), BookingDtoOut.class);
+    /*Ответ сервера отдается клиенту потоком по мере получения, шлюз его не накапливает*/
+    public Mono<ResponseEntity<Flux<DataBuffer>>> exportAllBookingsForCurrentUserId(Long userId) {
+        return get("/export", userId, Map.of());
     }
 
-    public ResponseEntity<List<BookingDtoOut>> getAllBookingsForCurrentUserId(Long userId,
-                                                                              Integer from,
-                                                                              Integer size,
-                                                                              State state) {
-        return getAll("", userId,
-                Map.of("from", from.toString(), "size", size.toString(), "state", state.toString()),
-                BookingDtoOut[].class);
+    public Mono<ResponseEntity<Flux<DataBuffer>>> exportAllItemBookingsForOwnerId(Long userId) {
+        return get("/owner/export", userId, Map.of());
     }
 
-    public ResponseEntity<List<BookingDtoOut>> getAllItemBookingsForOwnerId(Long userId,
-                                                                            Integer from,
-                                                                            Integer size,
-                                                                            State state) {
-        return getAll("/owner", userId,
-                Map.of("from", from.toString(), "size", size.toString(), "state", state.toString()),
-                BookingDtoOut[].class);
+    private Map<String, String> pageParameters(Integer from,
+                                               Integer size,
+                                               State state,
+                                               String cursor) {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("from", from.toString());
+        parameters.put("size", size.toString());
+        parameters.put("state", state.toString());
+        /*Курсор передаем, только если клиент его прислал, иначе сервер листает по from*/
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+        }
+        return parameters;
     }
 }
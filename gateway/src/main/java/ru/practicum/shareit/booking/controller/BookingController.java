@@ -2,16 +2,18 @@ package ru.practicum.shareit.booking.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.booking.client.BookingClient;
 import ru.practicum.shareit.booking.dto.BookingDtoIn;
-import ru.practicum.shareit.booking.dto.BookingDtoOut;
 import ru.practicum.shareit.booking.model.State;
 
 import javax.validation.Valid;
 import javax.validation.constraints.PositiveOrZero;
-import java.util.List;
 
 @RestController
 @RequestMapping(path = "/bookings")
@@ -23,54 +25,68 @@ public class BookingController {
     private final BookingClient bookingClient;
 
     @PostMapping
-    public ResponseEntity<BookingDtoOut> createBooking(@RequestHeader(requestHeader) Long userId,
-                                                       @RequestBody
-                                                       @Valid BookingDtoIn bookingDtoIn) {
+    public Mono<ResponseEntity<Flux<DataBuffer>>> createBooking(
+            @RequestHeader(requestHeader) Long userId,
+            @RequestBody @Valid BookingDtoIn bookingDtoIn) {
         log.info("createBooking request: userId = {}, bookingDtoIn = {}", userId, bookingDtoIn);
-        return ResponseEntity.ok(bookingClient.create(userId, bookingDtoIn)
-                .getBody());
+        return bookingClient.create(userId, bookingDtoIn);
     }
 
     @PatchMapping("/{bookingId}")
-    public ResponseEntity<BookingDtoOut> updateBooking(@PathVariable Long bookingId,
-                                                       @RequestParam(name = "approved")
-                                                       Boolean approved,
-                                                       @RequestHeader(requestHeader) Long userId) {
+    public Mono<ResponseEntity<Flux<DataBuffer>>> updateBooking(
+            @PathVariable Long bookingId,
+            @RequestParam(name = "approved") Boolean approved,
+            @RequestHeader(requestHeader) Long userId) {
         log.info("updateBooking request: bookingId = {}, approved = {}", bookingId, approved);
-        return ResponseEntity.ok(bookingClient.update(bookingId, approved, userId)
-                .getBody());
+        return bookingClient.update(bookingId, approved, userId);
     }
 
     @GetMapping("/{bookingId}")
-    public ResponseEntity<BookingDtoOut> getBooking(@PathVariable Long bookingId,
-                                                    @RequestHeader(requestHeader) Long userId) {
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getBooking(
+            @PathVariable Long bookingId,
+            @RequestHeader(requestHeader) Long userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("getBooking request: bookingId = {}", bookingId);
-        return ResponseEntity.ok(bookingClient.getBookingById(bookingId, userId)
-                .getBody());
+        return bookingClient.getBookingById(bookingId, userId, ifNoneMatch);
     }
 
     @GetMapping
-    public ResponseEntity<List<BookingDtoOut>> getAllForCurrentUser(
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getAllForCurrentUser(
             @RequestHeader(requestHeader) Long userId,
             @RequestParam(name = "state", defaultValue = "ALL") String state,
             @RequestParam(name = "from", defaultValue = "0") @PositiveOrZero Integer from,
-            @RequestParam(name = "size", defaultValue = "10") @PositiveOrZero Integer size) {
-        log.info("getBookings request: userId = {}, state = {}", userId, state);
-        return ResponseEntity.ok(bookingClient.getAllBookingsForCurrentUserId(userId, from, size,
-                        State.fromString(state))
-                .getBody());
+            @RequestParam(name = "size", defaultValue = "10") @PositiveOrZero Integer size,
+            @RequestParam(name = "cursor", required = false) String cursor) {
+        log.info("getBookings request: userId = {}, state = {}, cursor = {}", userId, state,
+                cursor);
+        return bookingClient.getAllBookingsForCurrentUserId(userId, from, size,
+                        State.fromString(state), cursor);
     }
 
     @GetMapping("/owner")
-    public ResponseEntity<List<BookingDtoOut>> getAllForOwner(
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getAllForOwner(
             @RequestHeader(requestHeader) Long userId,
             @RequestParam(name = "state", defaultValue = "ALL") String state,
             @RequestParam(name = "from", defaultValue = "0") @PositiveOrZero Integer from,
-            @RequestParam(name = "size", defaultValue = "10") @PositiveOrZero Integer size) {
-        log.info("getBookings request: userId = {}, state = {}", userId, state);
-        return ResponseEntity.ok(bookingClient.getAllItemBookingsForOwnerId(userId, from, size,
-                        State.fromString(state))
-                .getBody());
+            @RequestParam(name = "size", defaultValue = "10") @PositiveOrZero Integer size,
+            @RequestParam(name = "cursor", required = false) String cursor) {
+        log.info("getBookings request: userId = {}, state = {}, cursor = {}", userId, state,
+                cursor);
+        return bookingClient.getAllItemBookingsForOwnerId(userId, from, size,
+                        State.fromString(state), cursor);
     }
-}
 
+    @GetMapping("/export")
+    public Mono<ResponseEntity<Flux<DataBuffer>>> exportForCurrentUser(
+            @RequestHeader(requestHeader) Long userId) {
+        log.info("exportBookings request: userId = {}", userId);
+        return bookingClient.exportAllBookingsForCurrentUserId(userId);
+    }
+
+    @GetMapping("/owner/export")
+    public Mono<ResponseEntity<Flux<DataBuffer>>> exportForOwner(
+            @RequestHeader(requestHeader) Long userId) {
+        log.info("exportOwnerBookings request: userId = {}", userId);
+        return bookingClient.exportAllItemBookingsForOwnerId(userId);
+    }
+}
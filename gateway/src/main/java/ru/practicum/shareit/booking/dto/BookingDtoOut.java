@@ -1,30 +0,0 @@
-package ru.practicum.shareit.booking.dto;
-
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-import ru.practicum.shareit.booking.model.Status;
-import ru.practicum.shareit.item.dto.ItemDtoOut;
-import ru.practicum.shareit.user.dto.UserDtoOut;
-
-import java.time.LocalDateTime;
-
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-public class BookingDtoOut {
-    private Long id;
-    private LocalDateTime start;
-    private LocalDateTime end;
-    private ItemDtoOut item;
-    private UserDtoOut booker;
-    private Status status;
-
-    public Long getItemId() {
-        return item.getId();
-    }
-
-    public long getBookerId() {
-        return booker.getId();
-    }
-}
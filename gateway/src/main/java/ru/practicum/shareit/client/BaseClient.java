@@ -1,5 +1,7 @@
 package ru.practicum.shareit.client;
 
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -7,14 +9,24 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.Arrays;
-import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class BaseClient {
 
+    /**
+     * Атрибут запроса с именем клиента, по нему метрики разделяются на ItemClient, BookingClient, ...
+     */
+    public static final String CLIENT_ATTRIBUTE = "shareit.gateway.client";
+
+    /*Заголовки одного соединения (RFC 7230, 6.1), клиенту шлюза их не пробрасываем*/
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(HttpHeaders.CONNECTION,
+            "Keep-Alive", HttpHeaders.PROXY_AUTHENTICATE, HttpHeaders.PROXY_AUTHORIZATION,
+            HttpHeaders.TE, HttpHeaders.TRAILER, HttpHeaders.TRANSFER_ENCODING, HttpHeaders.UPGRADE);
+
     /*В шаблоне был рест темплейт, но я решил поэксперементировать с webclient
      * Почитал, что в скором времени RestTemplate станет устаревшим(уже стал по сути), в новых
      * проектах будет активно использоваться именно WebClient
@@ -25,175 +37,214 @@ public class BaseClient {
      * всего
      * реализации немного будет корявой, если увидите недочеты и как можно исправить
      * направьте на верный путьЗ)*/
+    /*Методы возвращают Mono без block(): шлюз работает на WebFlux и не занимает поток,
+     * пока ждет ответа сервера.
+     * Входные данные шлюз проверяет сам, а ответ сервера не меняет, поэтому тело ответа
+     * не разбирается в DTO, а отдается клиенту как есть потоком DataBuffer вместе со статусом
+     * и заголовками, в том числе ответы с ошибками.
+     * Одинаковые параллельные чтения объединяют в один запрос через RequestCoalescer только
+     * методы coalesced: их ответ читается целиком, поэтому они для небольших общих ответов
+     * (карточка и поиск вещей). Остальные чтения отдаются потоком.*/
     private final WebClient webClient;
+    private final RequestCoalescer requestCoalescer;
+    private final String clientName;
 
-    public BaseClient(String baseUrl) {
-        this.webClient = WebClient.builder()
-                .baseUrl(baseUrl)
+    /**
+     * @param webClientBuilder билдер из контекста Spring: общий пул соединений и метрики
+     * @param baseUrl          адрес ресурса на сервере
+     * @param requestCoalescer объединение одинаковых параллельных чтений
+     */
+    public BaseClient(WebClient.Builder webClientBuilder,
+                      String baseUrl,
+                      RequestCoalescer requestCoalescer) {
+        String clientName = getClass().getSimpleName();
+        this.clientName = clientName;
+        this.requestCoalescer = requestCoalescer;
+        this.webClient = webClientBuilder.baseUrl(baseUrl)
                 .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .defaultRequest(request -> request.attribute(CLIENT_ATTRIBUTE, clientName))
                 .build();
     }
 
     /**
-     * Метод для получения одного объекта из другого сервиса
+     * Метод для отправки GET запроса с указанием пользователя
      *
-     * @param path         путь до ресурса
-     * @param userId       id пользователя
-     * @param parameters   параметры запроса
-     * @param responseType тип возвращаемого объекта
-     * @param <V>          тип возвращаемого объекта
-     * @return объект типа V
+     * @param path       путь до ресурса
+     * @param userId     id пользователя
+     * @param parameters параметры запроса
+     * @return ответ сервера без изменений
      */
-    protected <V> ResponseEntity<V> get(String path,
-                                        Long userId,
-                                        Map<String, String> parameters,
-                                        Class<V> responseType) {
-        MultiValueMap<String, String> multiValueMap = new LinkedMultiValueMap<>();
-        parameters.forEach(multiValueMap::add);
-        return webClient.get()
+    protected Mono<ResponseEntity<Flux<DataBuffer>>> get(String path,
+                                                         Long userId,
+                                                         Map<String, String> parameters) {
+        return passthrough(webClient.get()
                 .uri(uriBuilder -> uriBuilder.path(path)
-                        .queryParams(multiValueMap)
+                        .queryParams(toMultiValueMap(parameters))
                         .build())
-                .header("X-Sharer-User-Id", userId.toString())
-                .retrieve()
-                .toEntity(responseType)
-                .block();
+                .header("X-Sharer-User-Id", userId.toString()));
     }
 
     /**
-     * Метод для получения списка объектов из другого сервиса с указанием пользователя
+     * Метод для отправки условного GET запроса с указанием пользователя.
+     * If-None-Match клиента уходит на сервер, и если версия не изменилась, сервер отвечает
+     * 304 без тела, а шлюз отдает этот ответ клиенту как есть
      *
-     * @param path         путь до ресурса
-     * @param userId       id пользователя
-     * @param parameters   параметры запроса
-     * @param responseType тип возвращаемого объекта
-     * @param <V>          тип возвращаемого объекта
-     * @return список объектов типа V
+     * @param path        путь до ресурса
+     * @param userId      id пользователя
+     * @param ifNoneMatch ETag из заголовка If-None-Match клиента, может отсутствовать
+     * @return ответ сервера без изменений
      */
-    protected <V> ResponseEntity<List<V>> getAll(String path,
-                                                 Long userId,
-                                                 Map<String, String> parameters,
-                                                 Class<V[]> responseType) {
-        MultiValueMap<String, String> multiValueMap = new LinkedMultiValueMap<>();
-        parameters.forEach(multiValueMap::add);
-        V[] responseArray = webClient.get()
-                .uri(uriBuilder -> uriBuilder.path(path)
-                        .queryParams(multiValueMap)
-                        .build())
-                .header("X-Sharer-User-Id", userId.toString())
-                .retrieve()
-                .bodyToMono(responseType)
-                .block();
+    protected Mono<ResponseEntity<Flux<DataBuffer>>> getIfNoneMatch(String path,
+                                                                    Long userId,
+                                                                    String ifNoneMatch) {
+        WebClient.RequestHeadersSpec<?> requestSpec = webClient.get()
+                .uri(path)
+                .header("X-Sharer-User-Id", userId.toString());
+        if (ifNoneMatch != null) {
+            requestSpec = requestSpec.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return passthrough(requestSpec);
+    }
 
-        return new ResponseEntity<>(Arrays.asList(responseArray), HttpStatus.OK);
+    /**
+     * Условный GET запрос, одинаковые параллельные запросы уходят на сервер одним,
+     * ответ читается целиком
+     *
+     * @param path        путь до ресурса
+     * @param userId      id пользователя
+     * @param ifNoneMatch ETag из заголовка If-None-Match клиента, может отсутствовать
+     * @return ответ сервера без изменений, общий с одинаковыми параллельными запросами
+     */
+    protected Mono<ResponseEntity<Flux<DataBuffer>>> coalescedGetIfNoneMatch(String path,
+                                                                             Long userId,
+                                                                             String ifNoneMatch) {
+        return requestCoalescer.coalesce(clientName, path, Map.of(), userId, ifNoneMatch,
+                () -> getIfNoneMatch(path, userId, ifNoneMatch));
     }
 
     /**
-     * Метод для получения списка объектов из другого сервиса без указания пользователя
+     * Метод для отправки GET запроса без указания пользователя
      *
-     * @param path         путь до ресурса
-     * @param parameters   параметры запроса
-     * @param responseType тип возвращаемого объекта
-     * @param <V>          тип возвращаемого объекта
-     * @return список объектов типа V
+     * @param path       путь до ресурса
+     * @param parameters параметры запроса
+     * @return ответ сервера без изменений
      */
-    protected <V> ResponseEntity<List<V>> getAll(String path,
-                                                 Map<String, String> parameters,
-                                                 Class<V[]> responseType) {
-        MultiValueMap<String, String> multiValueMap = new LinkedMultiValueMap<>();
-        parameters.forEach(multiValueMap::add);
-        V[] responseArray = webClient.get()
+    protected Mono<ResponseEntity<Flux<DataBuffer>>> get(String path,
+                                                         Map<String, String> parameters) {
+        return passthrough(webClient.get()
                 .uri(uriBuilder -> uriBuilder.path(path)
-                        .queryParams(multiValueMap)
-                        .build())
-                .retrieve()
-                .bodyToMono(responseType)
-                .block();
+                        .queryParams(toMultiValueMap(parameters))
+                        .build()));
+    }
 
-        return new ResponseEntity<>(Arrays.asList(responseArray), HttpStatus.OK);
+    /**
+     * GET запрос без указания пользователя, одинаковые параллельные запросы уходят на сервер
+     * одним, ответ читается целиком
+     *
+     * @param path       путь до ресурса
+     * @param parameters параметры запроса
+     * @return ответ сервера без изменений, общий с одинаковыми параллельными запросами
+     */
+    protected Mono<ResponseEntity<Flux<DataBuffer>>> coalescedGet(String path,
+                                                                  Map<String, String> parameters) {
+        return requestCoalescer.coalesce(clientName, path, parameters, null, null,
+                () -> get(path, parameters));
     }
 
     /**
      * Метод для отправки POST запроса с указанием пользователя
      *
-     * @param path         путь до ресурса
-     * @param body         тело запроса
-     * @param userId       id пользователя
-     * @param responseType тип возвращаемого объекта
-     * @param <T>          тип тела запроса
-     * @param <V>          тип возвращаемого объекта
-     * @return объект типа V
+     * @param path   путь до ресурса
+     * @param body   тело запроса
+     * @param userId id пользователя
+     * @return ответ сервера без изменений
      */
-    protected <T, V> ResponseEntity<V> post(String path,
-                                            T body,
-                                            Long userId,
-                                            Class<V> responseType) {
-        return webClient.post()
+    protected Mono<ResponseEntity<Flux<DataBuffer>>> post(String path,
+                                                          Object body,
+                                                          Long userId) {
+        return requestCoalescer.write(passthrough(webClient.post()
                 .uri(path)
                 .header("X-Sharer-User-Id", userId.toString())
-                .body(Mono.just(body), body.getClass())
-                .retrieve()
-                .toEntity(responseType)
-                .block();
+                .bodyValue(body)));
     }
 
     /**
      * Метод для отправки POST запроса без указания пользователя
      *
-     * @param path         путь до ресурса
-     * @param body         тело запроса
-     * @param responseType тип возвращаемого объекта
-     * @param <T>          тип тела запроса
-     * @param <V>          тип возвращаемого объекта
-     * @return объект типа V
+     * @param path путь до ресурса
+     * @param body тело запроса
+     * @return ответ сервера без изменений
      */
-    protected <T, V> ResponseEntity<V> post(String path,
-                                            T body,
-                                            Class<V> responseType) {
-        return webClient.post()
+    protected Mono<ResponseEntity<Flux<DataBuffer>>> post(String path,
+                                                          Object body) {
+        return requestCoalescer.write(passthrough(webClient.post()
                 .uri(path)
-                .body(Mono.just(body), body.getClass())
-                .retrieve()
-                .toEntity(responseType)
-                .block();
+                .bodyValue(body)));
     }
 
     /**
      * Метод для отправки PATCH запроса с указанием пользователя
      *
-     * @param path         путь до ресурса
-     * @param body         тело запроса
-     * @param userId       id пользователя
-     * @param responseType тип возвращаемого объекта
-     * @param <V>          тип возвращаемого объекта
-     * @return
+     * @param path   путь до ресурса
+     * @param body   тело запроса, может отсутствовать
+     * @param userId id пользователя
+     * @return ответ сервера без изменений
      */
-    protected <V> ResponseEntity<V> patch(String path,
-                                          Object body,
-                                          Long userId,
-                                          Class<V> responseType) {
+    protected Mono<ResponseEntity<Flux<DataBuffer>>> patch(String path,
+                                                           Object body,
+                                                           Long userId) {
         WebClient.RequestBodySpec uriSpec = webClient.patch()
                 .uri(path)
                 .header("X-Sharer-User-Id", userId.toString());
-
-        WebClient.ResponseSpec responseSpec;
         if (body != null) {
-            responseSpec = uriSpec.bodyValue(body)
-                    .retrieve();
-        } else {
-            responseSpec = uriSpec.retrieve();
+            return requestCoalescer.write(passthrough(uriSpec.bodyValue(body)));
         }
-
-        return responseSpec.toEntity(responseType)
-                .block();
+        return requestCoalescer.write(passthrough(uriSpec));
     }
 
-    protected Mono<ResponseEntity<Object>> delete(String path,
-                                                  Long userId) {
-        return webClient.delete()
+    protected Mono<ResponseEntity<Flux<DataBuffer>>> delete(String path,
+                                                            Long userId) {
+        return requestCoalescer.write(passthrough(webClient.delete()
                 .uri(path)
-                .header("X-Sharer-User-Id", userId.toString())
-                .retrieve()
-                .toEntity(Object.class);
+                .header("X-Sharer-User-Id", userId.toString())));
+    }
+
+    private Mono<ResponseEntity<Flux<DataBuffer>>> passthrough(
+            WebClient.RequestHeadersSpec<?> requestSpec) {
+        return requestSpec.retrieve()
+                /*Ошибки сервера не превращаем в исключения, а отдаем клиенту как есть*/
+                .onStatus(HttpStatus::isError, response -> Mono.empty())
+                .toEntityFlux(DataBuffer.class)
+                .flatMap(response -> {
+                    ResponseEntity.BodyBuilder builder = ResponseEntity.status(
+                                    response.getStatusCode())
+                            .headers(endToEndHeaders(response.getHeaders()));
+                    if (response.getHeaders()
+                            .getContentType() == null) {
+                        /*Ответ без тела (например, DELETE): дочитываем его, чтобы вернуть
+                         * соединение в пул, и не даем WebFlux подобрать тип содержимого сам*/
+                        return response.getBody()
+                                .map(DataBufferUtils::release)
+                                .then(Mono.just(builder.<Flux<DataBuffer>>build()));
+                    }
+                    return Mono.just(builder.body(response.getBody()));
+                });
+    }
+
+    private static HttpHeaders endToEndHeaders(HttpHeaders headers) {
+        HttpHeaders result = new HttpHeaders();
+        headers.forEach((name, values) -> {
+            if (HOP_BY_HOP_HEADERS.stream()
+                    .noneMatch(name::equalsIgnoreCase)) {
+                result.addAll(name, values);
+            }
+        });
+        return result;
+    }
+
+    private static MultiValueMap<String, String> toMultiValueMap(Map<String, String> parameters) {
+        MultiValueMap<String, String> multiValueMap = new LinkedMultiValueMap<>();
+        parameters.forEach(multiValueMap::add);
+        return multiValueMap;
     }
 }
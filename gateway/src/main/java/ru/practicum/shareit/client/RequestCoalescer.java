@@ -0,0 +1,142 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Объединение одинаковых параллельных GET запросов к серверу (single-flight).
+ * Первый запрос уходит на сервер, остальные с тем же клиентом, путем, параметрами, пользователем
+ * и If-None-Match ждут его ответ. Ответ читается целиком и отдается каждому ожидающему.
+ * <p>
+ * Чтение, начатое после ответа на изменяющий запрос, к запросу, начатому до изменения,
+ * не присоединяется: каждый ответ на POST, PATCH или DELETE начинает новую эпоху ключей.
+ * <p>
+ * Метрика gateway.requests.coalesced - чтения, присоединившиеся к уже идущему.
+ */
+@Component
+public class RequestCoalescer {
+
+    private final Map<Key, Mono<BufferedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong writeEpoch = new AtomicLong();
+    private final Counter coalesced;
+    private final boolean enabled;
+
+    public RequestCoalescer(ServerHttpClientProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.coalesced = meterRegistry.counter("gateway.requests.coalesced");
+        this.enabled = properties.isCoalesceReads();
+    }
+
+    /**
+     * Выполнить чтение либо присоединиться к такому же, которое уже идет
+     *
+     * @param client      имя клиента шлюза
+     * @param path        путь до ресурса
+     * @param parameters  параметры запроса
+     * @param userId      id пользователя, может отсутствовать
+     * @param ifNoneMatch If-None-Match запроса, может отсутствовать
+     * @param request     запрос к серверу
+     * @return ответ сервера, общий для всех одинаковых запросов
+     */
+    public Mono<ResponseEntity<Flux<DataBuffer>>> coalesce(
+            String client,
+            String path,
+            Map<String, String> parameters,
+            Long userId,
+            String ifNoneMatch,
+            Supplier<Mono<ResponseEntity<Flux<DataBuffer>>>> request) {
+        if (!enabled) {
+            return request.get();
+        }
+        return Mono.defer(() -> {
+            Key key = new Key(client, path, new TreeMap<>(parameters), userId, ifNoneMatch,
+                    writeEpoch.get());
+            AtomicReference<Mono<BufferedResponse>> started = new AtomicReference<>();
+            /*Запрос остается в inFlight до своего завершения, cache() раздает его результат
+             * всем подписчикам, в том числе опоздавшим к моменту удаления*/
+            Mono<BufferedResponse> flight = inFlight.computeIfAbsent(key, k -> {
+                Mono<BufferedResponse> shared = request.get()
+                        .flatMap(RequestCoalescer::buffer)
+                        .doFinally(signal -> inFlight.remove(k, started.get()))
+                        .cache();
+                started.set(shared);
+                return shared;
+            });
+            if (flight != started.get()) {
+                coalesced.increment();
+            }
+            return flight.map(BufferedResponse::toResponse);
+        });
+    }
+
+    /**
+     * Отметить изменяющий запрос: чтения после его ответа идут на сервер заново
+     *
+     * @param write изменяющий запрос к серверу
+     * @return ответ сервера без изменений
+     */
+    public Mono<ResponseEntity<Flux<DataBuffer>>> write(Mono<ResponseEntity<Flux<DataBuffer>>> write) {
+        return write.doOnNext(response -> writeEpoch.incrementAndGet())
+                .doOnError(error -> writeEpoch.incrementAndGet());
+    }
+
+    private static Mono<BufferedResponse> buffer(ResponseEntity<Flux<DataBuffer>> response) {
+        Mono<byte[]> body = response.getBody() == null ? Mono.just(new byte[0])
+                : DataBufferUtils.join(response.getBody())
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .defaultIfEmpty(new byte[0]);
+        return body.map(bytes -> new BufferedResponse(response.getStatusCode(),
+                HttpHeaders.readOnlyHttpHeaders(response.getHeaders()), bytes));
+    }
+
+    @Value
+    private static class Key {
+        String client;
+        String path;
+        Map<String, String> parameters;
+        Long userId;
+        String ifNoneMatch;
+        long epoch;
+    }
+
+    @Value
+    private static class BufferedResponse {
+        HttpStatus status;
+        HttpHeaders headers;
+        byte[] body;
+
+        ResponseEntity<Flux<DataBuffer>> toResponse() {
+            if (body.length == 0 && headers.getContentType() == null) {
+                return ResponseEntity.status(status)
+                        .headers(headers)
+                        .build();
+            }
+            return ResponseEntity.status(status)
+                    .headers(headers)
+                    .body(Flux.defer(
+                            () -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body))));
+        }
+    }
+}
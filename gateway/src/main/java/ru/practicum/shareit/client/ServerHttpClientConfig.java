@@ -0,0 +1,63 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.netty.channel.ChannelOption;
+import org.springframework.boot.actuate.metrics.web.reactive.client.DefaultWebClientExchangeTagsProvider;
+import org.springframework.boot.actuate.metrics.web.reactive.client.WebClientExchangeTagsProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import ru.practicum.shareit.client.cache.ResponseCacheProperties;
+
+/**
+ * Один пул соединений к серверу на все клиенты шлюза вместо пула по умолчанию у каждого WebClient.
+ */
+@Configuration
+@EnableConfigurationProperties({ServerHttpClientProperties.class, ResponseCacheProperties.class})
+public class ServerHttpClientConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider serverConnectionProvider(ServerHttpClientProperties properties) {
+        return ConnectionProvider.builder("shareit-server")
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireMaxCount(properties.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(properties.getPendingAcquireTimeout())
+                .maxIdleTime(properties.getMaxIdleTime())
+                .maxLifeTime(properties.getMaxLifeTime())
+                .evictInBackground(properties.getEvictInBackground())
+                /*Метрики пула: reactor.netty.connection.provider.* с тегом name=shareit-server*/
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClientCustomizer serverConnectorCustomizer(ConnectionProvider serverConnectionProvider,
+                                                         ServerHttpClientProperties properties) {
+        HttpClient httpClient = HttpClient.create(serverConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS,
+                        (int) properties.getConnectTimeout()
+                                .toMillis())
+                .responseTimeout(properties.getResponseTimeout());
+        return builder -> builder.clientConnector(new ReactorClientHttpConnector(httpClient));
+    }
+
+    /**
+     * К стандартным тегам http.client.requests добавляет имя клиента шлюза (ItemClient, ...).
+     */
+    @Bean
+    public WebClientExchangeTagsProvider clientNameExchangeTagsProvider() {
+        DefaultWebClientExchangeTagsProvider defaultTags = new DefaultWebClientExchangeTagsProvider();
+        return (request, response, throwable) -> {
+            Tags tags = Tags.of(defaultTags.tags(request, response, throwable));
+            String client = request.attribute(BaseClient.CLIENT_ATTRIBUTE)
+                    .map(Object::toString)
+                    .orElse("unknown");
+            return tags.and(Tag.of("gateway.client", client));
+        };
+    }
+}
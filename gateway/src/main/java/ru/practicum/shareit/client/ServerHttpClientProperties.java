@@ -0,0 +1,50 @@
+package ru.practicum.shareit.client;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки запросов шлюза к серверу: общий пул соединений и объединение одинаковых чтений.
+ */
+@Data
+@ConfigurationProperties(prefix = "shareit-server.http")
+public class ServerHttpClientProperties {
+    /**
+     * Максимум одновременно открытых соединений к серверу.
+     */
+    private int maxConnections = 200;
+    /**
+     * Сколько запросов может ждать свободное соединение, остальные сразу получают ошибку.
+     */
+    private int pendingAcquireMaxCount = 1000;
+    /**
+     * Сколько запрос ждет свободное соединение.
+     */
+    private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+    /**
+     * Простаивающее дольше соединение закрывается.
+     */
+    private Duration maxIdleTime = Duration.ofSeconds(30);
+    /**
+     * Соединение старше закрывается, даже если используется.
+     */
+    private Duration maxLifeTime = Duration.ofMinutes(5);
+    /**
+     * Период фоновой проверки пула на простаивающие и старые соединения.
+     */
+    private Duration evictInBackground = Duration.ofSeconds(30);
+    /**
+     * Сколько ждать установки нового соединения с сервером.
+     */
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    /**
+     * Сколько ждать ответа сервера после отправки запроса.
+     */
+    private Duration responseTimeout = Duration.ofSeconds(10);
+    /**
+     * Объединять одинаковые параллельные чтения в один запрос к серверу, см. RequestCoalescer.
+     */
+    private boolean coalesceReads = true;
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.client.cache;
+
+/**
+ * Чтения, ответы на которые шлюз кэширует. У каждого свой кэш, время жизни записей и метрики.
+ */
+public enum CachedRoute {
+    /**
+     * GET /items/{id}: ответ свой у каждого пользователя, владелец видит брони
+     */
+    ITEM,
+    /**
+     * GET /items/search: от пользователя не зависит
+     */
+    ITEM_SEARCH,
+    /**
+     * GET /requests, /requests/all и /requests/{id}: запросы вместе с вещами-откликами
+     */
+    REQUESTS,
+    /**
+     * GET /users/{id}
+     */
+    USER
+}
@@ -0,0 +1,349 @@
+package ru.practicum.shareit.client.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Кэш ответов сервера в памяти шлюза, по кэшу Caffeine на каждый {@link CachedRoute}.
+ * Ключ - путь, параметры запроса и пользователь. Кэшируются только ответы 200.
+ * <p>
+ * Записи сбрасывают клиенты шлюза после успешных изменений, которые прошли через этот шлюз.
+ * Изменения через другие экземпляры шлюза видны только по истечении времени жизни записи.
+ * Размер кэша маршрута ограничен суммарным объемом тел ответов, а не числом записей.
+ * <p>
+ * Промахи кэша идут на сервер через клиентов шлюза, поэтому одинаковые параллельные промахи
+ * объединяет {@link ru.practicum.shareit.client.RequestCoalescer}, и истечение популярной
+ * записи не превращается в пачку одинаковых запросов к серверу.
+ * <p>
+ * Метрики: cache.gets (hit/miss), cache.evictions, cache.size с тегом cache=gateway.&lt;маршрут&gt;
+ * и gateway.cache.revalidations с исходом условного запроса.
+ */
+@Component
+public class ResponseCache {
+
+    /*Примерный объем ключа и заголовков записи сверх тела ответа*/
+    private static final int ENTRY_OVERHEAD_BYTES = 512;
+
+    private final ResponseCacheProperties properties;
+    private final Map<CachedRoute, RouteCache> routes = new EnumMap<>(CachedRoute.class);
+
+    public ResponseCache(ResponseCacheProperties properties,
+                         MeterRegistry meterRegistry) {
+        this.properties = properties;
+        for (CachedRoute route : CachedRoute.values()) {
+            routes.put(route, new RouteCache(route, meterRegistry));
+        }
+    }
+
+    /**
+     * Получить ответ из кэша либо с сервера.
+     * Свежая запись отдается сразу. Устаревшая запись с ETag переспрашивается условным
+     * запросом, на 304 отдается сохраненное тело. Если клиент прислал If-None-Match,
+     * совпадающий с ETag ответа, ему уходит 304 без тела.
+     *
+     * @param route       маршрут
+     * @param path        путь до ресурса
+     * @param parameters  параметры запроса
+     * @param userId      id пользователя, null если ответ от пользователя не зависит
+     * @param ifNoneMatch If-None-Match клиента, может отсутствовать
+     * @param upstream    запрос к серверу, принимает ETag для If-None-Match или null
+     * @return ответ сервера либо сохраненная его копия
+     */
+    public Mono<ResponseEntity<Flux<DataBuffer>>> get(
+            CachedRoute route,
+            String path,
+            Map<String, String> parameters,
+            Long userId,
+            String ifNoneMatch,
+            Function<String, Mono<ResponseEntity<Flux<DataBuffer>>>> upstream) {
+        if (!properties.isEnabled()) {
+            return upstream.apply(ifNoneMatch);
+        }
+        RouteCache routeCache = routes.get(route);
+        Key key = new Key(path, new TreeMap<>(parameters), userId);
+        CachedResponse cached = routeCache.cache.getIfPresent(key);
+        if (cached != null && cached.isFresh()) {
+            return Mono.just(cached.toResponse(ifNoneMatch));
+        }
+        return fetch(route, routeCache, key, cached, upstream)
+                .map(response -> response.toResponse(ifNoneMatch));
+    }
+
+    /**
+     * Сбросить все записи маршрута. Ответы на чтения, начатые до сброса, в кэш уже не попадут.
+     *
+     * @param route маршрут
+     */
+    public void invalidate(CachedRoute route) {
+        RouteCache routeCache = routes.get(route);
+        routeCache.generation.incrementAndGet();
+        routeCache.cache.invalidateAll();
+    }
+
+    /**
+     * Сбросить записи маршрута по пути для всех пользователей и параметров
+     *
+     * @param route маршрут
+     * @param path  путь до ресурса
+     */
+    public void invalidate(CachedRoute route,
+                           String path) {
+        RouteCache routeCache = routes.get(route);
+        routeCache.generation.incrementAndGet();
+        routeCache.cache.asMap()
+                .keySet()
+                .removeIf(key -> key.getPath()
+                        .equals(path));
+    }
+
+    /**
+     * Выполнить сброс, когда изменение на сервере прошло успешно
+     *
+     * @param write        изменяющий запрос к серверу
+     * @param invalidation сброс затронутых записей
+     * @return ответ сервера без изменений
+     */
+    public Mono<ResponseEntity<Flux<DataBuffer>>> invalidateOnSuccess(
+            Mono<ResponseEntity<Flux<DataBuffer>>> write,
+            Runnable invalidation) {
+        return write.doOnNext(response -> {
+            if (response.getStatusCode()
+                    .is2xxSuccessful()) {
+                invalidation.run();
+            }
+        });
+    }
+
+    /*Ответ читается целиком, чтобы отдать его клиенту и при необходимости сохранить,
+     * сохраняется только 200*/
+    private Mono<CachedResponse> fetch(CachedRoute route,
+                                       RouteCache routeCache,
+                                       Key key,
+                                       CachedResponse cached,
+                                       Function<String, Mono<ResponseEntity<Flux<DataBuffer>>>> upstream) {
+        String validator = cached == null ? null : cached.getETag();
+        /*Сброс во время запроса увеличит поколение, и устаревший ответ не попадет в кэш*/
+        long generation = routeCache.generation.get();
+        return upstream.apply(validator)
+                .flatMap(response -> {
+                    if (cached != null && response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                        routeCache.notModified.increment();
+                        CachedResponse refreshed = cached.refresh(ttl(route));
+                        routeCache.putIfCurrent(key, refreshed, generation);
+                        return release(response).thenReturn(refreshed);
+                    }
+                    if (validator != null) {
+                        routeCache.modified.increment();
+                    }
+                    return read(response).map(body -> {
+                        CachedResponse received = new CachedResponse(response.getStatusCode(),
+                                response.getHeaders(), body, ttl(route));
+                        if (response.getStatusCode() == HttpStatus.OK) {
+                            routeCache.putIfCurrent(key, received, generation);
+                        }
+                        return received;
+                    });
+                });
+    }
+
+    private Duration ttl(CachedRoute route) {
+        return properties.getTtl()
+                .getOrDefault(route, Duration.ZERO);
+    }
+
+    private static Mono<byte[]> read(ResponseEntity<Flux<DataBuffer>> response) {
+        if (response.getBody() == null) {
+            return Mono.just(new byte[0]);
+        }
+        return DataBufferUtils.join(response.getBody())
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .defaultIfEmpty(new byte[0]);
+    }
+
+    /*Тело 304 пустое, но соединение вернется в пул, только когда его дочитают*/
+    private static Mono<Void> release(ResponseEntity<Flux<DataBuffer>> response) {
+        if (response.getBody() == null) {
+            return Mono.empty();
+        }
+        return response.getBody()
+                .map(DataBufferUtils::release)
+                .then();
+    }
+
+    @Value
+    private static class Key {
+        String path;
+        Map<String, String> parameters;
+        Long userId;
+    }
+
+    private class RouteCache {
+
+        private final Cache<Key, CachedResponse> cache;
+        private final AtomicLong generation = new AtomicLong();
+        private final Counter notModified;
+        private final Counter modified;
+
+        RouteCache(CachedRoute route,
+                   MeterRegistry meterRegistry) {
+            String name = "gateway." + route.name()
+                    .toLowerCase();
+            this.cache = Caffeine.newBuilder()
+                    .maximumWeight(properties.getMaxSize()
+                            .toBytes())
+                    .weigher((Key key, CachedResponse value) -> value.getBody().length
+                            + ENTRY_OVERHEAD_BYTES)
+                    .expireAfter(new RetentionExpiry())
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+            this.notModified = Counter.builder("gateway.cache.revalidations")
+                    .tags("cache", name, "result", "not_modified")
+                    .register(meterRegistry);
+            this.modified = Counter.builder("gateway.cache.revalidations")
+                    .tags("cache", name, "result", "modified")
+                    .register(meterRegistry);
+        }
+
+        void putIfCurrent(Key key,
+                          CachedResponse response,
+                          long generation) {
+            if (this.generation.get() == generation) {
+                cache.put(key, response);
+            }
+        }
+    }
+
+    /*Запись без ETag живет свое время жизни, с ETag еще и окно для условного запроса*/
+    private class RetentionExpiry implements Expiry<Key, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(Key key,
+                                      CachedResponse value,
+                                      long currentTime) {
+            return retention(value);
+        }
+
+        @Override
+        public long expireAfterUpdate(Key key,
+                                      CachedResponse value,
+                                      long currentTime,
+                                      long currentDuration) {
+            return retention(value);
+        }
+
+        @Override
+        public long expireAfterRead(Key key,
+                                    CachedResponse value,
+                                    long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+
+        private long retention(CachedResponse value) {
+            long remaining = Math.max(0, value.getFreshUntilNanos() - System.nanoTime());
+            if (value.getETag() == null) {
+                return remaining;
+            }
+            return remaining + properties.getRevalidateWindow()
+                    .toNanos();
+        }
+    }
+
+    @Value
+    private static class CachedResponse {
+        HttpStatus status;
+        HttpHeaders headers;
+        byte[] body;
+        long freshUntilNanos;
+
+        CachedResponse(HttpStatus status,
+                       HttpHeaders headers,
+                       byte[] body,
+                       Duration ttl) {
+            this.status = status;
+            this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+            this.body = body;
+            this.freshUntilNanos = System.nanoTime() + ttl.toNanos();
+        }
+
+        boolean isFresh() {
+            return System.nanoTime() - freshUntilNanos < 0;
+        }
+
+        String getETag() {
+            return headers.getETag();
+        }
+
+        CachedResponse refresh(Duration ttl) {
+            return new CachedResponse(status, headers, body, ttl);
+        }
+
+        ResponseEntity<Flux<DataBuffer>> toResponse(String ifNoneMatch) {
+            if (matches(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(getETag())
+                        .headers(varyHeaders())
+                        .build();
+            }
+            if (body.length == 0 && headers.getContentType() == null) {
+                return ResponseEntity.status(status)
+                        .headers(headers)
+                        .build();
+            }
+            return ResponseEntity.status(status)
+                    .headers(headers)
+                    .body(Flux.defer(() -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(
+                            body))));
+        }
+
+        /*If-None-Match может перечислять несколько тегов, сравнение слабое (RFC 7232, 3.2)*/
+        private boolean matches(String ifNoneMatch) {
+            String eTag = getETag();
+            if (ifNoneMatch == null || eTag == null) {
+                return false;
+            }
+            String strongETag = eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(
+                        strongETag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private HttpHeaders varyHeaders() {
+            HttpHeaders vary = new HttpHeaders();
+            vary.setVary(headers.getVary());
+            return vary;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.client.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Настройки кэша ответов сервера в шлюзе.
+ */
+@Data
+@ConfigurationProperties(prefix = "shareit-server.cache")
+public class ResponseCacheProperties {
+    /**
+     * Выключенный кэш пропускает все чтения на сервер, If-None-Match клиента уходит как есть.
+     */
+    private boolean enabled = true;
+    /**
+     * Максимальный объем тел ответов в кэше одного маршрута, вместе с небольшой надбавкой
+     * на запись. Лишние записи вытесняются.
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(32);
+    /**
+     * Сколько ответ отдается из кэша без обращения к серверу, по маршрутам.
+     */
+    private Map<CachedRoute, Duration> ttl = new EnumMap<>(Map.of(
+            CachedRoute.ITEM, Duration.ofSeconds(30),
+            CachedRoute.ITEM_SEARCH, Duration.ofMinutes(1),
+            CachedRoute.REQUESTS, Duration.ofSeconds(30),
+            CachedRoute.USER, Duration.ofMinutes(5)));
+    /**
+     * Сколько еще хранится устаревший ответ с ETag: по нему шлюз переспрашивает сервер
+     * условным запросом и на 304 отдает сохраненное тело.
+     */
+    private Duration revalidateWindow = Duration.ofMinutes(10);
+}
@@ -2,12 +2,11 @@ package ru.practicum.shareit.exception.exceptionHandler;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.MissingRequestHeaderException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.server.ServerWebInputException;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.IllegalOwnerException;
 import ru.practicum.shareit.exception.ResourceNotFoundException;
@@ -17,17 +16,15 @@ import ru.practicum.shareit.util.ErrorResponse;
 @RestControllerAdvice(basePackages = "ru.practicum.shareit")
 public class DefExceptionHandler {
 
-    @ExceptionHandler
-    public ResponseEntity<ErrorResponse> handleWebClientResponseException(WebClientResponseException ex) {
-        log.error("WebClient exception", ex);
-
-        ErrorResponse errorResponse = ErrorResponse.builder()
+    @ExceptionHandler(WebClientRequestException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleWebClientRequestException(WebClientRequestException ex) {
+        /*Сервер недоступен, не ответил вовремя или пул соединений переполнен*/
+        log.error("Server request failed", ex);
+        return ErrorResponse.builder()
                 .message(ex.getMessage())
-                .code(ex.getRawStatusCode())
+                .code(HttpStatus.SERVICE_UNAVAILABLE.value())
                 .build();
-
-        // Создаем ResponseEntity с нужным статусом и телом ответа
-        return new ResponseEntity<>(errorResponse, HttpStatus.valueOf(ex.getRawStatusCode()));
     }
 
     @ExceptionHandler(BadRequestException.class)
@@ -41,10 +38,11 @@ public class DefExceptionHandler {
                 .build();
     }
 
-    @ExceptionHandler(MissingRequestHeaderException.class)
+    @ExceptionHandler(ServerWebInputException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
-    public ErrorResponse handleMissingRequestHeaderException(MissingRequestHeaderException ex) {
-        log.error("Missing request header", ex);
+    public ErrorResponse handleServerWebInputException(ServerWebInputException ex) {
+        /*В WebFlux сюда попадают отсутствующий заголовок, параметр и невалидное тело запроса*/
+        log.error("Invalid request input", ex);
         return ErrorResponse.builder()
                 .message(ex.getMessage())
                 .code(HttpStatus.BAD_REQUEST.value())
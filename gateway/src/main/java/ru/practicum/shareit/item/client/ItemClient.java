@@ -2,15 +2,19 @@ package ru.practicum.shareit.item.client;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.RequestCoalescer;
+import ru.practicum.shareit.client.cache.CachedRoute;
+import ru.practicum.shareit.client.cache.ResponseCache;
 import ru.practicum.shareit.item.dto.CommentDtoIn;
-import ru.practicum.shareit.item.dto.CommentDtoOut;
 import ru.practicum.shareit.item.dto.ItemDtoIn;
-import ru.practicum.shareit.item.dto.ItemDtoOut;
 
-import java.util.List;
 import java.util.Map;
 
 @Service
@@ -18,46 +22,65 @@ public class ItemClient extends BaseClient {
 
     private static final String API_PREFIX = "/items";
 
+    private final ResponseCache responseCache;
+
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String baseUrl) {
-        super(baseUrl + API_PREFIX);
+    public ItemClient(WebClient.Builder webClientBuilder,
+                      @Value("${shareit-server.url}") String baseUrl,
+                      RequestCoalescer requestCoalescer,
+                      ResponseCache responseCache) {
+        super(webClientBuilder, baseUrl + API_PREFIX, requestCoalescer);
+        this.responseCache = responseCache;
     }
 
-    public ResponseEntity<ItemDtoOut> create(Long userId,
-                                             ItemDtoIn itemDtoIn) {
-        return post("", itemDtoIn, userId, ItemDtoOut.class);
+    /*Новая вещь может попасть в поиск и в отклики на запрос*/
+    public Mono<ResponseEntity<Flux<DataBuffer>>> create(Long userId,
+                                                         ItemDtoIn itemDtoIn) {
+        return responseCache.invalidateOnSuccess(post("", itemDtoIn, userId), () -> {
+            responseCache.invalidate(CachedRoute.ITEM_SEARCH);
+            responseCache.invalidate(CachedRoute.REQUESTS);
+        });
     }
 
-    public ResponseEntity<ItemDtoOut> update(Long userId,
-                                             Long itemId,
-                                             ItemDtoIn itemDtoIn) {
-        return patch("/" + itemId.toString(), itemDtoIn, userId, ItemDtoOut.class);
+    public Mono<ResponseEntity<Flux<DataBuffer>>> update(Long userId,
+                                                         Long itemId,
+                                                         ItemDtoIn itemDtoIn) {
+        String path = "/" + itemId.toString();
+        return responseCache.invalidateOnSuccess(patch(path, itemDtoIn, userId), () -> {
+            responseCache.invalidate(CachedRoute.ITEM, path);
+            responseCache.invalidate(CachedRoute.ITEM_SEARCH);
+            responseCache.invalidate(CachedRoute.REQUESTS);
+        });
     }
 
-    public ResponseEntity<ItemDtoOut> getById(Long itemId,
-                                              Long userId) {
-        return get("/" + itemId.toString(), userId, Map.of(), ItemDtoOut.class);
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getById(Long itemId,
+                                                          Long userId,
+                                                          String ifNoneMatch) {
+        String path = "/" + itemId.toString();
+        return responseCache.get(CachedRoute.ITEM, path, Map.of(), userId, ifNoneMatch,
+                validator -> coalescedGetIfNoneMatch(path, userId, validator));
     }
 
-    public ResponseEntity<CommentDtoOut> addComment(Long itemId,
-                                                    Long userId,
-                                                    CommentDtoIn commentDtoIn) {
-        return post("/" + itemId.toString() + "/comment", commentDtoIn, userId,
-                CommentDtoOut.class);
+    public Mono<ResponseEntity<Flux<DataBuffer>>> addComment(Long itemId,
+                                                             Long userId,
+                                                             CommentDtoIn commentDtoIn) {
+        String path = "/" + itemId.toString();
+        return responseCache.invalidateOnSuccess(post(path + "/comment", commentDtoIn, userId),
+                () -> responseCache.invalidate(CachedRoute.ITEM, path));
     }
 
-    public ResponseEntity<List<ItemDtoOut>> getAllOwnerItemsByOwnerId(Long ownerId,
-                                                                      Integer from,
-                                                                      Integer size) {
-        return getAll("", ownerId, Map.of("from", from.toString(), "size", size.toString()),
-                ItemDtoOut[].class);
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getAllOwnerItemsByOwnerId(Long ownerId,
+                                                                            Integer from,
+                                                                            Integer size) {
+        return get("", ownerId, Map.of("from", from.toString(), "size", size.toString()));
     }
 
-    public ResponseEntity<List<ItemDtoOut>> search(String text,
-                                                   Integer from,
-                                                   Integer size) {
-        return getAll("/search",
-                Map.of("text", text, "from", from.toString(), "size", size.toString()),
-                ItemDtoOut[].class);
+    public Mono<ResponseEntity<Flux<DataBuffer>>> search(String text,
+                                                         Integer from,
+                                                         Integer size) {
+        Map<String, String> parameters = Map.of("text", text, "from", from.toString(), "size",
+                size.toString());
+        return responseCache.get(CachedRoute.ITEM_SEARCH, "/search", parameters, null, null,
+                validator -> coalescedGet("/search", parameters));
     }
 }
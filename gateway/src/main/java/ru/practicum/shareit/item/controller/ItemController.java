@@ -2,17 +2,18 @@ package ru.practicum.shareit.item.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.item.client.ItemClient;
 import ru.practicum.shareit.item.dto.CommentDtoIn;
-import ru.practicum.shareit.item.dto.CommentDtoOut;
 import ru.practicum.shareit.item.dto.ItemDtoIn;
-import ru.practicum.shareit.item.dto.ItemDtoOut;
 
 import javax.validation.Valid;
 import javax.validation.constraints.PositiveOrZero;
-import java.util.List;
 
 @RestController
 @RequestMapping("/items")
@@ -24,62 +25,61 @@ public class ItemController {
     private final ItemClient itemClient;
 
     @PostMapping
-    public ResponseEntity<ItemDtoOut> createItem(@RequestHeader(requestHeader) Long userId,
-                                                 @RequestBody @Valid ItemDtoIn itemDtoIn) {
+    public Mono<ResponseEntity<Flux<DataBuffer>>> createItem(
+            @RequestHeader(requestHeader) Long userId,
+            @RequestBody @Valid ItemDtoIn itemDtoIn) {
         log.info("createItem request: userId = {}, item = {}", userId, itemDtoIn);
-        return ResponseEntity.ok(itemClient.create(userId, itemDtoIn)
-                .getBody());
+        return itemClient.create(userId, itemDtoIn);
     }
 
     @PatchMapping("/{itemId}")
-    public ResponseEntity<ItemDtoOut> updateItem(@RequestHeader(requestHeader) Long userId,
-                                                 @PathVariable Long itemId,
-                                                 @RequestBody ItemDtoIn itemDtoIn) {
+    public Mono<ResponseEntity<Flux<DataBuffer>>> updateItem(
+            @RequestHeader(requestHeader) Long userId,
+            @PathVariable Long itemId,
+            @RequestBody ItemDtoIn itemDtoIn) {
         log.info("updateItem request: userId = {}, itemId = {}, item = {}", userId, itemId,
                 itemDtoIn);
-        return ResponseEntity.ok(itemClient.update(userId, itemId, itemDtoIn)
-                .getBody());
+        return itemClient.update(userId, itemId, itemDtoIn);
     }
 
     @GetMapping("/{itemId}")
-    public ResponseEntity<ItemDtoOut> getItemById(@PathVariable Long itemId,
-                                                  @RequestHeader(requestHeader) Long userId) {
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getItemById(
+            @PathVariable Long itemId,
+            @RequestHeader(requestHeader) Long userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("getItemById request: itemId = {}", itemId);
-        return ResponseEntity.ok(itemClient.getById(itemId, userId)
-                .getBody());
+        return itemClient.getById(itemId, userId, ifNoneMatch);
     }
 
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<CommentDtoOut> addComment(@PathVariable Long itemId,
-                                                    @RequestHeader(requestHeader) Long userId,
-                                                    @RequestBody @Valid CommentDtoIn commentDtoIn) {
+    public Mono<ResponseEntity<Flux<DataBuffer>>> addComment(
+            @PathVariable Long itemId,
+            @RequestHeader(requestHeader) Long userId,
+            @RequestBody @Valid CommentDtoIn commentDtoIn) {
         log.info("addComment request: itemId = {}, userId = {}, commentDtoIn = {}", itemId, userId,
                 commentDtoIn);
-        return ResponseEntity.ok(itemClient.addComment(itemId, userId, commentDtoIn)
-                .getBody());
+        return itemClient.addComment(itemId, userId, commentDtoIn);
     }
 
     @GetMapping
-    public ResponseEntity<List<ItemDtoOut>> getAllOwnerItemsByOwnerId(
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getAllOwnerItemsByOwnerId(
             @RequestHeader(requestHeader) Long ownerId,
             @RequestParam(name = "from", defaultValue = "0") @PositiveOrZero Integer from,
             @RequestParam(name = "size", defaultValue = "10") @PositiveOrZero Integer size) {
         log.info("getAllOwnerItemsByOwnerId request: ownerId = {}", ownerId);
-        return ResponseEntity.ok(itemClient.getAllOwnerItemsByOwnerId(ownerId, from, size)
-                .getBody());
+        return itemClient.getAllOwnerItemsByOwnerId(ownerId, from, size);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<ItemDtoOut>> searchItem(@RequestParam("text") String text,
-                                                       @RequestParam(name = "from",
-                                                               defaultValue = "0")
-                                                       @PositiveOrZero Integer from,
-                                                       @RequestParam(name = "size",
-                                                               defaultValue = "10")
-                                                       @PositiveOrZero Integer size) {
+    public Mono<ResponseEntity<Flux<DataBuffer>>> searchItem(@RequestParam("text") String text,
+                                                             @RequestParam(name = "from",
+                                                                     defaultValue = "0")
+                                                             @PositiveOrZero Integer from,
+                                                             @RequestParam(name = "size",
+                                                                     defaultValue = "10")
+                                                             @PositiveOrZero Integer size) {
         log.info("searchItem request: text = {}", text);
-        return ResponseEntity.ok(itemClient.search(text, from, size)
-                .getBody());
+        return itemClient.search(text, from, size);
     }
 }
 
@@ -1,19 +0,0 @@
-package ru.practicum.shareit.item.dto;
-
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-import java.time.LocalDateTime;
-
-@Data
-@AllArgsConstructor
-@NoArgsConstructor
-public class CommentDtoOut {
-    private Long id;
-    private String text;
-    private Long itemId;
-    private Long authorId;
-    private String authorName;
-    private LocalDateTime created;
-}
@@ -1,13 +1,20 @@
 package ru.practicum.shareit.request.client;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.RequestCoalescer;
+import ru.practicum.shareit.client.cache.CachedRoute;
+import ru.practicum.shareit.client.cache.ResponseCache;
 import ru.practicum.shareit.request.dto.ItemRequestDtoIn;
-import ru.practicum.shareit.request.dto.ItemRequestDtoOut;
 
-import java.util.List;
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -15,28 +22,50 @@ public class ItemRequestClient extends BaseClient {
 
     private static final String API_PREFIX = "/requests";
 
-    public ItemRequestClient(@Value("${shareit-server.url}") String baseUrl) {
-        super(baseUrl + API_PREFIX);
+    private final ResponseCache responseCache;
+
+    @Autowired
+    public ItemRequestClient(WebClient.Builder webClientBuilder,
+                             @Value("${shareit-server.url}") String baseUrl,
+                             RequestCoalescer requestCoalescer,
+                             ResponseCache responseCache) {
+        super(webClientBuilder, baseUrl + API_PREFIX, requestCoalescer);
+        this.responseCache = responseCache;
+    }
+
+    public Mono<ResponseEntity<Flux<DataBuffer>>> create(ItemRequestDtoIn itemRequestDtoIn,
+                                                         Long userId) {
+        return responseCache.invalidateOnSuccess(post("", itemRequestDtoIn, userId),
+                () -> responseCache.invalidate(CachedRoute.REQUESTS));
     }
 
-    public ResponseEntity<ItemRequestDtoOut> create(ItemRequestDtoIn itemRequestDtoIn,
-                                                    Long userId) {
-        return post("", itemRequestDtoIn, userId, ItemRequestDtoOut.class);
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getById(Long requestId,
+                                                          Long userId) {
+        return cachedGet("/" + requestId.toString(), userId, Map.of());
     }
 
-    public ResponseEntity<ItemRequestDtoOut> getById(Long requestId,
-                                                     Long userId) {
-        return get("/" + requestId.toString(), userId, Map.of(), ItemRequestDtoOut.class);
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getAllByUserId(Long userId) {
+        return cachedGet("", userId, Map.of());
     }
 
-    public ResponseEntity<List<ItemRequestDtoOut>> getAllByUserId(Long userId) {
-        return getAll("", userId, Map.of(), ItemRequestDtoOut[].class);
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getAllFromOthers(Long userId,
+                                                                   Integer from,
+                                                                   Integer size,
+                                                                   String cursor) {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("from", from.toString());
+        parameters.put("size", size.toString());
+        /*Курсор передаем, только если клиент его прислал, иначе сервер листает по from*/
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+        }
+        return cachedGet("/all", userId, parameters);
     }
 
-    public ResponseEntity<List<ItemRequestDtoOut>> getAllFromOthers(Long userId,
-                                                                    Integer from,
-                                                                    Integer size) {
-        return getAll("/all", userId, Map.of("from", from.toString(), "size", size.toString()),
-                ItemRequestDtoOut[].class);
+    private Mono<ResponseEntity<Flux<DataBuffer>>> cachedGet(String path,
+                                                             Long userId,
+                                                             Map<String, String> parameters) {
+        return responseCache.get(CachedRoute.REQUESTS, path, parameters, userId, null,
+                validator -> get(path, userId, parameters));
     }
 }
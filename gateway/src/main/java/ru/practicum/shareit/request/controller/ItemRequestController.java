@@ -2,15 +2,16 @@ package ru.practicum.shareit.request.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.request.client.ItemRequestClient;
 import ru.practicum.shareit.request.dto.ItemRequestDtoIn;
-import ru.practicum.shareit.request.dto.ItemRequestDtoOut;
 
 import javax.validation.Valid;
 import javax.validation.constraints.PositiveOrZero;
-import java.util.List;
 
 @RestController
 @Slf4j
@@ -26,15 +27,14 @@ public class ItemRequestController {
      *
      * @param userId           идентификатор пользователя создающего заявку
      * @param itemRequestDtoIn описание заявки
-     * @return ItemRequestDtoOut заявка
+     * @return ответ сервера с заявкой
      */
     @PostMapping
-    public ResponseEntity<ItemRequestDtoOut> create(
+    public Mono<ResponseEntity<Flux<DataBuffer>>> create(
             @RequestHeader(name = requestHeader) Long userId,
             @RequestBody @Valid ItemRequestDtoIn itemRequestDtoIn) {
         log.info("Creating request for user {}, request {}", userId, itemRequestDtoIn);
-        return ResponseEntity.ok(itemRequestClient.create(itemRequestDtoIn, userId)
-                .getBody());
+        return itemRequestClient.create(itemRequestDtoIn, userId);
     }
 
     /**
@@ -42,14 +42,13 @@ public class ItemRequestController {
      *
      * @param requestId идентификатор заявки
      * @param userId    идентификатор пользователя
-     * @return ItemRequestDtoOut заявка
+     * @return ответ сервера с заявкой
      */
     @GetMapping("/{requestId}")
-    public ResponseEntity<ItemRequestDtoOut> getById(
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getById(
             @PathVariable(name = "requestId") Long requestId,
             @RequestHeader(name = requestHeader) Long userId) {
-        return ResponseEntity.ok(itemRequestClient.getById(requestId, userId)
-                .getBody());
+        return itemRequestClient.getById(requestId, userId);
     }
 
     /**
@@ -59,26 +58,28 @@ public class ItemRequestController {
      * @return список заявок
      */
     @GetMapping
-    public ResponseEntity<List<ItemRequestDtoOut>> getAllByUserId(
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getAllByUserId(
             @RequestHeader(name = requestHeader) Long userId) {
-        return ResponseEntity.ok(itemRequestClient.getAllByUserId(userId)
-                .getBody());
+        return itemRequestClient.getAllByUserId(userId);
     }
 
     /**
      * Получение всех заявок от других пользователей.
      *
+     * Если передан cursor, страница строится по курсору, а from игнорируется.
+     *
      * @param userId идентификатор пользователя
      * @param from   с какой позиции начинать
      * @param size   сколько элементов возвращать
+     * @param cursor курсор из заголовка X-Next-Cursor предыдущей страницы
      * @return список заявок
      */
     @GetMapping("/all")
-    public ResponseEntity<List<ItemRequestDtoOut>> getAllRequests(
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getAllRequests(
             @RequestParam(name = "from", defaultValue = "0") @PositiveOrZero Integer from,
             @RequestParam(name = "size", defaultValue = "10") @PositiveOrZero Integer size,
-            @RequestHeader(name = requestHeader) Long userId) {
-        return ResponseEntity.ok(itemRequestClient.getAllFromOthers(userId, from, size)
-                .getBody());
+            @RequestHeader(name = requestHeader) Long userId,
+            @RequestParam(name = "cursor", required = false) String cursor) {
+        return itemRequestClient.getAllFromOthers(userId, from, size, cursor);
     }
 }
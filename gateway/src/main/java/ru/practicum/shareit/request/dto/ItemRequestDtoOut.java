@@ -1,20 +0,0 @@
-package ru.practicum.shareit.request.dto;
-
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-import ru.practicum.shareit.item.dto.ItemDtoOut;
-
-import java.time.LocalDateTime;
-import java.util.List;
-
-@Data
-@AllArgsConstructor
-@NoArgsConstructor
-public class ItemRequestDtoOut {
-    private Long id;
-    private String description;
-    private Long requestor;
-    private LocalDateTime created;
-    private List<ItemDtoOut> items;
-}
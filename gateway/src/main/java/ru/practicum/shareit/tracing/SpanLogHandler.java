@@ -0,0 +1,21 @@
+package ru.practicum.shareit.tracing;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Выводит завершенные спаны шлюза в лог строками Zipkin JSON v2, вместо отправки в коллектор.
+ */
+@Slf4j
+public class SpanLogHandler extends SpanHandler {
+
+    @Override
+    public boolean end(TraceContext context,
+                       MutableSpan span,
+                       Cause cause) {
+        log.info("{}", span);
+        return true;
+    }
+}
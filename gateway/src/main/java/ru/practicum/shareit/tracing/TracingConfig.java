@@ -0,0 +1,69 @@
+package ru.practicum.shareit.tracing;
+
+import brave.SpanCustomizer;
+import brave.http.HttpRequest;
+import brave.http.HttpRequestParser;
+import brave.propagation.TraceContext;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.sleuth.instrument.web.HttpServerRequestParser;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+
+/**
+ * Настройки Sleuth. Трасса начинается в шлюзе: спан входящего запроса, внутри него спан
+ * WebClient, контекст которого BaseClient через Sleuth передает серверу в заголовках b3.
+ */
+@Configuration
+public class TracingConfig {
+
+    private static final String USER_ID_TAG = "shareit.user.id";
+
+    /*Те же атрибуты, что у спанов сервера: трассы можно искать по ним целиком*/
+    private static final Map<String, String> PARAMETER_TAGS = Map.of(
+            "state", "shareit.state",
+            "from", "shareit.page.from",
+            "size", "shareit.page.size",
+            "cursor", "shareit.page.cursor");
+
+    /**
+     * К стандартным атрибутам входящего запроса добавляет пользователя, state и параметры страницы.
+     */
+    @Bean(name = HttpServerRequestParser.NAME)
+    public HttpRequestParser sharerRequestParser() {
+        return new HttpRequestParser.Default() {
+            @Override
+            public void parse(HttpRequest request,
+                              TraceContext context,
+                              SpanCustomizer span) {
+                super.parse(request, context, span);
+                String userId = request.header("X-Sharer-User-Id");
+                if (userId != null) {
+                    span.tag(USER_ID_TAG, userId);
+                }
+                String url = request.url();
+                if (url == null) {
+                    return;
+                }
+                MultiValueMap<String, String> parameters = UriComponentsBuilder.fromUriString(url)
+                        .build()
+                        .getQueryParams();
+                PARAMETER_TAGS.forEach((parameter, tag) -> {
+                    String value = parameters.getFirst(parameter);
+                    if (value != null) {
+                        span.tag(tag, value);
+                    }
+                });
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "shareit.tracing.log-spans", havingValue = "true")
+    public SpanLogHandler spanLogHandler() {
+        return new SpanLogHandler();
+    }
+}
@@ -2,43 +2,80 @@ package ru.practicum.shareit.user.client;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.RequestCoalescer;
+import ru.practicum.shareit.client.cache.CachedRoute;
+import ru.practicum.shareit.client.cache.ResponseCache;
 import ru.practicum.shareit.user.dto.UserDtoIn;
-import ru.practicum.shareit.user.dto.UserDtoOut;
 
-import java.util.List;
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
 public class UserClient extends BaseClient {
 
     private static final String API_PREFIX = "/users";
+    private static final String DEFAULT_PAGE_SIZE = "10";
+
+    private final ResponseCache responseCache;
 
     @Autowired
-    public UserClient(@Value("${shareit-server.url}") String baseUrl) {
-        super(baseUrl + API_PREFIX);
+    public UserClient(WebClient.Builder webClientBuilder,
+                      @Value("${shareit-server.url}") String baseUrl,
+                      RequestCoalescer requestCoalescer,
+                      ResponseCache responseCache) {
+        super(webClientBuilder, baseUrl + API_PREFIX, requestCoalescer);
+        this.responseCache = responseCache;
     }
 
-    public ResponseEntity<UserDtoOut> create(UserDtoIn userDtoIn) {
-        return post("", userDtoIn, UserDtoOut.class);
+    public Mono<ResponseEntity<Flux<DataBuffer>>> create(UserDtoIn userDtoIn) {
+        return post("", userDtoIn);
     }
 
-    public ResponseEntity<UserDtoOut> update(UserDtoIn userDtoIn,
-                                             Long userId) {
-        return patch("/" + userId.toString(), userDtoIn, userId, UserDtoOut.class);
+    public Mono<ResponseEntity<Flux<DataBuffer>>> update(UserDtoIn userDtoIn,
+                                                         Long userId) {
+        String path = "/" + userId.toString();
+        /*Имя пользователя есть в отзывах к вещам*/
+        return responseCache.invalidateOnSuccess(patch(path, userDtoIn, userId), () -> {
+            responseCache.invalidate(CachedRoute.USER, path);
+            responseCache.invalidate(CachedRoute.ITEM);
+        });
     }
 
-    public void delete(Long userId) {
-        delete("/" + userId.toString(), userId).block();
+    /*Вместе с пользователем удаляются его вещи, брони, запросы и отзывы*/
+    public Mono<ResponseEntity<Flux<DataBuffer>>> delete(Long userId) {
+        return responseCache.invalidateOnSuccess(delete("/" + userId.toString(), userId), () -> {
+            for (CachedRoute route : CachedRoute.values()) {
+                responseCache.invalidate(route);
+            }
+        });
     }
 
-    public ResponseEntity<UserDtoOut> getById(Long userId) {
-        return get("/" + userId.toString(), userId, Map.of(), UserDtoOut.class);
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getById(Long userId) {
+        String path = "/" + userId.toString();
+        return responseCache.get(CachedRoute.USER, path, Map.of(), userId, null,
+                validator -> get(path, userId, Map.of()));
     }
 
-    public ResponseEntity<List<UserDtoOut>> getAll() {
-        return getAll("", Map.of(), UserDtoOut[].class);
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getAll(Integer from,
+                                                         Integer size,
+                                                         Long cursor) {
+        /*Без size и cursor сервер отдает всех пользователей одним потоковым массивом*/
+        if (size == null && cursor == null) {
+            return get("", Map.of());
+        }
+        Map<String, String> parameters = new HashMap<>();
+        if (cursor != null) {
+            parameters.put("cursor", cursor.toString());
+        }
+        parameters.put("from", from.toString());
+        parameters.put("size", size == null ? DEFAULT_PAGE_SIZE : size.toString());
+        return get("", parameters);
     }
 }
@@ -2,13 +2,17 @@ package ru.practicum.shareit.user.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.user.client.UserClient;
 import ru.practicum.shareit.user.dto.UserDtoIn;
-import ru.practicum.shareit.user.dto.UserDtoOut;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
 
 @RestController
 @RequiredArgsConstructor
@@ -19,39 +23,49 @@ public class UserController {
     private final UserClient userClient;
 
     @PostMapping
-    public ResponseEntity<UserDtoOut> createUser(@Valid @RequestBody UserDtoIn userDtoIn) {
+    public Mono<ResponseEntity<Flux<DataBuffer>>> createUser(
+            @Valid @RequestBody UserDtoIn userDtoIn) {
         log.info("createUser request: user = {}", userDtoIn);
-        return ResponseEntity.ok(userClient.create(userDtoIn)
-                .getBody());
+        return userClient.create(userDtoIn);
     }
 
     @PatchMapping("/{userId}")
-    public ResponseEntity<Object> updateUser(@PathVariable("userId") Long userId,
-                                             @RequestBody UserDtoIn userDtoIn) {
+    public Mono<ResponseEntity<Flux<DataBuffer>>> updateUser(@PathVariable("userId") Long userId,
+                                                             @RequestBody UserDtoIn userDtoIn) {
         log.info("updateUser request: userId = {}, user = {}", userId, userDtoIn);
-        return ResponseEntity.ok(userClient.update(userDtoIn, userId)
-                .getBody());
+        return userClient.update(userDtoIn, userId);
     }
 
     @DeleteMapping("/{userId}")
-    public ResponseEntity<Void> deleteUser(@PathVariable("userId") Long userId) {
-        userClient.delete(userId);
+    public Mono<ResponseEntity<Flux<DataBuffer>>> deleteUser(@PathVariable("userId") Long userId) {
         log.info("deleteUser request: userId = {}", userId);
-        return ResponseEntity.ok()
-                .build();
+        return userClient.delete(userId);
     }
 
     @GetMapping("/{userId}")
-    public ResponseEntity<Object> getUserById(@PathVariable("userId") Long userId) {
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getUserById(@PathVariable("userId") Long userId) {
         log.info("getUserById request: userId = {}", userId);
-        return ResponseEntity.ok(userClient.getById(userId)
-                .getBody());
+        return userClient.getById(userId);
     }
 
+    /**
+     * Получение пользователей.
+     *
+     * Без size возвращаются все пользователи, иначе страница по возрастанию id.
+     * Если передан cursor, страница строится после него, а from игнорируется;
+     * cursor без size дает страницу из 10 элементов.
+     *
+     * @param from   с какой позиции начинать
+     * @param size   сколько элементов возвращать
+     * @param cursor курсор из заголовка X-Next-Cursor предыдущей страницы
+     * @return список пользователей
+     */
     @GetMapping
-    public ResponseEntity<Object> getAllUsers() {
-        log.info("getAllUsers request");
-        return ResponseEntity.ok(userClient.getAll()
-                .getBody());
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getAllUsers(
+            @RequestParam(name = "from", defaultValue = "0") @PositiveOrZero Integer from,
+            @RequestParam(name = "size", required = false) @Positive Integer size,
+            @RequestParam(name = "cursor", required = false) Long cursor) {
+        log.info("getAllUsers request: from = {}, size = {}, cursor = {}", from, size, cursor);
+        return userClient.getAll(from, size, cursor);
     }
 }
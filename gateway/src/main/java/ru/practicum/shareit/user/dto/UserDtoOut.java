@@ -1,14 +0,0 @@
-package ru.practicum.shareit.user.dto;
-
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-public class UserDtoOut {
-    private Long id;
-    private String name;
-    private String email;
-}
@@ -0,0 +1,114 @@
+package ru.practicum.shareit.client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import ru.practicum.shareit.client.cache.CachedRoute;
+import ru.practicum.shareit.client.cache.ResponseCache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Ответы сервера проходят через шлюз без изменений: статус, тело и заголовки,
+ * в том числе ошибки и ответы без тела.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+class PassthroughTest {
+
+    private static final StubServer server = StubServer.shared();
+    private final String requestHeader = "X-Sharer-User-Id";
+
+    @Autowired
+    private WebTestClient webTestClient;
+    @Autowired
+    private ResponseCache responseCache;
+
+    @DynamicPropertySource
+    static void serverUrl(DynamicPropertyRegistry registry) {
+        registry.add("shareit-server.url", server::url);
+    }
+
+    @BeforeEach
+    void setUp() {
+        server.reset();
+        for (CachedRoute route : CachedRoute.values()) {
+            responseCache.invalidate(route);
+        }
+    }
+
+    @Test
+    void createItem_WhenServerReturnsError_RelayStatusAndBody() {
+        String error = "{\"message\":\"User with id 1 not found\",\"code\":404}";
+        server.stub("POST", "/items", 404, error);
+
+        webTestClient.post()
+                .uri("/items")
+                .header(requestHeader, "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\":\"Дрель\",\"description\":\"Аккумуляторная дрель\","
+                        + "\"available\":true}")
+                .exchange()
+                .expectStatus()
+                .isNotFound()
+                .expectHeader()
+                .contentType(MediaType.APPLICATION_JSON)
+                .expectBody(String.class)
+                .isEqualTo(error);
+    }
+
+    @Test
+    void getBookingById_WhenServerReturnsError_RelayStatusBodyAndHeaders() {
+        String error = "{\"message\":\"Access denied\",\"code\":403}";
+        server.stub("GET", "/bookings/1", 403, error, "X-Request-Trace", "abc");
+
+        webTestClient.get()
+                .uri("/bookings/1")
+                .header(requestHeader, "2")
+                .exchange()
+                .expectStatus()
+                .isForbidden()
+                .expectHeader()
+                .valueEquals("X-Request-Trace", "abc")
+                .expectBody(String.class)
+                .isEqualTo(error);
+        assertEquals("2", server.lastHeaders("GET", "/bookings/1")
+                .get(requestHeader));
+    }
+
+    @Test
+    void deleteUser_WhenServerReturnsNoBody_RelayEmptyResponse() {
+        server.stub("DELETE", "/users/1", 200, null);
+
+        webTestClient.delete()
+                .uri("/users/1")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .doesNotExist(HttpHeaders.CONTENT_TYPE)
+                .expectBody()
+                .isEmpty();
+        assertEquals(1, server.calls("DELETE", "/users/1"));
+    }
+
+    @Test
+    void getOwnerItems_WhenUserHeaderMissing_BadRequestWithoutServerCall() {
+        webTestClient.get()
+                .uri("/items")
+                .exchange()
+                .expectStatus()
+                .isBadRequest()
+                .expectBody()
+                .jsonPath("$.code")
+                .isEqualTo(400);
+        assertEquals(0, server.calls("GET", "/items"));
+    }
+}
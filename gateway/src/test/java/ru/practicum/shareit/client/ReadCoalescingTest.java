@@ -0,0 +1,153 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Sinks;
+import ru.practicum.shareit.client.cache.CachedRoute;
+import ru.practicum.shareit.client.cache.ResponseCache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Объединение одинаковых чтений через шлюз целиком: контроллер, клиент, кэш и заглушка сервера.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ReadCoalescingTest {
+
+    private static final StubServer server = StubServer.shared();
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private final String requestHeader = "X-Sharer-User-Id";
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private ResponseCache responseCache;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private WebClient client;
+
+    @DynamicPropertySource
+    static void serverUrl(DynamicPropertyRegistry registry) {
+        registry.add("shareit-server.url", server::url);
+    }
+
+    @BeforeEach
+    void setUp() {
+        server.reset();
+        for (CachedRoute route : CachedRoute.values()) {
+            responseCache.invalidate(route);
+        }
+        client = WebClient.create("http://localhost:" + port);
+    }
+
+    @Test
+    void search_WhenConcurrentIdenticalRequests_OneServerCall() {
+        Sinks.Empty<Void> release = Sinks.empty();
+        server.stub("GET", "/items/search", 200, "[{\"id\":1}]", release.asMono());
+        double coalescedBefore = coalesced();
+
+        List<CompletableFuture<String>> responses = IntStream.range(0, 20)
+                .mapToObj(i -> get("/items/search?text=дрель&from=0&size=10", "1"))
+                .collect(Collectors.toList());
+        /*Ответ сервера придерживаем, пока все запросы не присоединятся к первому*/
+        awaitTrue(() -> coalesced() - coalescedBefore == 19);
+        release.tryEmitEmpty();
+
+        for (CompletableFuture<String> response : responses) {
+            assertEquals("[{\"id\":1}]", response.join());
+        }
+        assertEquals(1, server.calls("GET", "/items/search"));
+    }
+
+    @Test
+    void getOwnerItems_WhenConcurrentIdenticalRequests_EachStreamedFromServer() {
+        Sinks.Empty<Void> release = Sinks.empty();
+        server.stub("GET", "/items", 200, "[{\"id\":1}]", release.asMono());
+
+        List<CompletableFuture<String>> responses = IntStream.range(0, 3)
+                .mapToObj(i -> get("/items?from=0&size=10", "1"))
+                .collect(Collectors.toList());
+        awaitTrue(() -> server.calls("GET", "/items") == 3);
+        release.tryEmitEmpty();
+
+        for (CompletableFuture<String> response : responses) {
+            assertEquals("[{\"id\":1}]", response.join());
+        }
+    }
+
+    @Test
+    void getById_WhenSlowReadRacesPatch_StaleResponseNotCached() {
+        Sinks.Empty<Void> release = Sinks.empty();
+        server.stub("GET", "/items/1", 200, "{\"name\":\"Дрель\"}", release.asMono());
+        CompletableFuture<String> slowRead = getItem();
+        awaitTrue(() -> server.calls("GET", "/items/1") == 1);
+
+        server.stub("PATCH", "/items/1", 200, "{\"name\":\"Пила\"}");
+        client.patch()
+                .uri("/items/1")
+                .header(requestHeader, "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\":\"Пила\"}")
+                .retrieve()
+                .toBodilessEntity()
+                .block(TIMEOUT);
+        server.stub("GET", "/items/1", 200, "{\"name\":\"Пила\"}");
+        release.tryEmitEmpty();
+
+        /*Медленное чтение началось до изменения и может вернуть старое, но в кэш оно не попадает*/
+        assertEquals("{\"name\":\"Дрель\"}", slowRead.join());
+        assertEquals("{\"name\":\"Пила\"}", getItem().join());
+        assertEquals(2, server.calls("GET", "/items/1"));
+    }
+
+    private CompletableFuture<String> getItem() {
+        return get("/items/1", "1");
+    }
+
+    private CompletableFuture<String> get(String uri,
+                                          String userId) {
+        return client.get()
+                .uri(uri)
+                .header(requestHeader, userId)
+                .retrieve()
+                .bodyToMono(String.class)
+                .toFuture();
+    }
+
+    private double coalesced() {
+        return meterRegistry.get("gateway.requests.coalesced")
+                .counter()
+                .count();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not met in " + TIMEOUT);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread()
+                        .interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
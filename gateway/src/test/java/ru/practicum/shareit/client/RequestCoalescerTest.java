@@ -0,0 +1,144 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RequestCoalescerTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private MeterRegistry meterRegistry;
+    private RequestCoalescer coalescer;
+    private AtomicInteger upstreamCalls;
+    private Sinks.Empty<Void> release;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new RequestCoalescer(new ServerHttpClientProperties(), meterRegistry);
+        upstreamCalls = new AtomicInteger();
+        release = Sinks.empty();
+    }
+
+    @Test
+    void coalesce_WhenConcurrentIdenticalReads_OneUpstreamCall() {
+        List<CompletableFuture<ResponseEntity<Flux<DataBuffer>>>> reads = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            reads.add(read(1L).toFuture());
+        }
+        release.tryEmitEmpty();
+
+        for (CompletableFuture<ResponseEntity<Flux<DataBuffer>>> read : reads) {
+            ResponseEntity<Flux<DataBuffer>> response = read.join();
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals("{\"id\":1}", body(response));
+        }
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(19, meterRegistry.get("gateway.requests.coalesced")
+                .counter()
+                .count());
+    }
+
+    @Test
+    void coalesce_WhenDifferentUsers_SeparateUpstreamCalls() {
+        CompletableFuture<ResponseEntity<Flux<DataBuffer>>> first = read(1L).toFuture();
+        CompletableFuture<ResponseEntity<Flux<DataBuffer>>> second = read(2L).toFuture();
+        release.tryEmitEmpty();
+
+        first.join();
+        second.join();
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void coalesce_WhenReadStartsAfterWrite_DoNotJoinEarlierRead() {
+        CompletableFuture<ResponseEntity<Flux<DataBuffer>>> beforeWrite = read(1L).toFuture();
+        coalescer.write(Mono.just(ResponseEntity.ok()
+                        .build()))
+                .block(TIMEOUT);
+        CompletableFuture<ResponseEntity<Flux<DataBuffer>>> afterWrite = read(1L).toFuture();
+        release.tryEmitEmpty();
+
+        beforeWrite.join();
+        afterWrite.join();
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void coalesce_WhenUpstreamFails_ShareErrorAndRetryNextRead() {
+        Supplier<Mono<ResponseEntity<Flux<DataBuffer>>>> failing = () -> Mono.defer(() -> {
+            upstreamCalls.incrementAndGet();
+            return release.asMono()
+                    .then(Mono.error(new IllegalStateException("connection refused")));
+        });
+        CompletableFuture<ResponseEntity<Flux<DataBuffer>>> first = coalescer.coalesce(
+                "ItemClient", "/1", Map.of(), 1L, null, failing).toFuture();
+        CompletableFuture<ResponseEntity<Flux<DataBuffer>>> second = coalescer.coalesce(
+                "ItemClient", "/1", Map.of(), 1L, null, failing).toFuture();
+        release.tryEmitEmpty();
+
+        assertThrows(Exception.class, first::join);
+        assertThrows(Exception.class, second::join);
+        assertEquals(1, upstreamCalls.get());
+
+        /*Завершившийся запрос больше не ждут, следующее чтение идет на сервер*/
+        assertThrows(IllegalStateException.class, () -> coalescer.coalesce(
+                "ItemClient", "/1", Map.of(), 1L, null, failing).block(TIMEOUT));
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void coalesce_WhenDisabled_EveryReadGoesUpstream() {
+        ServerHttpClientProperties properties = new ServerHttpClientProperties();
+        properties.setCoalesceReads(false);
+        coalescer = new RequestCoalescer(properties, meterRegistry);
+        CompletableFuture<ResponseEntity<Flux<DataBuffer>>> first = read(1L).toFuture();
+        CompletableFuture<ResponseEntity<Flux<DataBuffer>>> second = read(1L).toFuture();
+        release.tryEmitEmpty();
+
+        first.join();
+        second.join();
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    private Mono<ResponseEntity<Flux<DataBuffer>>> read(Long userId) {
+        return coalescer.coalesce("ItemClient", "/1", Map.of(), userId, null,
+                () -> Mono.defer(() -> {
+                    upstreamCalls.incrementAndGet();
+                    return release.asMono()
+                            .then(Mono.fromSupplier(() -> ResponseEntity.ok()
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(
+                                            "{\"id\":1}".getBytes(StandardCharsets.UTF_8))))));
+                }));
+    }
+
+    private static String body(ResponseEntity<Flux<DataBuffer>> response) {
+        return DataBufferUtils.join(response.getBody())
+                .map(buffer -> buffer.toString(StandardCharsets.UTF_8))
+                .block(TIMEOUT);
+    }
+}
@@ -0,0 +1,147 @@
+package ru.practicum.shareit.client;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Заглушка сервера для тестов шлюза: отвечает заданными ответами и считает запросы.
+ * Ответы задаются по методу и пути без строки запроса. Запросы без заданного ответа
+ * получают 404 без тела.
+ */
+public class StubServer implements AutoCloseable {
+
+    private static StubServer shared;
+
+    private final Map<String, Stub> stubs = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    private final Map<String, HttpHeaders> lastHeaders = new ConcurrentHashMap<>();
+    private final DisposableServer server = HttpServer.create()
+            .host("localhost")
+            .port(0)
+            .handle(this::handle)
+            .bindNow();
+
+    /**
+     * Общая заглушка для тестов с контекстом Spring: один адрес сервера - один контекст на все тесты
+     */
+    public static synchronized StubServer shared() {
+        if (shared == null) {
+            shared = new StubServer();
+        }
+        return shared;
+    }
+
+    public String url() {
+        return "http://localhost:" + server.port();
+    }
+
+    /**
+     * Задать ответ
+     *
+     * @param method  метод запроса
+     * @param uri     путь без строки запроса
+     * @param status  статус ответа
+     * @param json    тело ответа, null - ответ без тела
+     * @param headers дополнительные заголовки: имя, значение, имя, значение...
+     */
+    public void stub(String method,
+                     String uri,
+                     int status,
+                     String json,
+                     String... headers) {
+        stub(method, uri, status, json, Mono.empty(), headers);
+    }
+
+    /**
+     * Задать ответ, который уйдет только после завершения release
+     */
+    public void stub(String method,
+                     String uri,
+                     int status,
+                     String json,
+                     Mono<?> release,
+                     String... headers) {
+        stubs.put(method + " " + uri, new Stub(status, json, release, headers));
+    }
+
+    public int calls(String method,
+                     String uri) {
+        AtomicInteger counter = calls.get(method + " " + uri);
+        return counter == null ? 0 : counter.get();
+    }
+
+    public HttpHeaders lastHeaders(String method,
+                                   String uri) {
+        return lastHeaders.get(method + " " + uri);
+    }
+
+    public void reset() {
+        stubs.clear();
+        calls.clear();
+        lastHeaders.clear();
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+
+    private Mono<Void> handle(HttpServerRequest request,
+                              HttpServerResponse response) {
+        String key = request.method()
+                .name() + " " + request.uri()
+                .split("\\?")[0];
+        calls.computeIfAbsent(key, k -> new AtomicInteger())
+                .incrementAndGet();
+        lastHeaders.put(key, request.requestHeaders()
+                .copy());
+        Stub stub = stubs.get(key);
+        if (stub == null) {
+            return response.status(HttpResponseStatus.NOT_FOUND)
+                    .send();
+        }
+        return request.receive()
+                .then(stub.release.then())
+                .then(Mono.defer(() -> {
+                    response.status(stub.status);
+                    for (int i = 0; i + 1 < stub.headers.length; i += 2) {
+                        response.header(stub.headers[i], stub.headers[i + 1]);
+                    }
+                    if (stub.json == null) {
+                        return response.send()
+                                .then();
+                    }
+                    response.header(HttpHeaderNames.CONTENT_TYPE, "application/json");
+                    return response.sendString(Mono.just(stub.json), StandardCharsets.UTF_8)
+                            .then();
+                }));
+    }
+
+    private static class Stub {
+        private final int status;
+        private final String json;
+        private final Mono<?> release;
+        private final String[] headers;
+
+        Stub(int status,
+             String json,
+             Mono<?> release,
+             String[] headers) {
+            this.status = status;
+            this.json = json;
+            this.release = release;
+            this.headers = headers;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package ru.practicum.shareit.client.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseCacheTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private ResponseCacheProperties properties;
+    private MeterRegistry meterRegistry;
+    /*If-None-Match, с которыми кэш ходил на сервер, null - безусловный запрос*/
+    private List<String> upstreamValidators;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ResponseCacheProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        upstreamValidators = new ArrayList<>();
+    }
+
+    @Test
+    void get_WhenFresh_ServeWithoutServerUntilTtlExpires() throws InterruptedException {
+        properties.getTtl()
+                .put(CachedRoute.ITEM, Duration.ofMillis(200));
+        ResponseCache cache = new ResponseCache(properties, meterRegistry);
+
+        assertEquals("{\"id\":1}", body(get(cache, 1L, null, ok("{\"id\":1}", null))));
+        assertEquals("{\"id\":1}", body(get(cache, 1L, null, ok("{\"id\":2}", null))));
+        assertEquals(1, upstreamValidators.size());
+
+        Thread.sleep(300);
+        assertEquals("{\"id\":2}", body(get(cache, 1L, null, ok("{\"id\":2}", null))));
+        assertEquals(2, upstreamValidators.size());
+    }
+
+    @Test
+    void get_WhenDifferentUsers_CacheSeparately() {
+        ResponseCache cache = new ResponseCache(properties, meterRegistry);
+
+        assertEquals("{\"owner\":true}", body(get(cache, 1L, null, ok("{\"owner\":true}", null))));
+        assertEquals("{\"owner\":false}",
+                body(get(cache, 2L, null, ok("{\"owner\":false}", null))));
+        assertEquals("{\"owner\":true}", body(get(cache, 1L, null, ok("{}", null))));
+        assertEquals(2, upstreamValidators.size());
+    }
+
+    @Test
+    void get_WhenStaleWithETag_RevalidateAndServeCachedBodyOnNotModified() {
+        properties.getTtl()
+                .put(CachedRoute.ITEM, Duration.ZERO);
+        ResponseCache cache = new ResponseCache(properties, meterRegistry);
+        get(cache, 1L, null, ok("{\"id\":1}", "\"1-0\""));
+
+        ResponseEntity<Flux<DataBuffer>> response = get(cache, 1L, null,
+                validator -> {
+                    upstreamValidators.add(validator);
+                    return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                            .eTag(validator)
+                            .build());
+                });
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("{\"id\":1}", body(response));
+        assertEquals("\"1-0\"", upstreamValidators.get(1));
+        assertEquals(1, meterRegistry.get("gateway.cache.revalidations")
+                .tags("cache", "gateway.item", "result", "not_modified")
+                .counter()
+                .count());
+    }
+
+    @Test
+    void get_WhenClientETagMatches_ReturnNotModifiedFromCache() {
+        ResponseCache cache = new ResponseCache(properties, meterRegistry);
+        get(cache, 1L, null, ok("{\"id\":1}", "\"1-0\""));
+
+        ResponseEntity<Flux<DataBuffer>> response = get(cache, 1L, "W/\"0-0\", \"1-0\"",
+                ok("{}", null));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(1, upstreamValidators.size());
+    }
+
+    @Test
+    void invalidate_WhenPathInvalidated_NextReadGoesToServer() {
+        ResponseCache cache = new ResponseCache(properties, meterRegistry);
+        get(cache, 1L, null, ok("{\"id\":1}", null));
+
+        cache.invalidate(CachedRoute.ITEM, "/1");
+
+        assertEquals("{\"id\":2}", body(get(cache, 1L, null, ok("{\"id\":2}", null))));
+        assertEquals(2, upstreamValidators.size());
+    }
+
+    @Test
+    void get_WhenBodiesExceedMaxSize_EvictByWeight() throws InterruptedException {
+        properties.setMaxSize(DataSize.ofKilobytes(2));
+        ResponseCache cache = new ResponseCache(properties, meterRegistry);
+        String kilobyte = "\"" + "x".repeat(1022) + "\"";
+
+        for (long itemId = 1; itemId <= 5; itemId++) {
+            cache.get(CachedRoute.ITEM, "/" + itemId, Map.of(), 1L, null,
+                            ok(kilobyte, null))
+                    .block(TIMEOUT);
+        }
+
+        /*Вытеснение у Caffeine асинхронное: в 2 КБ помещается одна запись в 1 КБ с надбавкой*/
+        Gauge size = meterRegistry.get("cache.size")
+                .tag("cache", "gateway.item")
+                .gauge();
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (size.value() > 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, size.value());
+        assertTrue(meterRegistry.get("cache.evictions")
+                .tag("cache", "gateway.item")
+                .functionCounter()
+                .count() >= 4);
+    }
+
+    private ResponseEntity<Flux<DataBuffer>> get(
+            ResponseCache cache,
+            Long userId,
+            String ifNoneMatch,
+            Function<String, Mono<ResponseEntity<Flux<DataBuffer>>>> upstream) {
+        return cache.get(CachedRoute.ITEM, "/1", Map.of(), userId, ifNoneMatch, upstream)
+                .block(TIMEOUT);
+    }
+
+    private Function<String, Mono<ResponseEntity<Flux<DataBuffer>>>> ok(String json,
+                                                                          String eTag) {
+        return validator -> {
+            upstreamValidators.add(validator);
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            if (eTag != null) {
+                headers.setETag(eTag);
+            }
+            return Mono.just(ResponseEntity.ok()
+                    .headers(headers)
+                    .body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(
+                            json.getBytes(StandardCharsets.UTF_8)))));
+        };
+    }
+
+    private static String body(ResponseEntity<Flux<DataBuffer>> response) {
+        return DataBufferUtils.join(response.getBody())
+                .map(buffer -> buffer.toString(StandardCharsets.UTF_8))
+                .block(TIMEOUT);
+    }
+}
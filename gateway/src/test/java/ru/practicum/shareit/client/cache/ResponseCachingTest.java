@@ -0,0 +1,144 @@
+package ru.practicum.shareit.client.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import ru.practicum.shareit.client.StubServer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Кэш ответов в шлюзе целиком: чтения через контроллеры и сброс после изменений через шлюз.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+class ResponseCachingTest {
+
+    private static final StubServer server = StubServer.shared();
+    private final String requestHeader = "X-Sharer-User-Id";
+
+    @Autowired
+    private WebTestClient webTestClient;
+    @Autowired
+    private ResponseCache responseCache;
+
+    @DynamicPropertySource
+    static void serverUrl(DynamicPropertyRegistry registry) {
+        registry.add("shareit-server.url", server::url);
+    }
+
+    @BeforeEach
+    void setUp() {
+        server.reset();
+        for (CachedRoute route : CachedRoute.values()) {
+            responseCache.invalidate(route);
+        }
+    }
+
+    @Test
+    void getUser_WhenPatchedThroughGateway_NextReadGoesToServer() {
+        server.stub("GET", "/users/1", 200, "{\"id\":1,\"name\":\"Alex\"}");
+        getUser().isEqualTo("{\"id\":1,\"name\":\"Alex\"}");
+        getUser().isEqualTo("{\"id\":1,\"name\":\"Alex\"}");
+        assertEquals(1, server.calls("GET", "/users/1"));
+
+        server.stub("PATCH", "/users/1", 200, "{\"id\":1,\"name\":\"Oleg\"}");
+        server.stub("GET", "/users/1", 200, "{\"id\":1,\"name\":\"Oleg\"}");
+        webTestClient.patch()
+                .uri("/users/1")
+                .header(requestHeader, "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\":\"Oleg\"}")
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        getUser().isEqualTo("{\"id\":1,\"name\":\"Oleg\"}");
+        assertEquals(2, server.calls("GET", "/users/1"));
+    }
+
+    @Test
+    void getUser_WhenPatchFailed_KeepCachedResponse() {
+        server.stub("GET", "/users/1", 200, "{\"id\":1,\"name\":\"Alex\"}");
+        getUser().isEqualTo("{\"id\":1,\"name\":\"Alex\"}");
+
+        server.stub("PATCH", "/users/1", 409, "{\"code\":409}");
+        webTestClient.patch()
+                .uri("/users/1")
+                .header(requestHeader, "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"email\":\"oleg@mail.com\"}")
+                .exchange()
+                .expectStatus()
+                .isEqualTo(409);
+
+        getUser().isEqualTo("{\"id\":1,\"name\":\"Alex\"}");
+        assertEquals(1, server.calls("GET", "/users/1"));
+    }
+
+    @Test
+    void search_WhenItemCreatedThroughGateway_NextSearchGoesToServer() {
+        server.stub("GET", "/items/search", 200, "[]");
+        search();
+        search();
+        assertEquals(1, server.calls("GET", "/items/search"));
+
+        server.stub("POST", "/items", 200, "{\"id\":1}");
+        webTestClient.post()
+                .uri("/items")
+                .header(requestHeader, "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\":\"Дрель\",\"description\":\"Ударная\",\"available\":true}")
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        search();
+        assertEquals(2, server.calls("GET", "/items/search"));
+    }
+
+    @Test
+    void getItem_WhenDifferentUsers_CacheSeparately() {
+        server.stub("GET", "/items/1", 200, "{\"id\":1}");
+        getItem(1L);
+        getItem(2L);
+        getItem(1L);
+        getItem(2L);
+
+        assertEquals(2, server.calls("GET", "/items/1"));
+    }
+
+    private WebTestClient.BodySpec<String, ?> getUser() {
+        return webTestClient.get()
+                .uri("/users/1")
+                .header(requestHeader, "1")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(String.class);
+    }
+
+    private void getItem(Long userId) {
+        webTestClient.get()
+                .uri("/items/1")
+                .header(requestHeader, userId.toString())
+                .exchange()
+                .expectStatus()
+                .isOk();
+    }
+
+    private void search() {
+        webTestClient.get()
+                .uri("/items/search?text=дрель")
+                .header(requestHeader, "1")
+                .exchange()
+                .expectStatus()
+                .isOk();
+    }
+}
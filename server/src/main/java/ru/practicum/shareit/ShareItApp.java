@@ -2,10 +2,23 @@ package ru.practicum.shareit;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.time.Clock;
 
 @SpringBootApplication
+@EnableScheduling
 public class ShareItApp {
 
+    /**
+     * Часы приложения: текущее время сервисы берут отсюда, а не из LocalDateTime.now()
+     */
+    @Bean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+
     public static void main(String[] args) {
         SpringApplication.run(ShareItApp.class, args);
     }
@@ -1,15 +1,25 @@
 package ru.practicum.shareit.booking.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.booking.dto.BookingDtoIn;
 import ru.practicum.shareit.booking.dto.BookingDtoOut;
 import ru.practicum.shareit.booking.model.State;
 import ru.practicum.shareit.booking.service.IBookingService;
+import ru.practicum.shareit.util.KeysetCursor;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping(path = "/bookings")
@@ -18,7 +28,9 @@ import java.util.List;
 public class BookingController {
 
     private final String requestHeader = "X-Sharer-User-Id";
+    private final String nextCursorHeader = "X-Next-Cursor";
     private final IBookingService bookingService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ResponseEntity<BookingDtoOut> createBooking(@RequestHeader(requestHeader) Long userId,
@@ -38,9 +50,20 @@ public class BookingController {
 
     @GetMapping("/{bookingId}")
     public ResponseEntity<BookingDtoOut> getBooking(@PathVariable Long bookingId,
-                                                    @RequestHeader(requestHeader) Long userId) {
+                                                    @RequestHeader(requestHeader) Long userId,
+                                                    WebRequest webRequest) {
         log.info("getBooking request: bookingId = {}", bookingId);
-        return ResponseEntity.ok(bookingService.getBookingById(bookingId, userId));
+        /*Пустой тег - брони нет или она чужая, ошибку вернет обычный путь*/
+        Optional<String> versionTag = bookingService.getVersionTag(bookingId, userId);
+        if (versionTag.isPresent() && webRequest.checkNotModified(versionTag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .varyBy(requestHeader)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .varyBy(requestHeader);
+        versionTag.ifPresent(response::eTag);
+        return response.body(bookingService.getBookingById(bookingId, userId));
     }
 
     @GetMapping
@@ -48,10 +71,16 @@ public class BookingController {
             @RequestHeader(requestHeader) Long userId,
             @RequestParam(name = "state", defaultValue = "ALL") String state,
             @RequestParam(name = "from", defaultValue = "0") Integer from,
-            @RequestParam(name = "size", defaultValue = "10") Integer size) {
-        log.info("getBookings request: userId = {}, state = {}", userId, state);
-        return ResponseEntity.ok(bookingService.getAllBookingsForCurrentUserId(userId, from, size,
-                State.fromString(state)));
+            @RequestParam(name = "size", defaultValue = "10") Integer size,
+            @RequestParam(name = "cursor", required = false) String cursor) {
+        log.info("getBookings request: userId = {}, state = {}, cursor = {}", userId, state,
+                cursor);
+        if (cursor == null) {
+            return ResponseEntity.ok(bookingService.getAllBookingsForCurrentUserId(userId, from, size,
+                    State.fromString(state)));
+        }
+        return withNextCursor(bookingService.getAllBookingsForCurrentUserIdAfter(userId, cursor, size,
+                State.fromString(state)), size);
     }
 
     @GetMapping("/owner")
@@ -59,10 +88,70 @@ public class BookingController {
             @RequestHeader(requestHeader) Long userId,
             @RequestParam(name = "state", defaultValue = "ALL") String state,
             @RequestParam(name = "from", defaultValue = "0") Integer from,
-            @RequestParam(name = "size", defaultValue = "10") Integer size) {
-        log.info("getBookings request: userId = {}, state = {}", userId, state);
-        return ResponseEntity.ok(bookingService.getAllItemBookingsForOwnerId(userId, from, size,
-                State.fromString(state)));
+            @RequestParam(name = "size", defaultValue = "10") Integer size,
+            @RequestParam(name = "cursor", required = false) String cursor) {
+        log.info("getBookings request: userId = {}, state = {}, cursor = {}", userId, state,
+                cursor);
+        if (cursor == null) {
+            return ResponseEntity.ok(bookingService.getAllItemBookingsForOwnerId(userId, from, size,
+                    State.fromString(state)));
+        }
+        return withNextCursor(bookingService.getAllItemBookingsForOwnerIdAfter(userId, cursor, size,
+                State.fromString(state)), size);
+    }
+
+    /**
+     * Все бронирования пользователя одним потоком NDJSON: по объекту JSON на строку.
+     * Заменяет перебор страниц, память не зависит от количества бронирований.
+     */
+    @GetMapping("/export")
+    public void exportForCurrentUser(@RequestHeader(requestHeader) Long userId,
+                                     HttpServletResponse response) throws IOException {
+        log.info("exportBookings request: userId = {}", userId);
+        OutputStream outputStream = response.getOutputStream();
+        bookingService.exportAllBookingsForCurrentUserId(userId,
+                booking -> writeLine(response, outputStream, booking));
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+    }
+
+    @GetMapping("/owner/export")
+    public void exportForOwner(@RequestHeader(requestHeader) Long userId,
+                               HttpServletResponse response) throws IOException {
+        log.info("exportOwnerBookings request: userId = {}", userId);
+        OutputStream outputStream = response.getOutputStream();
+        bookingService.exportAllItemBookingsForOwnerId(userId,
+                booking -> writeLine(response, outputStream, booking));
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
     }
-}
 
+    /*Тип ответа ставим только с первой строкой: если пользователь не найден, обработчик
+     * исключений должен ответить обычным JSON. Для пустой выгрузки тип ставится после нее*/
+    private void writeLine(HttpServletResponse response,
+                           OutputStream outputStream,
+                           BookingDtoOut booking) {
+        if (response.getContentType() == null) {
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        }
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(booking));
+            outputStream.write('\n');
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Полная страница в режиме курсора отдает в заголовке курсор следующей страницы.
+     * Неполная страница последняя, заголовка у нее нет.
+     */
+    private ResponseEntity<List<BookingDtoOut>> withNextCursor(List<BookingDtoOut> bookings,
+                                                               Integer size) {
+        if (bookings.size() < size) {
+            return ResponseEntity.ok(bookings);
+        }
+        BookingDtoOut last = bookings.get(bookings.size() - 1);
+        return ResponseEntity.ok()
+                .header(nextCursorHeader, new KeysetCursor(last.getStart(), last.getId()).encode())
+                .body(bookings);
+    }
+}
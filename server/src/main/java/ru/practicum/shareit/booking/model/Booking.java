@@ -1,6 +1,7 @@
 package ru.practicum.shareit.booking.model;
 
 import lombok.*;
+import ru.practicum.shareit.booking.phase.BookingPhaseListener;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
@@ -16,6 +17,7 @@ import java.time.LocalDateTime;
 @Table(name = "bookings", schema = "PUBLIC")
 @NoArgsConstructor
 @AllArgsConstructor
+@EntityListeners(BookingPhaseListener.class)
 public class Booking {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -35,4 +37,10 @@ public class Booking {
     @Column(name = "status", nullable = false)
     @Enumerated(EnumType.STRING)
     private Status status;
+    @Column(name = "phase", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Phase phase;
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
@@ -0,0 +1,35 @@
+package ru.practicum.shareit.booking.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Положение бронирования относительно текущего момента. Хранится в колонке PHASE,
+ * поэтому состояния CURRENT, PAST и FUTURE ищутся равенством по индексу.
+ * Фаза меняется только вперед: FUTURE -> CURRENT -> PAST.
+ */
+public enum Phase {
+    FUTURE,
+    CURRENT,
+    PAST;
+
+    /**
+     * Фаза бронирования на момент now, с теми же границами, что у фильтров по датам:
+     * PAST - конец раньше now, FUTURE - начало позже now, иначе CURRENT
+     *
+     * @param start начало бронирования
+     * @param end   конец бронирования
+     * @param now   текущий момент
+     * @return фаза бронирования
+     */
+    public static Phase of(LocalDateTime start,
+                           LocalDateTime end,
+                           LocalDateTime now) {
+        if (end.isBefore(now)) {
+            return PAST;
+        }
+        if (start.isAfter(now)) {
+            return FUTURE;
+        }
+        return CURRENT;
+    }
+}
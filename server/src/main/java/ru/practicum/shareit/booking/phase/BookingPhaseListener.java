@@ -0,0 +1,28 @@
+package ru.practicum.shareit.booking.phase;
+
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Phase;
+
+import javax.persistence.PrePersist;
+import java.time.Clock;
+import java.time.LocalDateTime;
+
+/**
+ * Проставляет фазу новому бронированию по часам приложения, если она не задана явно.
+ * Дальше фазу двигает {@link BookingPhaseUpdater}.
+ * Экземпляр создает Hibernate через контейнер бинов Spring, часы внедряются в конструктор.
+ */
+@RequiredArgsConstructor
+public class BookingPhaseListener {
+
+    private final Clock clock;
+
+    @PrePersist
+    public void beforePersist(Booking booking) {
+        if (booking.getPhase() == null) {
+            booking.setPhase(Phase.of(booking.getStart(), booking.getEnd(),
+                    LocalDateTime.now(clock)));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package ru.practicum.shareit.booking.phase;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.version.ItemVersionIncrementer;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+
+/**
+ * Переводит бронирования в следующую фазу, когда наступило их начало или прошел конец.
+ * Запускается сразу после старта (фазы могли устареть, пока сервер не работал) и затем
+ * с паузой shareit.bookings.phase-refresh.interval. Между запусками фаза может отставать
+ * от времени не больше чем на этот интервал.
+ * Обновления идемпотентны, поэтому параллельные запуски на нескольких экземплярах безопасны.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.bookings.phase-refresh.enabled", havingValue = "true",
+        matchIfMissing = true)
+public class BookingPhaseUpdater {
+
+    private final BookingRepository bookingRepository;
+    private final ItemRepository itemRepository;
+    private final ItemVersionIncrementer itemVersionIncrementer;
+    private final Clock clock;
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${shareit.bookings.phase-refresh.interval:PT1M}")
+    public void refresh() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        /*Сначала начавшиеся, потом закончившиеся: бронь, пропустившая CURRENT целиком,
+         * за один запуск доходит до PAST*/
+        /*Вещи ищутся по фазе FUTURE, поэтому до ее смены*/
+        itemVersionIncrementer.increment(itemRepository.findAllWithApprovedBookingStartedBy(now));
+        int started = bookingRepository.markStarted(now);
+        int finished = bookingRepository.markFinished(now);
+        if (started > 0 || finished > 0) {
+            log.info("Booking phases refreshed: {} started, {} finished", started, finished);
+        }
+    }
+}
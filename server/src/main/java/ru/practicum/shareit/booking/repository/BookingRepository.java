@@ -2,16 +2,54 @@ package ru.practicum.shareit.booking.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Phase;
 import ru.practicum.shareit.booking.model.Status;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+/*Списки бронирований сразу подтягивают item и booker через join fetch: маппер обращается
+ * к ним у каждой строки, и без этого страница стоила бы два запроса на строку*/
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
+    /**
+     * Сколько строк выгрузки забирать из БД за раз
+     */
+    int EXPORT_FETCH_SIZE = 500;
+
+    /**
+     * Получить бронирование по id вместе с вещью и арендатором
+     *
+     * @param bookingId id бронирования
+     * @return бронирование либо пустой Optional
+     */
+    @Override
+    @Query("SELECT b FROM Booking b" + " JOIN fetch b.item i" + " join fetch b.booker bkr"
+            + " where b.id = ?1")
+    Optional<Booking> findById(Long bookingId);
+
+    /**
+     * Получить версии бронирования, если его может видеть пользователь (арендатор или владелец).
+     * Для ETag и ответа 304 на GET /bookings/{id}.
+     *
+     * @param bookingId id бронирования
+     * @param userId    id пользователя
+     * @return версии либо пустой Optional, если брони нет или она чужая
+     */
+    @Query("SELECT b.version as bookingVersion, i.version as itemVersion,"
+            + " bkr.version as bookerVersion FROM Booking b JOIN b.item i join b.booker bkr"
+            + " where b.id = ?1 and (bkr.id = ?2 or i.owner = ?2)")
+    Optional<BookingVersions> findVersionsById(Long bookingId,
+                                               Long userId);
+
     /**
      * Покажет, брал ли пользователь эту вещь в аренду и завершилась ли она
      *
@@ -24,12 +62,31 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
                                                                  Long itemId,
                                                                  LocalDateTime currentDateTime);
 
+    /**
+     * Пересекается ли период с бронированиями вещи в указанном статусе.
+     * Границы полуоткрытые: бронь, заканчивающаяся в момент начала другой, не пересекается с ней.
+     *
+     * @param itemId id вещи
+     * @param start  начало периода
+     * @param end    конец периода
+     * @param status статус
+     * @return true, если есть пересечение
+     */
+    @Query("SELECT count(b) > 0 FROM Booking b"
+            + " where b.item.id = ?1 and b.status = ?4 and b.start < ?3 and b.end > ?2")
+    boolean existsOverlapping(Long itemId,
+                              LocalDateTime start,
+                              LocalDateTime end,
+                              Status status);
+
     /**
      * Получить все бронирования пользователя по id - ALL
      *
      * @param userId id пользователя
      * @return список бронирований
      */
+    @Query("SELECT b FROM Booking b" + " JOIN fetch b.item i" + " join fetch b.booker bkr"
+            + " where bkr.id = ?1 order by b.start desc")
     List<Booking> findAllByBookerIdOrderByStartDesc(Long userId,
                                                     Pageable pageable);
 
@@ -40,130 +97,300 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
      * @param userId id пользователя
      * @return список бронирований
      */
+    @Query("SELECT b FROM Booking b" + " JOIN fetch b.item i" + " join fetch b.booker bkr"
+            + " where i.owner = ?1 order by b.start desc")
     List<Booking> findAllByItemOwnerOrderByStartDesc(Long userId,
                                                      Pageable pageable);
 
     /**
-     * Получить все бронирования пользователя по id на текущий момент - CURRENT
+     * Получить все бронирования пользователя по id в фазе - CURRENT, PAST, FUTURE
      *
-     * @param userId      id пользователя
-     * @param currentTime текущее время
+     * @param userId id пользователя
+     * @param phase  фаза
      * @return список бронирований
      */
-    @Query("SELECT b  FROM Booking b" + " JOIN fetch b.item i" + " join fetch b.booker bkr"
-            + " where bkr.id = ?1 and ?2 BETWEEN b.start and b.end " + "order by b.start desc ")
-    List<Booking> findAllCurrentBookingsByBookerId(Long userId,
-                                                   LocalDateTime currentTime,
-                                                   Pageable pageable);
+    @Query("SELECT b FROM Booking b" + " JOIN fetch b.item i" + " join fetch b.booker bkr"
+            + " where bkr.id = ?1 and b.phase = ?2 order by b.start desc")
+    List<Booking> findAllByBookerIdAndPhaseOrderByStartDesc(Long userId,
+                                                            Phase phase,
+                                                            Pageable pageable);
 
     /**
      * Получить список бронирований для всех вещей текущего пользователя по id
-     * на текущий момент - CURRENT
+     * в фазе - CURRENT, PAST, FUTURE
      *
-     * @param userId
-     * @param currentTime
-     * @return
+     * @param userId id пользователя
+     * @param phase  фаза
+     * @return список бронирований
      */
-    @Query("SELECT b  FROM Booking b" + " JOIN fetch b.item i" + " join fetch b.booker bkr"
-            + " where i.owner = ?1 and ?2 BETWEEN b.start and b.end " + "order by b.start desc ")
-    List<Booking> findAllCurrentBookingsByItemOwner(Long userId,
-                                                    LocalDateTime currentTime,
-                                                    Pageable pageable);
+    @Query("SELECT b FROM Booking b" + " JOIN fetch b.item i" + " join fetch b.booker bkr"
+            + " where i.owner = ?1 and b.phase = ?2 order by b.start desc")
+    List<Booking> findAllByItemOwnerAndPhaseOrderByStartDesc(Long userId,
+                                                             Phase phase,
+                                                             Pageable pageable);
 
     /**
-     * Получить все бронирования пользователя по id (завершенные) - PAST
+     * Получить все бронирования пользователя по id по статусу
      *
-     * @param userId          id пользователя
-     * @param currentDateTime текущее время
+     * @param userId id пользователя
+     * @param status статус
      * @return список бронирований
      */
-    List<Booking> findAllByBookerIdAndEndIsBeforeOrderByStartDesc(Long userId,
-                                                                  LocalDateTime currentDateTime,
-                                                                  Pageable pageable);
+    @Query("SELECT b FROM Booking b" + " JOIN fetch b.item i" + " join fetch b.booker bkr"
+            + " where bkr.id = ?1 and b.status = ?2 order by b.start desc")
+    List<Booking> findAllByBookerIdAndStatusOrderByStartDesc(Long userId,
+                                                             Status status,
+                                                             Pageable pageable);
 
     /**
      * Получить список бронирований для всех вещей текущего пользователя по id
-     * на прошедший момент - PAST
+     * по статусу
      *
-     * @param userId          id пользователя
-     * @param currentDateTime текущее время
+     * @param userId id пользователя
+     * @param status статус
      * @return список бронирований
      */
-    List<Booking> findAllByItemOwnerAndEndIsBeforeOrderByStartDesc(Long userId,
-                                                                   LocalDateTime currentDateTime,
-                                                                   Pageable pageable);
+    @Query("SELECT b FROM Booking b" + " JOIN fetch b.item i" + " join fetch b.booker bkr"
+            + " where i.owner = ?1 and b.status = ?2 order by b.start desc")
+    List<Booking> findAllByItemOwnerAndStatusOrderByStartDesc(Long userId,
+                                                              Status status,
+                                                              Pageable pageable);
 
     /**
-     * Получить все бронирования пользователя по id будущие - FUTURE
+     * Keyset-страница бронирований пользователя по id - ALL.
+     * Возвращает бронирования строго после курсора (start, id) в порядке убывания
      *
-     * @param userId          id пользователя
-     * @param currentDateTime текущее время
+     * @param userId   id пользователя
+     * @param start    start последнего бронирования предыдущей страницы
+     * @param id       id последнего бронирования предыдущей страницы
+     * @param pageable размер страницы
      * @return список бронирований
      */
-    List<Booking> findAllByBookerIdAndStartIsAfterOrderByStartDesc(Long userId,
-                                                                   LocalDateTime currentDateTime,
-                                                                   Pageable pageable);
+    @Query("SELECT b FROM Booking b" + " JOIN fetch b.item i" + " join fetch b.booker bkr"
+            + " where bkr.id = ?1"
+            + " and (b.start < ?2 or (b.start = ?2 and b.id < ?3))"
+            + " order by b.start desc, b.id desc")
+    List<Booking> findAllByBookerIdBefore(Long userId,
+                                          LocalDateTime start,
+                                          Long id,
+                                          Pageable pageable);
 
     /**
-     * Получить список бронирований для всех вещей текущего пользователя по id
-     * на будущий момент - FUTURE
+     * Keyset-страница бронирований пользователя по id в фазе - CURRENT, PAST, FUTURE
      *
-     * @param userId          id пользователя
-     * @param currentDateTime текущее время
+     * @param userId   id пользователя
+     * @param phase    фаза
+     * @param start    start последнего бронирования предыдущей страницы
+     * @param id       id последнего бронирования предыдущей страницы
+     * @param pageable размер страницы
      * @return список бронирований
      */
-    List<Booking> findAllByItemOwnerAndStartIsAfterOrderByStartDesc(Long userId,
-                                                                    LocalDateTime currentDateTime,
-                                                                    Pageable pageable);
+    @Query("SELECT b FROM Booking b" + " JOIN fetch b.item i" + " join fetch b.booker bkr"
+            + " where bkr.id = ?1 and b.phase = ?2"
+            + " and (b.start < ?3 or (b.start = ?3 and b.id < ?4))"
+            + " order by b.start desc, b.id desc")
+    List<Booking> findAllByBookerIdAndPhaseBefore(Long userId,
+                                                  Phase phase,
+                                                  LocalDateTime start,
+                                                  Long id,
+                                                  Pageable pageable);
 
     /**
-     * Получить все бронирования пользователя по id по статусу
+     * Keyset-страница бронирований пользователя по id по статусу
      *
-     * @param userId id пользователя
-     * @param status статус
+     * @param userId   id пользователя
+     * @param status   статус
+     * @param start    start последнего бронирования предыдущей страницы
+     * @param id       id последнего бронирования предыдущей страницы
+     * @param pageable размер страницы
      * @return список бронирований
      */
-    List<Booking> findAllByBookerIdAndStatusOrderByStartDesc(Long userId,
-                                                             Status status,
-                                                             Pageable pageable);
+    @Query("SELECT b FROM Booking b" + " JOIN fetch b.item i" + " join fetch b.booker bkr"
+            + " where bkr.id = ?1 and b.status = ?2"
+            + " and (b.start < ?3 or (b.start = ?3 and b.id < ?4))"
+            + " order by b.start desc, b.id desc")
+    List<Booking> findAllByBookerIdAndStatusBefore(Long userId,
+                                                   Status status,
+                                                   LocalDateTime start,
+                                                   Long id,
+                                                   Pageable pageable);
 
     /**
-     * Получить список бронирований для всех вещей текущего пользователя по id
-     * по статусу
+     * Keyset-страница бронирований для всех вещей владельца по id - ALL.
+     * Возвращает бронирования строго после курсора (start, id) в порядке убывания
      *
-     * @param userId id пользователя
-     * @param status статус
+     * @param userId   id пользователя
+     * @param start    start последнего бронирования предыдущей страницы
+     * @param id       id последнего бронирования предыдущей страницы
+     * @param pageable размер страницы
      * @return список бронирований
      */
-    List<Booking> findAllByItemOwnerAndStatusOrderByStartDesc(Long userId,
-                                                              Status status,
-                                                              Pageable pageable);
+    @Query("SELECT b FROM Booking b" + " JOIN fetch b.item i" + " join fetch b.booker bkr"
+            + " where i.owner = ?1"
+            + " and (b.start < ?2 or (b.start = ?2 and b.id < ?3))"
+            + " order by b.start desc, b.id desc")
+    List<Booking> findAllByItemOwnerBefore(Long userId,
+                                           LocalDateTime start,
+                                           Long id,
+                                           Pageable pageable);
 
     /**
-     * Последнее бронирование вещи по id
+     * Keyset-страница бронирований для всех вещей владельца по id в фазе - CURRENT, PAST, FUTURE
      *
-     * @param userId          id пользователя
-     * @param itemId          id вещи
+     * @param userId   id пользователя
+     * @param phase    фаза
+     * @param start    start последнего бронирования предыдущей страницы
+     * @param id       id последнего бронирования предыдущей страницы
+     * @param pageable размер страницы
+     * @return список бронирований
+     */
+    @Query("SELECT b FROM Booking b" + " JOIN fetch b.item i" + " join fetch b.booker bkr"
+            + " where i.owner = ?1 and b.phase = ?2"
+            + " and (b.start < ?3 or (b.start = ?3 and b.id < ?4))"
+            + " order by b.start desc, b.id desc")
+    List<Booking> findAllByItemOwnerAndPhaseBefore(Long userId,
+                                                   Phase phase,
+                                                   LocalDateTime start,
+                                                   Long id,
+                                                   Pageable pageable);
+
+    /**
+     * Keyset-страница бронирований для всех вещей владельца по id по статусу
+     *
+     * @param userId   id пользователя
+     * @param status   статус
+     * @param start    start последнего бронирования предыдущей страницы
+     * @param id       id последнего бронирования предыдущей страницы
+     * @param pageable размер страницы
+     * @return список бронирований
+     */
+    @Query("SELECT b FROM Booking b" + " JOIN fetch b.item i" + " join fetch b.booker bkr"
+            + " where i.owner = ?1 and b.status = ?2"
+            + " and (b.start < ?3 or (b.start = ?3 and b.id < ?4))"
+            + " order by b.start desc, b.id desc")
+    List<Booking> findAllByItemOwnerAndStatusBefore(Long userId,
+                                                    Status status,
+                                                    LocalDateTime start,
+                                                    Long id,
+                                                    Pageable pageable);
+
+    /**
+     * Последние подтвержденные бронирования для набора вещей (по одному на вещь)
+     *
+     * @param itemIds         id вещей
      * @param currentDateTime текущее время
      * @param status          статус
-     * @return бронирование либо пустой Optional
+     * @return список бронирований
      */
-    Optional<Booking> findFirstByItemOwnerAndItemIdAndStartIsBeforeAndStatusOrderByStartDesc(Long userId,
-                                                                                             Long itemId,
-                                                                                             LocalDateTime currentDateTime,
-                                                                                             Status status);
+    @Query("SELECT b FROM Booking b" + " JOIN fetch b.item i" + " join fetch b.booker bkr"
+            + " where i.id in ?1 and b.status = ?3 and b.start = "
+            + "(select max(lb.start) from Booking lb"
+            + " where lb.item = b.item and lb.status = ?3 and lb.start < ?2)")
+    List<Booking> findLastBookingsByItemIds(Collection<Long> itemIds,
+                                            LocalDateTime currentDateTime,
+                                            Status status);
 
     /**
-     * Следующее подтвержденное бронирование вещи по id
+     * Следующие подтвержденные бронирования для набора вещей (по одному на вещь)
      *
-     * @param userId          id пользователя
-     * @param itemId          id вещи
+     * @param itemIds         id вещей
      * @param currentDateTime текущее время
      * @param status          статус
-     * @return бронирование либо пустой Optional
+     * @return список бронирований
+     */
+    @Query("SELECT b FROM Booking b" + " JOIN fetch b.item i" + " join fetch b.booker bkr"
+            + " where i.id in ?1 and b.status = ?3 and b.start = "
+            + "(select min(nb.start) from Booking nb"
+            + " where nb.item = b.item and nb.status = ?3 and nb.start > ?2)")
+    List<Booking> findNextBookingsByItemIds(Collection<Long> itemIds,
+                                            LocalDateTime currentDateTime,
+                                            Status status);
+
+    /**
+     * Все бронирования пользователя для выгрузки, новые первыми.
+     * Строки читаются курсором только вперед порциями по {@link #EXPORT_FETCH_SIZE},
+     * сущности только для чтения и не попадают в кэш второго уровня.
+     * Поток нужно читать и закрыть внутри транзакции.
+     *
+     * @param userId id пользователя
+     * @return поток бронирований
+     */
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheMode", value = "IGNORE")})
+    @Query("SELECT b FROM Booking b" + " JOIN fetch b.item i" + " join fetch b.booker bkr"
+            + " where bkr.id = ?1 order by b.start desc, b.id desc")
+    Stream<Booking> streamAllByBookerId(Long userId);
+
+    /**
+     * Все бронирования вещей владельца для выгрузки, новые первыми.
+     * Читаются так же, как в {@link #streamAllByBookerId(Long)}.
+     *
+     * @param userId id владельца вещей
+     * @return поток бронирований
+     */
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheMode", value = "IGNORE")})
+    @Query("SELECT b FROM Booking b" + " JOIN fetch b.item i" + " join fetch b.booker bkr"
+            + " where i.owner = ?1 order by b.start desc, b.id desc")
+    Stream<Booking> streamAllByItemOwner(Long userId);
+
+    /**
+     * Подтвердить бронирование, если оно еще ждет решения, вещь принадлежит пользователю и
+     * у вещи нет подтвержденной брони на пересекающийся период. Все условия проверяются
+     * в том же операторе, которым записывается статус. Поднимает версию брони.
+     *
+     * @param bookingId id бронирования
+     * @param ownerId   id владельца вещи
+     * @return 1, если бронирование подтверждено, иначе 0
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update versioned Booking b set b.status = ru.practicum.shareit.booking.model.Status.APPROVED"
+            + " where b.id = ?1"
+            + " and b.status = ru.practicum.shareit.booking.model.Status.WAITING"
+            + " and b.item.id in (select i.id from Item i where i.owner = ?2)"
+            + " and not exists (select o.id from Booking o where o.item.id = b.item.id"
+            + " and o.status = ru.practicum.shareit.booking.model.Status.APPROVED"
+            + " and o.start < b.end and o.end > b.start)")
+    int approveIfWaiting(Long bookingId,
+                         Long ownerId);
+
+    /**
+     * Отклонить бронирование, если оно еще ждет решения и вещь принадлежит пользователю.
+     * Поднимает версию брони.
+     *
+     * @param bookingId id бронирования
+     * @param ownerId   id владельца вещи
+     * @return 1, если бронирование отклонено, иначе 0
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update versioned Booking b set b.status = ru.practicum.shareit.booking.model.Status.REJECTED"
+            + " where b.id = ?1"
+            + " and b.status = ru.practicum.shareit.booking.model.Status.WAITING"
+            + " and b.item.id in (select i.id from Item i where i.owner = ?2)")
+    int rejectIfWaiting(Long bookingId,
+                        Long ownerId);
+
+    /**
+     * Перевести в CURRENT будущие бронирования, начало которых уже наступило
+     *
+     * @param now текущее время
+     * @return сколько бронирований изменено
+     */
+    @Modifying
+    @Query("update Booking b set b.phase = ru.practicum.shareit.booking.model.Phase.CURRENT"
+            + " where b.phase = ru.practicum.shareit.booking.model.Phase.FUTURE and b.start <= ?1")
+    int markStarted(LocalDateTime now);
+
+    /**
+     * Перевести в PAST текущие бронирования, конец которых уже прошел
+     *
+     * @param now текущее время
+     * @return сколько бронирований изменено
      */
-    Optional<Booking> findFirstByItemOwnerAndItemIdAndStartIsAfterAndStatusOrderByStartAsc(Long userId,
-                                                                                           Long itemId,
-                                                                                           LocalDateTime currentDateTime,
-                                                                                           Status status);
+    @Modifying
+    @Query("update Booking b set b.phase = ru.practicum.shareit.booking.model.Phase.PAST"
+            + " where b.phase = ru.practicum.shareit.booking.model.Phase.CURRENT and b.end < ?1")
+    int markFinished(LocalDateTime now);
 }
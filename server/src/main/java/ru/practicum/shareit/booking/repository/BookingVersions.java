@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.repository;
+
+/**
+ * Версии бронирования, вещи и арендатора: они вместе определяют ответ GET /bookings/{id}.
+ */
+public interface BookingVersions {
+
+    Long getBookingVersion();
+
+    Long getItemVersion();
+
+    Long getBookerVersion();
+}
@@ -5,6 +5,8 @@ import ru.practicum.shareit.booking.dto.BookingDtoOut;
 import ru.practicum.shareit.booking.model.State;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface IBookingService {
 
@@ -25,6 +27,17 @@ public interface IBookingService {
     BookingDtoOut getBookingById(Long bookingId,
                                  Long userId);
 
+    /**
+     * Получить тег версии бронирования для ETag без сборки ответа
+     *
+     * @param bookingId id бронирования
+     * @param userId    id пользователя
+     * @return тег, меняющийся при любом изменении ответа getBookingById, либо пустой Optional,
+     * если бронирования нет или пользователь не может его видеть
+     */
+    Optional<String> getVersionTag(Long bookingId,
+                                   Long userId);
+
     /**
      * Получить все бронирования для текущего пользователя по его id
      *
@@ -52,4 +65,52 @@ public interface IBookingService {
                                                      Integer from,
                                                      Integer size,
                                                      State state);
+
+    /**
+     * Keyset-страница бронирований текущего пользователя, начиная строго после курсора
+     *
+     * @param userId id пользователя
+     * @param cursor курсор последней строки предыдущей страницы, пустой - первая страница
+     * @param size   размер страницы
+     * @param state  статус бронирования
+     * @return список бронирований
+     */
+    List<BookingDtoOut> getAllBookingsForCurrentUserIdAfter(Long userId,
+                                                            String cursor,
+                                                            Integer size,
+                                                            State state);
+
+    /**
+     * Keyset-страница бронирований для всех вещей владельца, начиная строго после курсора
+     *
+     * @param userId id владельца вещей
+     * @param cursor курсор последней строки предыдущей страницы, пустой - первая страница
+     * @param size   размер страницы
+     * @param state  статус бронирования
+     * @return список бронирований
+     */
+    List<BookingDtoOut> getAllItemBookingsForOwnerIdAfter(Long userId,
+                                                          String cursor,
+                                                          Integer size,
+                                                          State state);
+
+    /**
+     * Выгрузить все бронирования текущего пользователя, новые первыми.
+     * Бронирования передаются получателю по одному по мере чтения из БД, в памяти не копятся.
+     *
+     * @param userId   id пользователя
+     * @param consumer получатель бронирований
+     */
+    void exportAllBookingsForCurrentUserId(Long userId,
+                                           Consumer<BookingDtoOut> consumer);
+
+    /**
+     * Выгрузить все бронирования вещей владельца, новые первыми, по одному, как в
+     * {@link #exportAllBookingsForCurrentUserId(Long, Consumer)}
+     *
+     * @param userId   id владельца вещей
+     * @param consumer получатель бронирований
+     */
+    void exportAllItemBookingsForOwnerId(Long userId,
+                                         Consumer<BookingDtoOut> consumer);
 }
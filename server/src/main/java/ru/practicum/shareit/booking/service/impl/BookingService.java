@@ -1,6 +1,7 @@
 package ru.practicum.shareit.booking.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -8,21 +9,31 @@ import ru.practicum.shareit.booking.dto.BookingDtoIn;
 import ru.practicum.shareit.booking.dto.BookingDtoOut;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Phase;
 import ru.practicum.shareit.booking.model.State;
 import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.booking.service.IBookingService;
 import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.ResourceNotFoundException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.version.ItemVersionIncrementer;
+import ru.practicum.shareit.user.existence.UserExistenceFilter;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.util.KeysetCursor;
 import ru.practicum.shareit.util.OffsetBasedPageRequest;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -30,8 +41,11 @@ public class BookingService implements IBookingService {
 
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
+    private final UserExistenceFilter userExistenceFilter;
     private final ItemRepository itemRepository;
     private final BookingMapper bookingMapper;
+    private final EntityManager entityManager;
+    private final ItemVersionIncrementer itemVersionIncrementer;
 
     @Override
     @Transactional
@@ -40,6 +54,7 @@ public class BookingService implements IBookingService {
         User user = getUserOrThrowIfNotExist(userId);
         Item item = getItemOrThrowIfNotExist(bookingDtoIn.getItemId());
         validateBookingBeforeCreate(userId, bookingDtoIn);
+        throwIfOverlapsApproved(item.getId(), bookingDtoIn.getStart(), bookingDtoIn.getEnd());
         bookingDtoIn.setStatus(Status.WAITING);
         Booking booking = bookingMapper.toBooking(user, item, bookingDtoIn);
         return bookingMapper.toBookingDtoOut(bookingRepository.save(booking));
@@ -50,14 +65,39 @@ public class BookingService implements IBookingService {
     public BookingDtoOut update(Long bookingId,
                                 Boolean approved,
                                 Long userId) {
-        Booking booking = validateBookingDetails(bookingId, userId, ValidationType.UPDATE);
-        booking.setStatus(approved ? Status.APPROVED : Status.REJECTED);
         /*Меня тут смущает один момент. Не нашел этого в тзю
          * Вот подтвердил юзер бронирование, хорошо, но должен ли статус вещи
          * сразу становиться на available = false или юзер сам должен менять статус?
          * Пока оставлю без изменений, так как нет четкого понимания конечного сценария
          * взаимодействия*/
-        return bookingMapper.toBookingDtoOut(bookingRepository.save(booking));
+        /*Владелец, статус WAITING и пересечения проверяются в самом update, без чтения брони
+         * перед записью. Почему ничего не изменилось, выясняем только при неудаче*/
+        int updated;
+        if (approved) {
+            /*Блокируем вещь, чтобы параллельные подтверждения пересекающихся броней
+             * проверялись по очереди*/
+            itemRepository.findByBookingIdForUpdate(bookingId);
+            try {
+                updated = bookingRepository.approveIfWaiting(bookingId, userId);
+            } catch (DataIntegrityViolationException exception) {
+                /*На Postgres пересечение дополнительно ловит exclusion constraint*/
+                throw new ConflictException(
+                        String.format("Booking with id %d overlaps with another approved booking",
+                                bookingId));
+            }
+        } else {
+            updated = bookingRepository.rejectIfWaiting(bookingId, userId);
+        }
+        Booking booking = getBookingOrThrowIfNotExist(bookingId);
+        if (updated == 0) {
+            throw whyNotDecided(booking, userId);
+        }
+        if (approved) {
+            /*Подтвержденная бронь видна в карточке вещи. Строка вещи уже заблокирована,
+             * конфликта версий здесь не будет*/
+            itemVersionIncrementer.increment(booking.getItem());
+        }
+        return bookingMapper.toBookingDtoOut(booking);
     }
 
     @Override
@@ -68,6 +108,15 @@ public class BookingService implements IBookingService {
         return bookingMapper.toBookingDtoOut(booking);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<String> getVersionTag(Long bookingId,
+                                          Long userId) {
+        return bookingRepository.findVersionsById(bookingId, userId)
+                .map(versions -> versions.getBookingVersion() + "-" + versions.getItemVersion()
+                        + "-" + versions.getBookerVersion());
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<BookingDtoOut> getAllBookingsForCurrentUserId(Long userId,
@@ -83,20 +132,20 @@ public class BookingService implements IBookingService {
                         .map(bookingMapper::toBookingDtoOut)
                         .collect(Collectors.toList());
             case CURRENT:
-                return bookingRepository.findAllCurrentBookingsByBookerId(userId,
-                                LocalDateTime.now(), pageable)
+                return bookingRepository.findAllByBookerIdAndPhaseOrderByStartDesc(userId,
+                                Phase.CURRENT, pageable)
                         .stream()
                         .map(bookingMapper::toBookingDtoOut)
                         .collect(Collectors.toList());
             case PAST:
-                return bookingRepository.findAllByBookerIdAndEndIsBeforeOrderByStartDesc(userId,
-                                LocalDateTime.now(), pageable)
+                return bookingRepository.findAllByBookerIdAndPhaseOrderByStartDesc(userId,
+                                Phase.PAST, pageable)
                         .stream()
                         .map(bookingMapper::toBookingDtoOut)
                         .collect(Collectors.toList());
             case FUTURE:
-                return bookingRepository.findAllByBookerIdAndStartIsAfterOrderByStartDesc(userId,
-                                LocalDateTime.now(), pageable)
+                return bookingRepository.findAllByBookerIdAndPhaseOrderByStartDesc(userId,
+                                Phase.FUTURE, pageable)
                         .stream()
                         .map(bookingMapper::toBookingDtoOut)
                         .collect(Collectors.toList());
@@ -131,20 +180,20 @@ public class BookingService implements IBookingService {
                         .map(bookingMapper::toBookingDtoOut)
                         .collect(Collectors.toList());
             case CURRENT:
-                return bookingRepository.findAllCurrentBookingsByItemOwner(userId,
-                                LocalDateTime.now(), pageable)
+                return bookingRepository.findAllByItemOwnerAndPhaseOrderByStartDesc(userId,
+                                Phase.CURRENT, pageable)
                         .stream()
                         .map(bookingMapper::toBookingDtoOut)
                         .collect(Collectors.toList());
             case PAST:
-                return bookingRepository.findAllByItemOwnerAndEndIsBeforeOrderByStartDesc(userId,
-                                LocalDateTime.now(), pageable)
+                return bookingRepository.findAllByItemOwnerAndPhaseOrderByStartDesc(userId,
+                                Phase.PAST, pageable)
                         .stream()
                         .map(bookingMapper::toBookingDtoOut)
                         .collect(Collectors.toList());
             case FUTURE:
-                return bookingRepository.findAllByItemOwnerAndStartIsAfterOrderByStartDesc(userId,
-                                LocalDateTime.now(), pageable)
+                return bookingRepository.findAllByItemOwnerAndPhaseOrderByStartDesc(userId,
+                                Phase.FUTURE, pageable)
                         .stream()
                         .map(bookingMapper::toBookingDtoOut)
                         .collect(Collectors.toList());
@@ -164,8 +213,132 @@ public class BookingService implements IBookingService {
         return null;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookingDtoOut> getAllBookingsForCurrentUserIdAfter(Long userId,
+                                                                   String cursor,
+                                                                   Integer size,
+                                                                   State state) {
+        throwIfUserNotFound(userId);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        LocalDateTime start = after.getTimestamp();
+        Long id = after.getId();
+        Pageable pageable = new OffsetBasedPageRequest(0, size);
+        List<Booking> bookings;
+        switch (state) {
+            case ALL:
+                bookings = bookingRepository.findAllByBookerIdBefore(userId, start, id, pageable);
+                break;
+            case CURRENT:
+                bookings = bookingRepository.findAllByBookerIdAndPhaseBefore(userId,
+                        Phase.CURRENT, start, id, pageable);
+                break;
+            case PAST:
+                bookings = bookingRepository.findAllByBookerIdAndPhaseBefore(userId,
+                        Phase.PAST, start, id, pageable);
+                break;
+            case FUTURE:
+                bookings = bookingRepository.findAllByBookerIdAndPhaseBefore(userId,
+                        Phase.FUTURE, start, id, pageable);
+                break;
+            case WAITING:
+                bookings = bookingRepository.findAllByBookerIdAndStatusBefore(userId,
+                        Status.WAITING, start, id, pageable);
+                break;
+            case REJECTED:
+                bookings = bookingRepository.findAllByBookerIdAndStatusBefore(userId,
+                        Status.REJECTED, start, id, pageable);
+                break;
+            default:
+                return null;
+        }
+        return bookings.stream()
+                .map(bookingMapper::toBookingDtoOut)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookingDtoOut> getAllItemBookingsForOwnerIdAfter(Long userId,
+                                                                 String cursor,
+                                                                 Integer size,
+                                                                 State state) {
+        throwIfUserNotFound(userId);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        LocalDateTime start = after.getTimestamp();
+        Long id = after.getId();
+        Pageable pageable = new OffsetBasedPageRequest(0, size);
+        List<Booking> bookings;
+        switch (state) {
+            case ALL:
+                bookings = bookingRepository.findAllByItemOwnerBefore(userId, start, id, pageable);
+                break;
+            case CURRENT:
+                bookings = bookingRepository.findAllByItemOwnerAndPhaseBefore(userId,
+                        Phase.CURRENT, start, id, pageable);
+                break;
+            case PAST:
+                bookings = bookingRepository.findAllByItemOwnerAndPhaseBefore(userId,
+                        Phase.PAST, start, id, pageable);
+                break;
+            case FUTURE:
+                bookings = bookingRepository.findAllByItemOwnerAndPhaseBefore(userId,
+                        Phase.FUTURE, start, id, pageable);
+                break;
+            case WAITING:
+                bookings = bookingRepository.findAllByItemOwnerAndStatusBefore(userId,
+                        Status.WAITING, start, id, pageable);
+                break;
+            case REJECTED:
+                bookings = bookingRepository.findAllByItemOwnerAndStatusBefore(userId,
+                        Status.REJECTED, start, id, pageable);
+                break;
+            default:
+                return null;
+        }
+        return bookings.stream()
+                .map(bookingMapper::toBookingDtoOut)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAllBookingsForCurrentUserId(Long userId,
+                                                  Consumer<BookingDtoOut> consumer) {
+        throwIfUserNotFound(userId);
+        try (Stream<Booking> bookings = bookingRepository.streamAllByBookerId(userId)) {
+            export(bookings, consumer);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAllItemBookingsForOwnerId(Long userId,
+                                                Consumer<BookingDtoOut> consumer) {
+        throwIfUserNotFound(userId);
+        try (Stream<Booking> bookings = bookingRepository.streamAllByItemOwner(userId)) {
+            export(bookings, consumer);
+        }
+    }
+
+    /*Прочитанные сущности больше не нужны: чистим контекст каждую порцию, чтобы память
+     * не росла вместе с историей бронирований*/
+    private void export(Stream<Booking> bookings,
+                        Consumer<BookingDtoOut> consumer) {
+        int exported = 0;
+        Iterator<Booking> iterator = bookings.iterator();
+        while (iterator.hasNext()) {
+            consumer.accept(bookingMapper.toBookingDtoOut(iterator.next()));
+            if (++exported % BookingRepository.EXPORT_FETCH_SIZE == 0) {
+                entityManager.clear();
+            }
+        }
+    }
+
     private void throwIfUserNotFound(Long userId) {
-        if (!userRepository.existsById(userId)) {
+        /*findById, а не existsById: пользователь обычно уже в кэше второго уровня*/
+        if (userExistenceFilter.isDefinitelyAbsent(userId) || userRepository.findById(userId)
+                .isEmpty()) {
             throw new ResourceNotFoundException(
                     String.format("User with id %d does not exist", userId));
         }
@@ -176,21 +349,6 @@ public class BookingService implements IBookingService {
                                            ValidationType validationType) {
         Booking booking = getBookingOrThrowIfNotExist(bookingId);
         switch (validationType) {
-            case UPDATE:
-                if (!booking.getItem()
-                        .getOwner()
-                        .equals(userId)) {
-                    throw new ResourceNotFoundException(
-                            String.format("Booking with id %d does not belong to user with id %d",
-                                    bookingId, userId));
-                }
-                if (!booking.getStatus()
-                        .equals(Status.WAITING)) {
-                    throw new BadRequestException(
-                            String.format("Booking with id %d is not in waiting status",
-                                    bookingId));
-                }
-                return booking;
             case GET:
                 /*Проверяем, что запрашивает либо владелец вещи либо создатель брони*/
                 Long bookerId = booking.getBooker()
@@ -206,6 +364,28 @@ public class BookingService implements IBookingService {
         return null;
     }
 
+    /**
+     * Причина, по которой условный update не изменил бронирование
+     */
+    private RuntimeException whyNotDecided(Booking booking,
+                                           Long userId) {
+        if (!booking.getItem()
+                .getOwner()
+                .equals(userId)) {
+            return new ResourceNotFoundException(
+                    String.format("Booking with id %d does not belong to user with id %d",
+                            booking.getId(), userId));
+        }
+        if (booking.getStatus() != Status.WAITING) {
+            return new ConflictException(
+                    String.format("Booking with id %d has already been approved or rejected",
+                            booking.getId()));
+        }
+        return new ConflictException(
+                String.format("Item with id %d is already booked from %s to %s", booking.getItem()
+                        .getId(), booking.getStart(), booking.getEnd()));
+    }
+
     private void validateBookingBeforeCreate(Long userId,
                                              BookingDtoIn bookingDtoIn) {
         /*Пресекаем попытку бронирования недоступной вещи*/
@@ -237,6 +417,21 @@ public class BookingService implements IBookingService {
         }
     }
 
+    /**
+     * Проверка, что период не пересекается с подтвержденными бронированиями вещи.
+     * Ожидающих подтверждения броней на один период может быть несколько,
+     * владелец подтверждает только одну из них.
+     */
+    private void throwIfOverlapsApproved(Long itemId,
+                                         LocalDateTime start,
+                                         LocalDateTime end) {
+        if (bookingRepository.existsOverlapping(itemId, start, end, Status.APPROVED)) {
+            throw new ConflictException(
+                    String.format("Item with id %d is already booked from %s to %s", itemId, start,
+                            end));
+        }
+    }
+
     private User getUserOrThrowIfNotExist(Long userId) {
         return userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException(
@@ -256,7 +451,6 @@ public class BookingService implements IBookingService {
     }
 
     private enum ValidationType {
-        UPDATE,
         GET
     }
 }
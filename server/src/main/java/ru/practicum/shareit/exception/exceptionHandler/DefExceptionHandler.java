@@ -1,12 +1,14 @@
 package ru.practicum.shareit.exception.exceptionHandler;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MissingRequestHeaderException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.IllegalOwnerException;
 import ru.practicum.shareit.exception.ResourceNotFoundException;
 import ru.practicum.shareit.util.ErrorResponse;
@@ -55,4 +57,26 @@ public class DefExceptionHandler {
                 .code(HttpStatus.FORBIDDEN.value())
                 .build();
     }
+
+    @ExceptionHandler(value = {ConflictException.class})
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleConflictException(ConflictException ex) {
+        log.error(ex.getMessage());
+        return ErrorResponse.builder()
+                .message(ex.getMessage())
+                .code(HttpStatus.CONFLICT.value())
+                .build();
+    }
+
+    /*Сущность изменил параллельный запрос между чтением и записью (@Version)*/
+    @ExceptionHandler(value = {OptimisticLockingFailureException.class})
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleOptimisticLockingFailureException(
+            OptimisticLockingFailureException ex) {
+        log.error("Concurrent modification", ex);
+        return ErrorResponse.builder()
+                .message("Resource was modified by a concurrent request, retry with fresh data")
+                .code(HttpStatus.CONFLICT.value())
+                .build();
+    }
 }
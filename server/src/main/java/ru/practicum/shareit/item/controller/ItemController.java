@@ -2,14 +2,17 @@ package ru.practicum.shareit.item.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.item.dto.CommentDtoIn;
 import ru.practicum.shareit.item.dto.CommentDtoOut;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.service.IItemService;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/items")
@@ -38,9 +41,21 @@ public class ItemController {
 
     @GetMapping("/{itemId}")
     public ResponseEntity<ItemDto> getItemById(@PathVariable Long itemId,
-                                               @RequestHeader(requestHeader) Long userId) {
+                                               @RequestHeader(requestHeader) Long userId,
+                                               WebRequest webRequest) {
         log.info("getItemById request: itemId = {}", itemId);
-        return ResponseEntity.ok(itemService.getById(itemId, userId));
+        /*Сначала сверяем версии: если у клиента актуальная карточка, отвечаем 304 без сборки*/
+        Optional<String> versionTag = itemService.getVersionTag(itemId, userId);
+        if (versionTag.isPresent() && webRequest.checkNotModified(versionTag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .varyBy(requestHeader)
+                    .build();
+        }
+        /*Владелец видит брони, поэтому кэши должны различать пользователей*/
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .varyBy(requestHeader);
+        versionTag.ifPresent(response::eTag);
+        return response.body(itemService.getById(itemId, userId));
     }
 
     @PostMapping("/{itemId}/comment")
@@ -28,4 +28,7 @@ public class Comment {
     private User author;
     @Column(name = "created_date", nullable = false)
     private LocalDateTime created;
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
@@ -4,15 +4,20 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
 /**
  * TODO Sprint add-controllers.
+ * Лежит в кэше второго уровня: вещь по id читают бронирования, комментарии и карточка вещи.
  */
 @Data
 @Builder
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "items")
 @Table(name = "items", schema = "PUBLIC")
 @NoArgsConstructor
 @AllArgsConstructor
@@ -31,4 +36,7 @@ public class Item {
     @Column(name = "request_id")
     private Long request;
     // ID of the request for this item if item created as a response to the request
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
@@ -1,10 +1,20 @@
 package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.model.Comment;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
-    List<Comment> findAllByItemId(Long itemId);
+
+    /**
+     * Получить комментарии сразу для набора вещей вместе с авторами
+     *
+     * @param itemIds id вещей
+     * @return список комментариев
+     */
+    @Query("SELECT c FROM Comment c" + " join fetch c.author" + " where c.item.id in ?1")
+    List<Comment> findAllByItemIdIn(Collection<Long> itemIds);
 }
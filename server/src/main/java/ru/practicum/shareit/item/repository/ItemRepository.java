@@ -2,22 +2,85 @@ package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.model.Item;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
 
     /**
-     * Проверка существования вещи по id и принадлежности пользователю
+     * Удалить все вещи пользователя.
+     * Их и так удалит каскад внешнего ключа вместе с владельцем, но про каскад не знает кэш
+     * второго уровня. Массовое удаление через Hibernate сбрасывает кэш вещей после коммита.
      *
-     * @param id      id вещи
-     * @param ownerId id пользователя
-     * @return true, если вещь существует и принадлежит пользователю
+     * @param ownerId id владельца
+     */
+    @Modifying
+    @Query("DELETE FROM Item i WHERE i.owner = ?1")
+    void deleteAllByOwner(Long ownerId);
+
+    /**
+     * Получить id всех вещей пользователя
+     *
+     * @param ownerId id владельца
+     * @return id вещей
+     */
+    @Query("SELECT i.id FROM Item i WHERE i.owner = ?1")
+    List<Long> findIdsByOwner(Long ownerId);
+
+    /**
+     * Получить вещь бронирования с блокировкой строки до конца транзакции.
+     * Сериализует подтверждение броней одной вещи, чтобы проверка пересечений была атомарной.
+     *
+     * @param bookingId id бронирования
+     * @return вещь либо пустой Optional, если бронирования нет
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i from Item as i where i.id = (SELECT b.item.id FROM Booking b WHERE b.id = ?1)")
+    Optional<Item> findByBookingIdForUpdate(Long bookingId);
+
+    /**
+     * Получить вещи, у которых уже началось одобренное бронирование в фазе FUTURE.
+     * Начавшаяся бронь становится в карточке вещи последней, а не следующей.
+     *
+     * @param now текущее время
+     * @return список вещей
+     */
+    @Query("select i from Item i where i.id in (select b.item.id from Booking b"
+            + " where b.phase = ru.practicum.shareit.booking.model.Phase.FUTURE"
+            + " and b.status = ru.practicum.shareit.booking.model.Status.APPROVED and b.start <= ?1)")
+    List<Item> findAllWithApprovedBookingStartedBy(LocalDateTime now);
+
+    /**
+     * Получить чужие вещи, в карточках которых виден пользователь: как автор комментария
+     * или арендатор одобренной брони.
+     *
+     * @param userId id пользователя
+     * @return список вещей
      */
-    boolean existsByIdAndOwner(Long id,
-                               Long ownerId);
+    @Query("select i from Item i where i.owner <> ?1"
+            + " and (i.id in (select c.item.id from Comment c where c.author.id = ?1)"
+            + " or i.id in (select b.item.id from Booking b where b.booker.id = ?1"
+            + " and b.status = ru.practicum.shareit.booking.model.Status.APPROVED))")
+    List<Item> findAllShowingUser(Long userId);
+
+    /**
+     * Получить версию вещи и ее владельца без сборки самой карточки.
+     * Для ETag и ответа 304 на GET /items/{id}: версия поднимается при каждом изменении,
+     * которое видно в карточке, в том числе при новых комментариях и бронях.
+     *
+     * @param id id вещи
+     * @return версия либо пустой Optional, если вещи нет
+     */
+    @Query("select i.version as version, i.owner as owner from Item i where i.id = ?1")
+    Optional<ItemVersion> findVersionById(Long id);
 
     /**
      * Получить все вещи пользователя по id владельца
@@ -28,6 +91,25 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
     List<Item> findAllByOwner(Long ownerId,
                               Pageable pageable);
 
+    /**
+     * Получить вещи, откликнувшиеся на любой из запросов
+     *
+     * @param requestIds id запросов
+     * @return список вещей
+     */
+    List<Item> findAllByRequestIn(Collection<Long> requestIds);
+
+    /**
+     * Получить следующую порцию доступных вещей после указанного id, по возрастанию id.
+     * Нужна для построения поискового индекса в памяти без offset.
+     *
+     * @param id       id последней вещи предыдущей порции
+     * @param pageable размер порции
+     * @return список вещей
+     */
+    List<Item> findAllByAvailableTrueAndIdGreaterThanOrderByIdAsc(Long id,
+                                                                  Pageable pageable);
+
     /**
      * Поиск вещей по тексту
      *
@@ -39,4 +121,20 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
             + "lower(i.description) like lower(concat('%', ?1, '%') ))")
     List<Item> search(String text,
                       Pageable pageable);
+
+    /**
+     * Поиск вещей по тексту с ранжированием по похожести, только для Postgres.
+     * Условие like по lower(...) обслуживают GIN индексы gin_trgm_ops из миграции db/migration/postgresql.
+     *
+     * @param text текст для поиска
+     * @return список вещей, самые похожие на запрос первыми
+     */
+    @Query(value = "SELECT i.* from ITEMS i where i.AVAILABLE = true and "
+            + "(lower(i.NAME) like '%' || lower(?1) || '%' or "
+            + "lower(i.DESCRIPTION) like '%' || lower(?1) || '%') "
+            + "order by greatest(similarity(lower(i.NAME), lower(?1)), "
+            + "similarity(lower(i.DESCRIPTION), lower(?1))) desc, i.ID",
+            nativeQuery = true)
+    List<Item> searchRankedByTrigram(String text,
+                                     Pageable pageable);
 }
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.item.repository;
+
+/**
+ * Версия вещи и ее владелец для ETag карточки. Владелец видит в карточке еще и брони,
+ * поэтому его тег отличается от тега остальных пользователей.
+ */
+public interface ItemVersion {
+
+    Long getVersion();
+
+    Long getOwner();
+}
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+
+/**
+ * Движок поиска доступных вещей по тексту в названии или описании.
+ * Реализация выбирается свойством shareit.search.engine.
+ */
+public interface IItemSearchEngine {
+
+    /**
+     * Поиск доступных вещей по тексту
+     *
+     * @param text     текст для поиска, не пустой
+     * @param pageable страница результатов
+     * @return список вещей, удовлетворяющих условию поиска
+     */
+    List<Item> search(String text,
+                      Pageable pageable);
+
+    /**
+     * Учесть созданную или измененную вещь. Движкам, которые ищут прямо в БД, делать ничего не нужно.
+     *
+     * @param item сохраненная вещь
+     */
+    default void index(Item item) {
+    }
+
+    /**
+     * Учесть удаление всех вещей владельца. Вызывается до удаления, пока вещи еще есть в БД.
+     *
+     * @param ownerId id владельца
+     */
+    default void removeAllByOwner(Long ownerId) {
+    }
+}
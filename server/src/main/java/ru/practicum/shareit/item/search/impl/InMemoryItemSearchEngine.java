@@ -0,0 +1,117 @@
+package ru.practicum.shareit.item.search.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.IItemSearchEngine;
+import ru.practicum.shareit.util.OffsetBasedPageRequest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Поиск по триграммному индексу в памяти процесса. Индекс строится из БД при старте
+ * и обновляется при создании и изменении вещей, в БД идем только за найденными вещами.
+ * Каждый узел видит только свои изменения, поэтому движок рассчитан на один экземпляр сервера.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "memory")
+public class InMemoryItemSearchEngine implements IItemSearchEngine {
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final ItemRepository itemRepository;
+    private final TrigramIndex index = new TrigramIndex();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        TrigramIndex.Loader loader = index.loader();
+        Long lastId = 0L;
+        List<Item> batch;
+        do {
+            batch = itemRepository.findAllByAvailableTrueAndIdGreaterThanOrderByIdAsc(lastId,
+                    new OffsetBasedPageRequest(0, LOAD_BATCH_SIZE));
+            batch.forEach(item -> loader.add(item.getId(), item.getName(), item.getDescription()));
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1)
+                        .getId();
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+        loader.finish();
+        log.info("Item search index built: {} available items", index.size());
+    }
+
+    @Override
+    public List<Item> search(String text,
+                             Pageable pageable) {
+        List<Long> ids = index.search(text, pageable.getOffset(), pageable.getPageSize());
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        /*Вещь могла быть удалена вместе с владельцем, такие id просто пропускаем*/
+        Map<Long, Item> itemsById = itemRepository.findAllById(ids)
+                .stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        return ids.stream()
+                .map(itemsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void index(Item item) {
+        /*В индекс попадают только закоммиченные изменения*/
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            apply(item);
+                        }
+                    });
+        } else {
+            apply(item);
+        }
+    }
+
+    @Override
+    public void removeAllByOwner(Long ownerId) {
+        List<Long> ids = itemRepository.findIdsByOwner(ownerId);
+        if (ids.isEmpty()) {
+            return;
+        }
+        Runnable removal = () -> ids.forEach(index::remove);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            removal.run();
+                        }
+                    });
+        } else {
+            removal.run();
+        }
+    }
+
+    private void apply(Item item) {
+        if (Boolean.TRUE.equals(item.getAvailable())) {
+            index.put(item.getId(), item.getName(), item.getDescription());
+        } else {
+            index.remove(item.getId());
+        }
+    }
+}
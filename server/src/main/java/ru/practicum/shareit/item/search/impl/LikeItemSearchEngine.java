@@ -0,0 +1,29 @@
+package ru.practicum.shareit.item.search.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.IItemSearchEngine;
+
+import java.util.List;
+
+/**
+ * Поиск через like по подстроке. Работает на любой БД, в том числе на H2 в тестах,
+ * но всегда читает таблицу вещей целиком.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "like", matchIfMissing = true)
+public class LikeItemSearchEngine implements IItemSearchEngine {
+
+    private final ItemRepository itemRepository;
+
+    @Override
+    public List<Item> search(String text,
+                             Pageable pageable) {
+        return itemRepository.search(text, pageable);
+    }
+}
@@ -0,0 +1,366 @@
+package ru.practicum.shareit.item.search.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Инвертированный индекс по триграммам: триграмма -> отсортированное множество id документов.
+ * Поиск по подстроке пересекает списки триграмм запроса и проверяет кандидатов по исходному
+ * тексту, поэтому совпадения те же, что у like '%text%'.
+ * <p>
+ * Потокобезопасен, поиск не берет блокировок. Списки триграмм - конкурентные skip list, поэтому
+ * put и remove меняют только затронутые триграммы за логарифм от длины списка и не ждут поиска.
+ * Изменения одного документа упорядочены через {@link ConcurrentMap#compute}, а поиск,
+ * увидевший документ посреди изменения, отсеет его проверкой по тексту.
+ * Полная загрузка идет через {@link Loader}: id копятся в растущих буферах и сортируются один раз,
+ * а готовое содержимое подменяется целиком.
+ */
+public class TrigramIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private volatile Contents contents = new Contents();
+    /*Id, измененные через put и remove во время загрузки: их состояние в индексе новее загруженного*/
+    private final Set<Long> touchedDuringLoad = ConcurrentHashMap.newKeySet();
+    private volatile boolean loading;
+    /*Изменения идут параллельно под общей блокировкой, подмена содержимого загрузчиком - под эксклюзивной*/
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Добавить или заменить документ
+     *
+     * @param id    id документа
+     * @param texts поля документа, по которым ищем
+     */
+    public void put(long id,
+                    String... texts) {
+        String[] lowerTexts = toLowerCase(texts);
+        lock.readLock()
+                .lock();
+        try {
+            if (loading) {
+                touchedDuringLoad.add(id);
+            }
+            contents.put(id, lowerTexts);
+        } finally {
+            lock.readLock()
+                    .unlock();
+        }
+    }
+
+    /**
+     * Удалить документ, если он есть в индексе
+     *
+     * @param id id документа
+     */
+    public void remove(long id) {
+        lock.readLock()
+                .lock();
+        try {
+            if (loading) {
+                touchedDuringLoad.add(id);
+            }
+            contents.remove(id);
+        } finally {
+            lock.readLock()
+                    .unlock();
+        }
+    }
+
+    /**
+     * Начать полную загрузку индекса. Документы загрузчика заменят содержимое индекса
+     * в {@link Loader#finish()}, кроме тех, что за время загрузки изменили через put и remove.
+     *
+     * @return загрузчик
+     */
+    public Loader loader() {
+        lock.writeLock()
+                .lock();
+        try {
+            loading = true;
+            touchedDuringLoad.clear();
+            return new Loader();
+        } finally {
+            lock.writeLock()
+                    .unlock();
+        }
+    }
+
+    /**
+     * Найти документы, в одном из полей которых встречается подстрока
+     *
+     * @param text   подстрока
+     * @param offset сколько совпадений пропустить
+     * @param limit  сколько совпадений вернуть
+     * @return id совпавших документов по возрастанию
+     */
+    public List<Long> search(String text,
+                             long offset,
+                             int limit) {
+        String query = text.toLowerCase(Locale.ROOT);
+        Contents current = contents;
+        List<Long> result = new ArrayList<>();
+        long skipped = 0;
+        for (long id : current.candidates(query)) {
+            if (!matches(current.documents.get(id), query)) {
+                continue;
+            }
+            if (skipped++ < offset) {
+                continue;
+            }
+            result.add(id);
+            if (result.size() == limit) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return contents.documents.size();
+    }
+
+    private static String[] toLowerCase(String[] texts) {
+        return Arrays.stream(texts)
+                .map(text -> text == null ? "" : text.toLowerCase(Locale.ROOT))
+                .toArray(String[]::new);
+    }
+
+    private static boolean matches(String[] texts,
+                                   String query) {
+        if (texts == null) {
+            return false;
+        }
+        for (String text : texts) {
+            if (text.contains(query)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<String> trigrams(String... texts) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (String text : texts) {
+            for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+                grams.add(text.substring(i, i + GRAM_LENGTH));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * Документы и списки триграмм. Загрузчик собирает новое содержимое целиком и подменяет старое.
+     */
+    private static class Contents {
+
+        private final ConcurrentMap<String, Posting> postings = new ConcurrentHashMap<>();
+        /*Тексты документов в нижнем регистре, нужны для проверки кандидатов и удаления триграмм*/
+        private final ConcurrentMap<Long, String[]> documents = new ConcurrentHashMap<>();
+        /*Все id документов по возрастанию, для запросов короче триграммы*/
+        private final NavigableSet<Long> allIds = new ConcurrentSkipListSet<>();
+
+        /*Сначала добавляем новые триграммы, потом убираем устаревшие: совпадение по общей
+         * для старого и нового текста триграмме не пропадает из поиска посреди замены*/
+        void put(long id,
+                 String[] lowerTexts) {
+            documents.compute(id, (key, oldTexts) -> {
+                Set<String> grams = trigrams(lowerTexts);
+                grams.forEach(gram -> add(gram, id));
+                if (oldTexts == null) {
+                    allIds.add(id);
+                } else {
+                    Set<String> staleGrams = trigrams(oldTexts);
+                    staleGrams.removeAll(grams);
+                    staleGrams.forEach(gram -> delete(gram, id));
+                }
+                return lowerTexts;
+            });
+        }
+
+        void remove(long id) {
+            documents.computeIfPresent(id, (key, oldTexts) -> {
+                allIds.remove(id);
+                trigrams(oldTexts).forEach(gram -> delete(gram, id));
+                return null;
+            });
+        }
+
+        private void add(String gram,
+                         long id) {
+            postings.compute(gram, (key, posting) -> {
+                Posting result = posting == null ? new Posting() : posting;
+                result.add(id);
+                return result;
+            });
+        }
+
+        /*Пустой список удаляется из карты атомарно с последним id, чтобы не потерять параллельную вставку*/
+        private void delete(String gram,
+                            long id) {
+            postings.computeIfPresent(gram, (key, posting) -> {
+                posting.delete(id);
+                return posting.isEmpty() ? null : posting;
+            });
+        }
+
+        /*Кандидаты по возрастанию id: идем по самому короткому списку и проверяем остальные*/
+        Iterable<Long> candidates(String query) {
+            if (query.length() < GRAM_LENGTH) {
+                return allIds;
+            }
+            List<Posting> lists = new ArrayList<>();
+            for (String gram : trigrams(query)) {
+                Posting posting = postings.get(gram);
+                if (posting == null) {
+                    return List.of();
+                }
+                lists.add(posting);
+            }
+            lists.sort(Comparator.comparingInt(Posting::size));
+            Posting shortest = lists.get(0);
+            List<Posting> others = lists.subList(1, lists.size());
+            return () -> shortest.ids.stream()
+                    .filter(id -> others.stream()
+                            .allMatch(posting -> posting.ids.contains(id)))
+                    .iterator();
+        }
+    }
+
+    /**
+     * Список id документов одной триграммы. Размер хранится отдельно: у skip list он считается обходом,
+     * а нужен только для выбора самого короткого списка при пересечении.
+     */
+    private static class Posting {
+
+        private final NavigableSet<Long> ids = new ConcurrentSkipListSet<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        void add(long id) {
+            if (ids.add(id)) {
+                size.incrementAndGet();
+            }
+        }
+
+        void delete(long id) {
+            if (ids.remove(id)) {
+                size.decrementAndGet();
+            }
+        }
+
+        boolean isEmpty() {
+            return size.get() == 0;
+        }
+
+        int size() {
+            return size.get();
+        }
+    }
+
+    /**
+     * Полная загрузка индекса. Не потокобезопасен, заполняется из одного потока.
+     */
+    public class Loader {
+
+        private final Map<String, LongBuffer> loadedPostings = new HashMap<>();
+        private final Map<Long, String[]> loadedDocuments = new HashMap<>();
+        private final LongBuffer loadedIds = new LongBuffer();
+
+        /**
+         * Добавить документ. Каждый id добавляется один раз за загрузку.
+         *
+         * @param id    id документа
+         * @param texts поля документа, по которым ищем
+         */
+        public void add(long id,
+                        String... texts) {
+            String[] lowerTexts = toLowerCase(texts);
+            loadedDocuments.put(id, lowerTexts);
+            loadedIds.add(id);
+            for (String gram : trigrams(lowerTexts)) {
+                loadedPostings.computeIfAbsent(gram, key -> new LongBuffer())
+                        .add(id);
+            }
+        }
+
+        /**
+         * Заменить содержимое индекса загруженными документами.
+         * Новое содержимое собирается без блокировки, изменения ждут только возврата
+         * документов, измененных за время загрузки.
+         */
+        public void finish() {
+            Contents loaded = new Contents();
+            loadedPostings.forEach((gram, ids) -> {
+                Posting posting = new Posting();
+                for (long id : ids.freeze()) {
+                    posting.add(id);
+                }
+                loaded.postings.put(gram, posting);
+            });
+            for (long id : loadedIds.freeze()) {
+                loaded.allIds.add(id);
+            }
+            loaded.documents.putAll(loadedDocuments);
+            lock.writeLock()
+                    .lock();
+            try {
+                /*Изменений за время загрузки немного: убираем их загруженное состояние и возвращаем текущее*/
+                for (Long id : touchedDuringLoad) {
+                    loaded.remove(id);
+                    String[] texts = contents.documents.get(id);
+                    if (texts != null) {
+                        loaded.put(id, texts);
+                    }
+                }
+                contents = loaded;
+                touchedDuringLoad.clear();
+                loading = false;
+            } finally {
+                lock.writeLock()
+                        .unlock();
+            }
+        }
+    }
+
+    private static class LongBuffer {
+
+        private long[] values = new long[4];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        /*Сортирует один раз и отбрасывает повторы: skip list быстрее заполняется по возрастанию*/
+        long[] freeze() {
+            Arrays.sort(values, 0, size);
+            long[] result = new long[size];
+            int frozen = 0;
+            for (int i = 0; i < size; i++) {
+                long value = values[i];
+                if (frozen > 0 && result[frozen - 1] == value) {
+                    continue;
+                }
+                result[frozen++] = value;
+            }
+            return Arrays.copyOf(result, frozen);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package ru.practicum.shareit.item.search.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.IItemSearchEngine;
+
+import java.util.List;
+
+/**
+ * Поиск на Postgres по триграммным GIN индексам (pg_trgm) из миграции db/migration/postgresql.
+ * Совпадения те же, что у like, но индекс отсекает неподходящие строки,
+ * а результаты отсортированы по похожести на запрос.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "trigram")
+public class TrigramItemSearchEngine implements IItemSearchEngine {
+
+    private final ItemRepository itemRepository;
+
+    @Override
+    public List<Item> search(String text,
+                             Pageable pageable) {
+        return itemRepository.searchRankedByTrigram(text, pageable);
+    }
+}
@@ -5,6 +5,7 @@ import ru.practicum.shareit.item.dto.CommentDtoOut;
 import ru.practicum.shareit.item.dto.ItemDto;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface IItemService {
 
@@ -18,6 +19,17 @@ public interface IItemService {
     ItemDto getById(Long itemId,
                     Long userId);
 
+    /**
+     * Получить тег версии карточки вещи для ETag без сборки карточки
+     *
+     * @param itemId id вещи
+     * @param userId id пользователя: владелец видит бронирования, и тег у него свой
+     * @return тег, меняющийся при любом изменении ответа getById, либо пустой Optional,
+     * если вещи нет
+     */
+    Optional<String> getVersionTag(Long itemId,
+                                   Long userId);
+
     List<ItemDto> getAllOwnerItemsByOwnerId(Long ownerId,
                                             Integer from,
                                             Integer size);
@@ -23,13 +23,21 @@ import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.IItemSearchEngine;
 import ru.practicum.shareit.item.service.IItemService;
+import ru.practicum.shareit.item.version.ItemVersionIncrementer;
+import ru.practicum.shareit.user.existence.UserExistenceFilter;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.util.OffsetBasedPageRequest;
 
+import java.time.Clock;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -40,10 +48,14 @@ public class ItemService implements IItemService {
     private final ItemMapper itemMapper;
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final UserExistenceFilter userExistenceFilter;
     private final BookingRepository bookingRepository;
     private final BookingMapper bookingMapper;
     private final CommentRepository commentRepository;
     private final CommentMapper commentMapper;
+    private final IItemSearchEngine itemSearchEngine;
+    private final Clock clock;
+    private final ItemVersionIncrementer itemVersionIncrementer;
 
     @Override
     @Transactional
@@ -51,7 +63,9 @@ public class ItemService implements IItemService {
                           ItemDto itemDto) {
         throwIfUserNotFound(userId);
         itemDto.setOwner(userId);
-        return itemMapper.toItemDto(itemRepository.save(itemMapper.toItem(itemDto)));
+        Item savedItem = itemRepository.save(itemMapper.toItem(itemDto));
+        itemSearchEngine.index(savedItem);
+        return itemMapper.toItemDto(savedItem);
     }
 
     @Override
@@ -62,7 +76,7 @@ public class ItemService implements IItemService {
         throwIfUserNotFound(userId);
         throwIfAllFieldsAreNull(itemDto);
         Item existingItem = getItemOrThrow(itemId);
-        throwIfNotOwner(userId, itemId);
+        throwIfNotOwner(userId, existingItem);
         if (itemDto.getName() != null) {
             existingItem.setName(itemDto.getName());
         }
@@ -72,7 +86,9 @@ public class ItemService implements IItemService {
         if (itemDto.getAvailable() != null) {
             existingItem.setAvailable(itemDto.getAvailable());
         }
-        return itemMapper.toItemDto(itemRepository.save(existingItem));
+        Item savedItem = itemRepository.save(existingItem);
+        itemSearchEngine.index(savedItem);
+        return itemMapper.toItemDto(savedItem);
     }
 
     @Override
@@ -81,11 +97,22 @@ public class ItemService implements IItemService {
                            Long userId) {
         Item item = getItemOrThrow(itemId);
         ItemDto itemDto = itemMapper.toItemDto(item);
-        setBookings(itemDto, userId);
-        setComments(itemDto);
+        setBookings(List.of(itemDto), userId);
+        setComments(List.of(itemDto));
         return itemDto;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<String> getVersionTag(Long itemId,
+                                          Long userId) {
+        /*Владельцу показываем еще и последнюю и следующую брони*/
+        return itemRepository.findVersionById(itemId)
+                .map(version -> version.getOwner()
+                        .equals(userId) ? version.getVersion() + "-o"
+                        : String.valueOf(version.getVersion()));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<ItemDto> getAllOwnerItemsByOwnerId(Long ownerId,
@@ -93,15 +120,13 @@ public class ItemService implements IItemService {
                                                    Integer size) {
         Pageable pageable = new OffsetBasedPageRequest(from, size,
                 Sort.by(Sort.Direction.ASC, "id"));
-        return itemRepository.findAllByOwner(ownerId, pageable)
+        List<ItemDto> items = itemRepository.findAllByOwner(ownerId, pageable)
                 .stream()
-                .map(item -> {
-                    ItemDto itemDto = itemMapper.toItemDto(item);
-                    setBookings(itemDto, ownerId);
-                    setComments(itemDto);
-                    return itemDto;
-                })
+                .map(itemMapper::toItemDto)
                 .collect(Collectors.toList());
+        setBookings(items, ownerId);
+        setComments(items);
+        return items;
     }
 
     @Override
@@ -113,7 +138,7 @@ public class ItemService implements IItemService {
             return List.of();
         }
         Pageable pageable = new OffsetBasedPageRequest(from, size);
-        return itemRepository.search(name, pageable)
+        return itemSearchEngine.search(name, pageable)
                 .stream()
                 .map(itemMapper::toItemDto)
                 .collect(Collectors.toList());
@@ -126,43 +151,76 @@ public class ItemService implements IItemService {
                                     CommentDtoIn commentDtoIn) {
         User user = getUserOrThrow(userId);
         Item item = getItemOrThrow(itemId);
+        /*Один момент времени и для проверки брони, и для даты комментария*/
+        LocalDateTime now = LocalDateTime.now(clock);
         /*Сразу взяли все прошедшие брони*/
         Booking booking = bookingRepository.findFirstByBookerIdAndItemIdAndEndIsBefore(userId,
-                        itemId, LocalDateTime.now())
+                        itemId, now)
                 .orElseThrow(() -> new BadRequestException("You can't comment on this item"));
+        /*Комментарий виден в карточке вещи: поднимаем ее версию, чтобы сменился ETag*/
+        itemVersionIncrementer.increment(item);
         return commentMapper.toCommentDtoOut(commentRepository.save(Comment.builder()
                 .text(commentDtoIn.getText())
                 .author(user)
                 .item(item)
-                .created(LocalDateTime.now())
+                .created(now)
                 .build()));
     }
 
-    private void setBookings(ItemDto itemDto,
+    /**
+     * Проставляет последнее и следующее бронирование сразу для всей страницы вещей.
+     * Бронирования видит только владелец, поэтому берем только его вещи.
+     * Два запроса на страницу вне зависимости от ее размера.
+     */
+    private void setBookings(List<ItemDto> items,
                              Long userId) {
-        if (itemDto.getOwner()
-                .equals(userId)) {
-            BookingDtoOut lastBooking
-                    = bookingRepository.findFirstByItemOwnerAndItemIdAndStartIsBeforeAndStatusOrderByStartDesc(
-                            userId, itemDto.getId(), LocalDateTime.now(), Status.APPROVED)
-                    .map(bookingMapper::toBookingDtoOut)
-                    .orElse(null);
-            BookingDtoOut nextBooking
-                    = bookingRepository.findFirstByItemOwnerAndItemIdAndStartIsAfterAndStatusOrderByStartAsc(
-                            userId, itemDto.getId(), LocalDateTime.now(), Status.APPROVED)
-                    .map(bookingMapper::toBookingDtoOut)
-                    .orElse(null);
-            itemDto.setLastBooking(lastBooking);
-            itemDto.setNextBooking(nextBooking);
+        List<Long> ownItemIds = items.stream()
+                .filter(itemDto -> itemDto.getOwner()
+                        .equals(userId))
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
+        if (ownItemIds.isEmpty()) {
+            return;
         }
+        LocalDateTime now = LocalDateTime.now(clock);
+        Map<Long, BookingDtoOut> lastBookings = groupFirstByItemId(
+                bookingRepository.findLastBookingsByItemIds(ownItemIds, now, Status.APPROVED));
+        Map<Long, BookingDtoOut> nextBookings = groupFirstByItemId(
+                bookingRepository.findNextBookingsByItemIds(ownItemIds, now, Status.APPROVED));
+        for (ItemDto itemDto : items) {
+            if (itemDto.getOwner()
+                    .equals(userId)) {
+                itemDto.setLastBooking(lastBookings.get(itemDto.getId()));
+                itemDto.setNextBooking(nextBookings.get(itemDto.getId()));
+            }
+        }
+    }
+
+    /*Если у вещи несколько броней с одинаковым стартом, оставляем первую*/
+    private Map<Long, BookingDtoOut> groupFirstByItemId(List<Booking> bookings) {
+        return bookings.stream()
+                .map(bookingMapper::toBookingDtoOut)
+                .collect(Collectors.toMap(BookingDtoOut::getItemId, Function.identity(),
+                        (first, second) -> first));
     }
 
-    private void setComments(ItemDto itemDto) {
-        List<CommentDtoOut> comments = commentRepository.findAllByItemId(itemDto.getId())
+    /**
+     * Проставляет комментарии сразу для всей страницы вещей одним запросом.
+     */
+    private void setComments(List<ItemDto> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        List<Long> itemIds = items.stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
+        Map<Long, List<CommentDtoOut>> comments = commentRepository.findAllByItemIdIn(itemIds)
                 .stream()
                 .map(commentMapper::toCommentDtoOut)
-                .collect(Collectors.toList());
-        itemDto.setComments(comments);
+                .collect(Collectors.groupingBy(CommentDtoOut::getItemId));
+        for (ItemDto itemDto : items) {
+            itemDto.setComments(comments.getOrDefault(itemDto.getId(), new ArrayList<>()));
+        }
     }
 
     private User getUserOrThrow(Long userId) {
@@ -177,18 +235,14 @@ public class ItemService implements IItemService {
                         String.format("Item with id %d not found", itemId)));
     }
 
+    /*existsById всегда идет в БД запросом count, а findById сначала смотрит в кэш второго уровня*/
     private void throwIfUserNotFound(Long userId) {
-        if (!userRepository.existsById(userId)) {
+        if (userExistenceFilter.isDefinitelyAbsent(userId) || userRepository.findById(userId)
+                .isEmpty()) {
             throw new ResourceNotFoundException(String.format("User with id %d not found", userId));
         }
     }
 
-    private void throwIfItemNotFound(Long itemId) {
-        if (!itemRepository.existsById(itemId)) {
-            throw new ResourceNotFoundException(String.format("Item with id %d not found", itemId));
-        }
-    }
-
     private void throwIfAllFieldsAreNull(ItemDto itemDto) {
         if (itemDto.getName() == null && itemDto.getDescription() == null
                 && itemDto.getAvailable() == null && itemDto.getRequestId() == null) {
@@ -198,11 +252,12 @@ public class ItemService implements IItemService {
     }
 
     private void throwIfNotOwner(Long userId,
-                                 Long itemId) {
-        if (!itemRepository.existsByIdAndOwner(itemId, userId)) {
+                                 Item item) {
+        if (!item.getOwner()
+                .equals(userId)) {
             throw new IllegalOwnerException(
                     String.format("User with id %d is not owner of item with id %d", userId,
-                            itemId));
+                            item.getId()));
         }
     }
 }
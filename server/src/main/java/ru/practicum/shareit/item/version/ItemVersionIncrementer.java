@@ -0,0 +1,61 @@
+package ru.practicum.shareit.item.version;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.model.Item;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Поднимает версию вещи, когда в ее карточке меняется что-то кроме самой вещи:
+ * комментарии, последняя и следующая брони, имена их авторов. По версии считается ETag карточки.
+ * Версию поднимает Hibernate при коммите (OPTIMISTIC_FORCE_INCREMENT). Запись в кэше второго
+ * уровня он сбрасывает уже при блокировке, и до коммита параллельное чтение может вернуть туда
+ * старую версию. Поэтому после коммита вещь еще раз убирается из кэша, иначе следующее
+ * изменение вещи из кэша упадет на старой версии.
+ */
+@Component
+@RequiredArgsConstructor
+public class ItemVersionIncrementer {
+
+    private final EntityManager entityManager;
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Поднять версию вещи при коммите текущей транзакции
+     *
+     * @param item вещь, загруженная в этой транзакции
+     */
+    public void increment(Item item) {
+        increment(List.of(item));
+    }
+
+    /**
+     * Поднять версии вещей при коммите текущей транзакции
+     *
+     * @param items вещи, загруженные в этой транзакции
+     */
+    public void increment(Collection<Item> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        items.forEach(item -> entityManager.lock(item, LockModeType.OPTIMISTIC_FORCE_INCREMENT));
+        List<Long> ids = items.stream()
+                .map(Item::getId)
+                .collect(Collectors.toList());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ids.forEach(id -> entityManagerFactory.getCache()
+                        .evict(Item.class, id));
+            }
+        });
+    }
+}
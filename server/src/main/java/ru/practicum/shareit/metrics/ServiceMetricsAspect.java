@@ -0,0 +1,87 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Метрики слоя сервисов и репозиториев:
+ * <ul>
+ *     <li>shareit.service.calls - время каждого метода I*Service с исходом и исключением;</li>
+ *     <li>shareit.service.result.size - размер списков, которые вернули сервисы;</li>
+ *     <li>shareit.repository.result.size - размер списков, которые вернули репозитории.</li>
+ * </ul>
+ * Время и ошибки репозиториев Spring Boot пишет сам в spring.data.repository.invocations.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ServiceMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("execution(public * ru.practicum.shareit..service.I*Service.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        String service = AopUtils.getTargetClass(joinPoint.getTarget())
+                .getSimpleName();
+        String method = joinPoint.getSignature()
+                .getName();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        String exception = "none";
+        try {
+            Object result = joinPoint.proceed();
+            recordSize("shareit.service.result.size", "service", service, method, result);
+            return result;
+        } catch (Throwable e) {
+            outcome = "error";
+            exception = e.getClass()
+                    .getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("shareit.service.calls")
+                    .tags("service", service, "method", method, "outcome", outcome,
+                            "exception", exception)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object measureRepositoryResult(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object result = joinPoint.proceed();
+        if (result instanceof Collection) {
+            /*Цель - прокси Spring Data, имя репозитория берем из его интерфейса*/
+            Class<?>[] interfaces = AopProxyUtils.proxiedUserInterfaces(joinPoint.getTarget());
+            recordSize("shareit.repository.result.size", "repository",
+                    interfaces[0].getSimpleName(), joinPoint.getSignature()
+                            .getName(), result);
+        }
+        return result;
+    }
+
+    private void recordSize(String name,
+                            String ownerTag,
+                            String owner,
+                            String method,
+                            Object result) {
+        if (!(result instanceof Collection)) {
+            return;
+        }
+        DistributionSummary.builder(name)
+                .baseUnit("rows")
+                .tags(ownerTag, owner, "method", method)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(((Collection<?>) result).size());
+    }
+}
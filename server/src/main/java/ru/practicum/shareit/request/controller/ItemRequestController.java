@@ -7,6 +7,7 @@ import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.request.dto.ItemRequestDtoIn;
 import ru.practicum.shareit.request.dto.ItemRequestDtoOut;
 import ru.practicum.shareit.request.service.IItemRequestService;
+import ru.practicum.shareit.util.KeysetCursor;
 
 import java.util.List;
 
@@ -17,6 +18,7 @@ import java.util.List;
 public class ItemRequestController {
 
     private final String requestHeader = "X-Sharer-User-Id";
+    private final String nextCursorHeader = "X-Next-Cursor";
     private final IItemRequestService itemRequestService;
 
     /**
@@ -64,16 +66,38 @@ public class ItemRequestController {
     /**
      * Получение всех заявок от других пользователей.
      *
+     * Если передан cursor, страница строится по курсору, а from игнорируется.
+     *
      * @param userId идентификатор пользователя
      * @param from   с какой позиции начинать
      * @param size   сколько элементов возвращать
+     * @param cursor курсор из заголовка X-Next-Cursor предыдущей страницы
      * @return список заявок
      */
     @GetMapping("/all")
     public ResponseEntity<List<ItemRequestDtoOut>> getAllRequests(
             @RequestParam(name = "from", defaultValue = "0") Integer from,
             @RequestParam(name = "size", defaultValue = "10") Integer size,
-            @RequestHeader(name = requestHeader) Long userId) {
-        return ResponseEntity.ok(itemRequestService.getAllFromOthers(userId, from, size));
+            @RequestHeader(name = requestHeader) Long userId,
+            @RequestParam(name = "cursor", required = false) String cursor) {
+        if (cursor == null) {
+            return ResponseEntity.ok(itemRequestService.getAllFromOthers(userId, from, size));
+        }
+        return withNextCursor(itemRequestService.getAllFromOthersAfter(userId, cursor, size), size);
+    }
+
+    /**
+     * Полная страница в режиме курсора отдает в заголовке курсор следующей страницы.
+     * Неполная страница последняя, заголовка у нее нет.
+     */
+    private ResponseEntity<List<ItemRequestDtoOut>> withNextCursor(List<ItemRequestDtoOut> requests,
+                                                                   Integer size) {
+        if (requests.size() < size) {
+            return ResponseEntity.ok(requests);
+        }
+        ItemRequestDtoOut last = requests.get(requests.size() - 1);
+        return ResponseEntity.ok()
+                .header(nextCursorHeader, new KeysetCursor(last.getCreated(), last.getId()).encode())
+                .body(requests);
     }
 }
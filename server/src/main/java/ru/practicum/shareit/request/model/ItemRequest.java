@@ -4,11 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import ru.practicum.shareit.item.model.Item;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
-import java.util.List;
 
 /**
  * TODO Sprint add-item-requests.
@@ -29,7 +27,4 @@ public class ItemRequest {
     private Long requestor;
     @Column(name = "created", nullable = false)
     private LocalDateTime created;
-    @OneToMany
-    @JoinColumn(name = "request_id")
-    private List<Item> items;
 }
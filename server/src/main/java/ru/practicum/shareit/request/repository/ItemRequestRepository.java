@@ -1,10 +1,11 @@
 package ru.practicum.shareit.request.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
@@ -21,12 +22,31 @@ public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long>
     /**
      * Получение списка заявок на вещи других пользователей,
      * которые не принадлежат пользователю.
-     * Режим сортировки задается в параметре Pageable
+     * Режим сортировки задается в параметре Pageable.
+     * Возвращает List, а не Page: count(*) почти по всей таблице сервису не нужен
      *
      * @param userId   идентификатор пользователя
      * @param pageable параметры пагинации
      * @return список заявок
      */
-    Page<ItemRequest> findAllByRequestorNot(Long userId,
+    List<ItemRequest> findAllByRequestorNot(Long userId,
                                             Pageable pageable);
+
+    /**
+     * Keyset-страница заявок других пользователей.
+     * Возвращает заявки строго после курсора (created, id) в порядке убывания
+     *
+     * @param userId   идентификатор пользователя
+     * @param created  created последней заявки предыдущей страницы
+     * @param id       id последней заявки предыдущей страницы
+     * @param pageable размер страницы
+     * @return список заявок
+     */
+    @Query("SELECT r FROM ItemRequest r" + " where r.requestor <> ?1"
+            + " and (r.created < ?2 or (r.created = ?2 and r.id < ?3))"
+            + " order by r.created desc, r.id desc")
+    List<ItemRequest> findAllByRequestorNotBefore(Long userId,
+                                                  LocalDateTime created,
+                                                  Long id,
+                                                  Pageable pageable);
 }
@@ -50,4 +50,16 @@ public interface IItemRequestService {
     List<ItemRequestDtoOut> getAllFromOthers(Long userId,
                                              Integer from,
                                              Integer size);
+
+    /**
+     * Keyset-страница запросов других пользователей, начиная строго после курсора
+     *
+     * @param userId идентификатор пользователя, нужен, чтобы исключить его заявки из списка
+     * @param cursor курсор последней заявки предыдущей страницы, пустой - первая страница
+     * @param size   размер страницы
+     * @return List<ItemRequestDtoOut> список заявок
+     */
+    List<ItemRequestDtoOut> getAllFromOthersAfter(Long userId,
+                                                  String cursor,
+                                                  Integer size);
 }
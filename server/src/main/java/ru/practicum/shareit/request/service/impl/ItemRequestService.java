@@ -6,16 +6,22 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.ResourceNotFoundException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.dto.ItemRequestDtoIn;
 import ru.practicum.shareit.request.dto.ItemRequestDtoOut;
 import ru.practicum.shareit.request.mapper.RequestMapper;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.request.service.IItemRequestService;
+import ru.practicum.shareit.user.existence.UserExistenceFilter;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.util.KeysetCursor;
 import ru.practicum.shareit.util.OffsetBasedPageRequest;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,8 +29,10 @@ import java.util.stream.Collectors;
 public class ItemRequestService implements IItemRequestService {
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final UserExistenceFilter userExistenceFilter;
     private final ItemRequestRepository itemRequestRepository;
     private final RequestMapper requestMapper;
+    private final ItemMapper itemMapper;
 
     @Override
     @Transactional
@@ -40,20 +48,25 @@ public class ItemRequestService implements IItemRequestService {
     public ItemRequestDtoOut getById(Long id,
                                      Long userId) {
         throwIfUserNotFound(userId);
-        return itemRequestRepository.findById(id)
+        ItemRequestDtoOut itemRequestDtoOut = itemRequestRepository.findById(id)
                 .map(requestMapper::toDtoOut)
                 .orElseThrow(() -> new ResourceNotFoundException(
                         String.format("Request with id %d not found", id)));
+        setItems(List.of(itemRequestDtoOut));
+        return itemRequestDtoOut;
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ItemRequestDtoOut> getAllByUserId(Long userId) {
         throwIfUserNotFound(userId);
-        return itemRequestRepository.findAllByRequestorOrderByCreatedDesc(userId)
+        List<ItemRequestDtoOut> requests = itemRequestRepository.findAllByRequestorOrderByCreatedDesc(
+                        userId)
                 .stream()
                 .map(requestMapper::toDtoOut)
                 .collect(Collectors.toList());
+        setItems(requests);
+        return requests;
     }
 
     @Override
@@ -64,14 +77,53 @@ public class ItemRequestService implements IItemRequestService {
         throwIfUserNotFound(userId);
         Pageable pageable = new OffsetBasedPageRequest(from, size,
                 Sort.by(Sort.Direction.DESC, "created"));
-        return itemRequestRepository.findAllByRequestorNot(userId, pageable)
+        List<ItemRequestDtoOut> requests = itemRequestRepository.findAllByRequestorNot(userId,
+                        pageable)
                 .stream()
                 .map(requestMapper::toDtoOut)
                 .collect(Collectors.toList());
+        setItems(requests);
+        return requests;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ItemRequestDtoOut> getAllFromOthersAfter(Long userId,
+                                                         String cursor,
+                                                         Integer size) {
+        throwIfUserNotFound(userId);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<ItemRequestDtoOut> requests = itemRequestRepository.findAllByRequestorNotBefore(userId,
+                        after.getTimestamp(), after.getId(), new OffsetBasedPageRequest(0, size))
+                .stream()
+                .map(requestMapper::toDtoOut)
+                .collect(Collectors.toList());
+        setItems(requests);
+        return requests;
+    }
+
+    /**
+     * Проставляет ответы (вещи) сразу для всей страницы запросов одним запросом.
+     */
+    private void setItems(List<ItemRequestDtoOut> requests) {
+        if (requests.isEmpty()) {
+            return;
+        }
+        List<Long> requestIds = requests.stream()
+                .map(ItemRequestDtoOut::getId)
+                .collect(Collectors.toList());
+        Map<Long, List<ItemDto>> items = itemRepository.findAllByRequestIn(requestIds)
+                .stream()
+                .map(itemMapper::toItemDto)
+                .collect(Collectors.groupingBy(ItemDto::getRequestId));
+        for (ItemRequestDtoOut request : requests) {
+            request.setItems(items.getOrDefault(request.getId(), new ArrayList<>()));
+        }
     }
 
     private void throwIfUserNotFound(Long userId) {
-        if (!userRepository.existsById(userId)) {
+        if (userExistenceFilter.isDefinitelyAbsent(userId) || userRepository.findById(userId)
+                .isEmpty()) {
             throw new ResourceNotFoundException(String.format("User with id %d not found", userId));
         }
     }
@@ -0,0 +1,75 @@
+package ru.practicum.shareit.tracing;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Спан на каждый вызов метода I*Service, дочерний к спану запроса. Запросы репозиториев
+ * внутри метода попадают в его спан, поэтому по трассе видно, какой SQL дал задержку.
+ * Аспект внешний по отношению к транзакции: получение соединения и commit тоже внутри спана.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Component
+@RequiredArgsConstructor
+public class ServiceTracingAspect {
+
+    public static final String USER_ID_TAG = "shareit.user.id";
+    public static final String STATE_TAG = "shareit.state";
+    public static final String FROM_TAG = "shareit.page.from";
+    public static final String SIZE_TAG = "shareit.page.size";
+    public static final String CURSOR_TAG = "shareit.page.cursor";
+
+    /*Аргументы методов сервисов, которые попадают в атрибуты спана*/
+    private static final Map<String, String> ARGUMENT_TAGS = Map.of(
+            "userId", USER_ID_TAG,
+            "ownerId", USER_ID_TAG,
+            "state", STATE_TAG,
+            "from", FROM_TAG,
+            "size", SIZE_TAG,
+            "cursor", CURSOR_TAG);
+
+    private final Tracer tracer;
+
+    @Around("execution(public * ru.practicum.shareit..service.I*Service.*(..))")
+    public Object traceService(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        Span span = tracer.nextSpan()
+                .name(AopUtils.getTargetClass(joinPoint.getTarget())
+                        .getSimpleName() + "." + signature.getName());
+        tagArguments(span, signature.getParameterNames(), joinPoint.getArgs());
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span.start())) {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    private static void tagArguments(Span span,
+                                     String[] names,
+                                     Object[] values) {
+        if (names == null) {
+            return;
+        }
+        for (int i = 0; i < names.length; i++) {
+            String tag = ARGUMENT_TAGS.get(names[i]);
+            if (tag != null && values[i] != null) {
+                span.tag(tag, values[i].toString());
+            }
+        }
+    }
+}
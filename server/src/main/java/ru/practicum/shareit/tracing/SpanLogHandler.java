@@ -0,0 +1,23 @@
+package ru.practicum.shareit.tracing;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Пишет каждый завершенный спан в лог одной строкой в формате Zipkin JSON v2.
+ * Заменяет коллектор при локальной отладке: строки можно вынести в отдельный файл
+ * настройкой логгера и загрузить в Zipkin или Jaeger.
+ */
+@Slf4j
+public class SpanLogHandler extends SpanHandler {
+
+    @Override
+    public boolean end(TraceContext context,
+                       MutableSpan span,
+                       Cause cause) {
+        log.info("{}", span);
+        return true;
+    }
+}
@@ -0,0 +1,67 @@
+package ru.practicum.shareit.tracing;
+
+import brave.SpanCustomizer;
+import brave.http.HttpRequest;
+import brave.http.HttpRequestParser;
+import brave.propagation.TraceContext;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.sleuth.instrument.web.HttpServerRequestParser;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+
+/**
+ * Настройки Sleuth. Контекст трассировки приходит от шлюза в заголовках, спаны контроллеров
+ * и SQL создает Sleuth, спаны сервисов - {@link ServiceTracingAspect}.
+ */
+@Configuration
+public class TracingConfig {
+
+    /*Параметры запроса, которые попадают в атрибуты спана сервера*/
+    private static final Map<String, String> PARAMETER_TAGS = Map.of(
+            "state", ServiceTracingAspect.STATE_TAG,
+            "from", ServiceTracingAspect.FROM_TAG,
+            "size", ServiceTracingAspect.SIZE_TAG,
+            "cursor", ServiceTracingAspect.CURSOR_TAG);
+
+    /**
+     * К стандартным атрибутам входящего запроса добавляет пользователя, state и параметры страницы.
+     */
+    @Bean(name = HttpServerRequestParser.NAME)
+    public HttpRequestParser sharerRequestParser() {
+        return new HttpRequestParser.Default() {
+            @Override
+            public void parse(HttpRequest request,
+                              TraceContext context,
+                              SpanCustomizer span) {
+                super.parse(request, context, span);
+                String userId = request.header("X-Sharer-User-Id");
+                if (userId != null) {
+                    span.tag(ServiceTracingAspect.USER_ID_TAG, userId);
+                }
+                String url = request.url();
+                if (url == null) {
+                    return;
+                }
+                MultiValueMap<String, String> parameters = UriComponentsBuilder.fromUriString(url)
+                        .build()
+                        .getQueryParams();
+                PARAMETER_TAGS.forEach((parameter, tag) -> {
+                    String value = parameters.getFirst(parameter);
+                    if (value != null) {
+                        span.tag(tag, value);
+                    }
+                });
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "shareit.tracing.log-spans", havingValue = "true")
+    public SpanLogHandler spanLogHandler() {
+        return new SpanLogHandler();
+    }
+}
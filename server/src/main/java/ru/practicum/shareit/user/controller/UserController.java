@@ -1,12 +1,18 @@
 package ru.practicum.shareit.user.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.impl.UserService;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
@@ -15,7 +21,10 @@ import java.util.List;
 @Slf4j
 public class UserController {
 
+    private final String nextCursorHeader = "X-Next-Cursor";
+    private final int defaultPageSize = 10;
     private final UserService userService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ResponseEntity<UserDto> createUser(@RequestBody UserDto userDto) {
@@ -44,9 +53,58 @@ public class UserController {
         return ResponseEntity.ok(userService.getById(userId));
     }
 
+    /**
+     * Все пользователи одним JSON массивом. Массив пишется в ответ по мере чтения из БД,
+     * поэтому память не зависит от размера таблицы.
+     */
     @GetMapping
-    public ResponseEntity<List<UserDto>> getAllUsers() {
+    public void getAllUsers(HttpServletResponse response) throws IOException {
         log.info("getAllUsers request");
-        return ResponseEntity.ok(userService.getAll());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator generator = objectMapper.createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            userService.getAll(user -> writeUser(generator, user));
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Страница пользователей по возрастанию id: по смещению from либо, если передан курсор,
+     * строго после него. Полная страница отдает курсор следующей в заголовке.
+     */
+    @GetMapping(params = "size")
+    public ResponseEntity<List<UserDto>> getUsersPage(
+            @RequestParam(name = "from", defaultValue = "0") Integer from,
+            @RequestParam(name = "size") Integer size,
+            @RequestParam(name = "cursor", required = false) Long cursor) {
+        log.info("getUsersPage request: from = {}, size = {}, cursor = {}", from, size, cursor);
+        List<UserDto> users = cursor == null ? userService.getAll(from, size)
+                : userService.getAllAfter(cursor, size);
+        if (users.size() < size) {
+            return ResponseEntity.ok(users);
+        }
+        return ResponseEntity.ok()
+                .header(nextCursorHeader, users.get(users.size() - 1)
+                        .getId()
+                        .toString())
+                .body(users);
+    }
+
+    /**
+     * Курсор без size: страница размера по умолчанию, курсор не теряется в полном списке
+     */
+    @GetMapping(params = {"cursor", "!size"})
+    public ResponseEntity<List<UserDto>> getUsersPageAfterCursor(
+            @RequestParam(name = "cursor") Long cursor) {
+        return getUsersPage(0, defaultPageSize, cursor);
+    }
+
+    private void writeUser(JsonGenerator generator,
+                           UserDto user) {
+        try {
+            generator.writeObject(user);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
     }
 }
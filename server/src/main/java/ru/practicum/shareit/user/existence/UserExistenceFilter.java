@@ -0,0 +1,89 @@
+package ru.practicum.shareit.user.existence;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.util.BloomFilter;
+import ru.practicum.shareit.util.OffsetBasedPageRequest;
+
+import java.util.List;
+
+/**
+ * Фильтр Блума по id пользователей перед проверкой пользователя в БД.
+ * Несуществующий id (например, мусор в X-Sharer-User-Id) обычно отсекается без запроса,
+ * "возможно есть" проверяется как раньше через findById, а существующие пользователи лежат
+ * в кэше второго уровня. Фильтр заполняется из БД при старте и пополняется при каждом
+ * сохранении нового пользователя через Hibernate, см. {@link UserExistenceListener}.
+ * Удаленные пользователи остаются в фильтре и отсекаются уже проверкой в БД.
+ * Пользователей, созданных другим экземпляром сервера, фильтр не видит, поэтому при
+ * нескольких экземплярах его нужно выключить: shareit.users.existence-filter.enabled=false.
+ */
+@Slf4j
+@Component
+public class UserExistenceFilter {
+
+    private static final int LOAD_BATCH_SIZE = 10000;
+
+    private final UserRepository userRepository;
+    private final BloomFilter filter;
+    private final boolean enabled;
+    /*До заполнения из БД фильтр ничего не отсекает*/
+    private volatile boolean loaded;
+
+    /*Репозиторий ленивый: слушатель сущности с этим фильтром создается вместе с EntityManagerFactory,
+     * от которой зависит сам репозиторий*/
+    public UserExistenceFilter(@Lazy UserRepository userRepository,
+                               @Value("${shareit.users.existence-filter.enabled:true}")
+                               boolean enabled,
+                               @Value("${shareit.users.existence-filter.expected-users:1000000}")
+                               long expectedUsers,
+                               @Value("${shareit.users.existence-filter.false-positive-probability:0.01}")
+                               double falsePositiveProbability) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.filter = new BloomFilter(expectedUsers, falsePositiveProbability);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        Long lastId = 0L;
+        long count = 0;
+        List<Long> batch;
+        do {
+            batch = userRepository.findIdsAfter(lastId,
+                    new OffsetBasedPageRequest(0, LOAD_BATCH_SIZE));
+            batch.forEach(filter::put);
+            count += batch.size();
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1);
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+        loaded = true;
+        log.info("User existence filter loaded: {} users", count);
+    }
+
+    /**
+     * Добавить пользователя в фильтр. Вызывается до коммита: если транзакция откатится,
+     * лишний id в фильтре дает только лишнюю проверку в БД.
+     *
+     * @param userId id пользователя
+     */
+    public void add(Long userId) {
+        filter.put(userId);
+    }
+
+    /**
+     * @param userId id пользователя
+     * @return true, если пользователя с таким id точно нет и в БД можно не ходить
+     */
+    public boolean isDefinitelyAbsent(Long userId) {
+        return enabled && loaded && !filter.mightContain(userId);
+    }
+}
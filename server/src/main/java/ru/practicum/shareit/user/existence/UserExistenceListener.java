@@ -0,0 +1,22 @@
+package ru.practicum.shareit.user.existence;
+
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.PostPersist;
+
+/**
+ * Добавляет каждого сохраненного пользователя в {@link UserExistenceFilter}, откуда бы ни
+ * пришло сохранение: из сервиса или напрямую из репозитория.
+ * Экземпляр создает Hibernate через контейнер бинов Spring, фильтр внедряется в конструктор.
+ */
+@RequiredArgsConstructor
+public class UserExistenceListener {
+
+    private final UserExistenceFilter userExistenceFilter;
+
+    @PostPersist
+    public void afterPersist(User user) {
+        userExistenceFilter.add(user.getId());
+    }
+}
@@ -4,15 +4,22 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import ru.practicum.shareit.user.existence.UserExistenceListener;
 
 import javax.persistence.*;
 
 /**
  * TODO Sprint add-controllers.
+ * Лежит в кэше второго уровня: пользователя из X-Sharer-User-Id проверяет почти каждый запрос.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 @Data
 @Builder
+@EntityListeners(UserExistenceListener.class)
 @Table(name = "users", schema = "PUBLIC")
 @NoArgsConstructor
 @AllArgsConstructor
@@ -24,4 +31,7 @@ public class User {
     private String name;
     @Column(name = "email", nullable = false)
     private String email;
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
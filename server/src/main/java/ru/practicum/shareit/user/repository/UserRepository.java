@@ -1,10 +1,22 @@
 package ru.practicum.shareit.user.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
+
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    /**
+     * Сколько строк забирать из БД за раз при чтении всех пользователей потоком
+     */
+    int STREAM_FETCH_SIZE = 500;
+
     /**
      * Проверка существования пользователя по email
      *
@@ -12,4 +24,40 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return true, если пользователь существует
      */
     boolean existsByEmail(String email);
+
+    /**
+     * Получить следующую порцию id пользователей после указанного, по возрастанию.
+     * Нужна для заполнения фильтра существования пользователей без offset.
+     *
+     * @param id       последний id предыдущей порции
+     * @param pageable размер порции
+     * @return список id
+     */
+    @Query("SELECT u.id FROM User u WHERE u.id > ?1 ORDER BY u.id")
+    List<Long> findIdsAfter(Long id,
+                            Pageable pageable);
+
+    /**
+     * Страница пользователей после указанного id, по возрастанию id.
+     * С id последнего пользователя предыдущей страницы это keyset-пагинация,
+     * с нулевым id и смещением в pageable - обычная.
+     *
+     * @param id       id последнего пользователя предыдущей страницы
+     * @param pageable смещение и размер страницы
+     * @return список пользователей
+     */
+    List<User> findAllByIdGreaterThanOrderByIdAsc(Long id,
+                                                  Pageable pageable);
+
+    /**
+     * Все пользователи по возрастанию id, курсором только вперед порциями по
+     * {@link #STREAM_FETCH_SIZE}. Поток нужно читать и закрыть внутри транзакции.
+     *
+     * @return поток пользователей
+     */
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheMode", value = "IGNORE")})
+    @Query("SELECT u FROM User u ORDER BY u.id")
+    Stream<User> streamAll();
 }
@@ -3,6 +3,7 @@ package ru.practicum.shareit.user.service;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface IUserService {
     UserDto create(UserDto userDto);
@@ -14,5 +15,30 @@ public interface IUserService {
 
     UserDto getById(Long userId);
 
-    List<UserDto> getAll();
+    /**
+     * Передать получателю всех пользователей по возрастанию id, по одному по мере чтения из БД
+     *
+     * @param consumer получатель пользователей
+     */
+    void getAll(Consumer<UserDto> consumer);
+
+    /**
+     * Страница пользователей по возрастанию id
+     *
+     * @param from сколько пользователей пропустить
+     * @param size размер страницы
+     * @return список пользователей
+     */
+    List<UserDto> getAll(Integer from,
+                         Integer size);
+
+    /**
+     * Keyset-страница пользователей по возрастанию id, начиная строго после курсора
+     *
+     * @param cursor id последнего пользователя предыдущей страницы
+     * @param size   размер страницы
+     * @return список пользователей
+     */
+    List<UserDto> getAllAfter(Long cursor,
+                              Integer size);
 }
@@ -4,14 +4,22 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.ResourceNotFoundException;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.IItemSearchEngine;
+import ru.practicum.shareit.item.version.ItemVersionIncrementer;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.service.IUserService;
+import ru.practicum.shareit.util.OffsetBasedPageRequest;
 
+import javax.persistence.EntityManager;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -19,6 +27,10 @@ public class UserService implements IUserService {
 
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final ItemRepository itemRepository;
+    private final IItemSearchEngine itemSearchEngine;
+    private final ItemVersionIncrementer itemVersionIncrementer;
+    private final EntityManager entityManager;
 
     @Override
     @Transactional
@@ -32,7 +44,10 @@ public class UserService implements IUserService {
                           UserDto userDto) {
         User existingUser = findByIdOrThrow(userId);
         if (userDto.getName() != null && !userDto.getName()
-                .isBlank()) {
+                .isBlank() && !userDto.getName()
+                .equals(existingUser.getName())) {
+            /*Имя видно в чужих карточках вещей в комментариях и бронях, их ETag должен смениться*/
+            itemVersionIncrementer.increment(itemRepository.findAllShowingUser(userId));
             existingUser.setName(userDto.getName());
         }
         if (userDto.getEmail() != null && !userDto.getEmail()
@@ -46,6 +61,11 @@ public class UserService implements IUserService {
     @Override
     @Transactional
     public void delete(Long userId) {
+        /*Вещи удаляем явно, чтобы их не осталось в кэше второго уровня и в индексе поиска*/
+        itemSearchEngine.removeAllByOwner(userId);
+        /*Каскад удалит и комментарии с бронями пользователя в чужих карточках*/
+        itemVersionIncrementer.increment(itemRepository.findAllShowingUser(userId));
+        itemRepository.deleteAllByOwner(userId);
         userRepository.deleteById(userId);
     }
 
@@ -58,9 +78,38 @@ public class UserService implements IUserService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<UserDto> getAll() {
-        return userRepository.findAll()
-                .stream()
+    public void getAll(Consumer<UserDto> consumer) {
+        int read = 0;
+        try (Stream<User> users = userRepository.streamAll()) {
+            Iterator<User> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(userMapper.toUserDto(iterator.next()));
+                /*Прочитанные сущности не держим в контексте, иначе память растет с таблицей*/
+                if (++read % UserRepository.STREAM_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserDto> getAll(Integer from,
+                                Integer size) {
+        return toUserDtos(userRepository.findAllByIdGreaterThanOrderByIdAsc(0L,
+                new OffsetBasedPageRequest(from, size)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserDto> getAllAfter(Long cursor,
+                                     Integer size) {
+        return toUserDtos(userRepository.findAllByIdGreaterThanOrderByIdAsc(cursor,
+                new OffsetBasedPageRequest(0, size)));
+    }
+
+    private List<UserDto> toUserDtos(List<User> users) {
+        return users.stream()
                 .map(userMapper::toUserDto)
                 .collect(Collectors.toList());
     }
@@ -0,0 +1,67 @@
+package ru.practicum.shareit.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Фильтр Блума для чисел: "точно не добавлялось" либо "возможно добавлялось".
+ * Ложных отрицательных ответов не бывает, ложные положительные с заданной вероятностью,
+ * пока число добавленных значений не превышает ожидаемое. Удалять значения нельзя.
+ * Потокобезопасен без блокировок: биты выставляются атомарно.
+ */
+public class BloomFilter {
+
+    private static final double LN_2 = Math.log(2);
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions       ожидаемое количество значений
+     * @param falsePositiveProbability допустимая доля ложных положительных ответов
+     */
+    public BloomFilter(long expectedInsertions,
+                       double falsePositiveProbability) {
+        long optimalBits = (long) Math.ceil(
+                -expectedInsertions * Math.log(falsePositiveProbability) / (LN_2 * LN_2));
+        int wordCount = (int) Math.max(1, (optimalBits + Long.SIZE - 1) / Long.SIZE);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount * Long.SIZE;
+        this.hashCount = (int) Math.max(1,
+                Math.round((double) bitCount / Math.max(1, expectedInsertions) * LN_2));
+    }
+
+    public void put(long value) {
+        long hash1 = mix(value);
+        long hash2 = mix(hash1);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    public boolean mightContain(long value) {
+        long hash1 = mix(value);
+        long hash2 = mix(hash1);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*Финализатор SplitMix64: id идут подряд, без перемешивания они легли бы в соседние биты*/
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
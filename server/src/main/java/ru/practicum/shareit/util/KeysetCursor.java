@@ -0,0 +1,57 @@
+package ru.practicum.shareit.util;
+
+import lombok.Data;
+import ru.practicum.shareit.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Непрозрачный курсор для keyset-пагинации по паре (время, id) в порядке убывания.
+ * Следующая страница начинается строго после строки, на которой закончилась предыдущая,
+ * поэтому БД не приходится пропускать уже отданные строки, как при offset.
+ */
+@Data
+public class KeysetCursor {
+    /**
+     * Курсор первой страницы: любая реальная строка лежит "раньше" него.
+     */
+    public static final KeysetCursor FIRST = new KeysetCursor(LocalDateTime.of(9999, 12, 31, 0, 0),
+            Long.MAX_VALUE);
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime timestamp;
+    private final Long id;
+
+    /**
+     * Разобрать курсор, полученный от клиента. Пустой курсор означает первую страницу.
+     *
+     * @param cursor строковое представление курсора
+     * @return курсор
+     * @throws BadRequestException если курсор поврежден
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder()
+                    .decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = decoded.indexOf(SEPARATOR);
+            return new KeysetCursor(LocalDateTime.parse(decoded.substring(0, separatorIndex)),
+                    Long.parseLong(decoded.substring(separatorIndex + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException
+                 | StringIndexOutOfBoundsException exception) {
+            throw new BadRequestException(String.format("Invalid cursor: %s", cursor));
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((timestamp + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
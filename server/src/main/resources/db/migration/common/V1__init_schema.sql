@@ -1,9 +1,3 @@
-drop table if exists USERS cascade;
-drop table if exists ITEMS cascade;
-drop table if exists BOOKINGS cascade;
-drop table if exists COMMENTS cascade;
-drop table if exists REQUESTS cascade;
-
 create table USERS
 (
     ID    BIGSERIAL,
@@ -65,6 +59,8 @@ create table BOOKINGS
             on update cascade on delete cascade
 );
 
+create index BOOKINGS_BOOKER_ID_START_DATE_ID_IDX on BOOKINGS (BOOKER_ID, START_DATE desc, ID desc);
+
 create table REQUESTS
 (
     ID          BIGSERIAL,
@@ -0,0 +1,14 @@
+-- Фаза бронирования (FUTURE, CURRENT, PAST): состояния CURRENT/PAST/FUTURE ищутся равенством по ней,
+-- а не сравнением START_DATE/END_DATE с текущим временем. Новые брони получают фазу при сохранении,
+-- дальше ее двигает BookingPhaseUpdater. Индексы по фазе - в V4__access_path_indexes.sql.
+alter table BOOKINGS add column PHASE VARCHAR(10);
+
+-- Существующие брони по времени БД, неточность исправит первый запуск BookingPhaseUpdater.
+update BOOKINGS
+set PHASE = case
+                when END_DATE < LOCALTIMESTAMP then 'PAST'
+                when START_DATE > LOCALTIMESTAMP then 'FUTURE'
+                else 'CURRENT'
+    end;
+
+alter table BOOKINGS alter column PHASE set not null;
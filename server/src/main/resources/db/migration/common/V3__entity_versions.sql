@@ -0,0 +1,7 @@
+-- Версии строк (@Version) для ETag карточек вещей и бронирований: версия растет при каждом
+-- изменении, и сервер проверяет If-None-Match одним запросом по версиям, не собирая ответ.
+-- Версия пользователя нужна потому, что имя и email автора и арендатора входят в эти ответы.
+alter table USERS add column VERSION BIGINT default 0 not null;
+alter table ITEMS add column VERSION BIGINT default 0 not null;
+alter table BOOKINGS add column VERSION BIGINT default 0 not null;
+alter table COMMENTS add column VERSION BIGINT default 0 not null;
@@ -0,0 +1,46 @@
+-- Индексы под запросы репозиториев, весь итоговый набор в одной миграции.
+-- Порядок колонок: сначала равенство, затем диапазон/сортировка.
+
+-- В базах, созданных до Flyway из schema.sql (их подхватывает baseline, см. spring.flyway
+-- в application.yml), остался индекс без статуса. Его заменяет BOOKINGS_ITEM_ID_STATUS_START_DATE_IDX.
+drop index if exists BOOKINGS_ITEM_ID_START_DATE_END_DATE_IDX;
+
+-- Списки броней арендатора (BookingRepository.findAllByBookerId..., keyset ...Before, streamAllByBookerId,
+-- findFirstByBookerIdAndItemIdAndEndIsBefore) обслуживает BOOKINGS_BOOKER_ID_START_DATE_ID_IDX из V1.
+-- Выгрузку streamAllByBookerId без limit планировщик читает и по BOOKINGS_BOOKER_ID_PHASE_START_DATE_ID_IDX.
+-- Планы проверяет PostgresIndexUsageTest на SQL, который строит Hibernate.
+
+-- existsOverlapping, findLastBookingsByItemIds/findNextBookingsByItemIds, approveIfWaiting
+-- и списки броней владельца по статусу (findAllByItemOwnerAndStatusOrderByStartDesc).
+create index BOOKINGS_ITEM_ID_STATUS_START_DATE_IDX on BOOKINGS (ITEM_ID, STATUS, START_DATE);
+
+-- BookingRepository.findAllByBookerIdAndPhaseOrderByStartDesc и keyset findAllByBookerIdAndPhaseBefore.
+create index BOOKINGS_BOOKER_ID_PHASE_START_DATE_ID_IDX on BOOKINGS (BOOKER_ID, PHASE, START_DATE desc, ID desc);
+
+-- Списки броней владельца по фазе (join по ITEM_ID после ITEMS_OWNER_ID_ID_IDX).
+create index BOOKINGS_ITEM_ID_PHASE_START_DATE_IDX on BOOKINGS (ITEM_ID, PHASE, START_DATE desc);
+
+-- BookingPhaseUpdater: markStarted и ItemRepository.findAllWithApprovedBookingStartedBy ищут
+-- по (PHASE, START_DATE), markFinished по (PHASE, END_DATE).
+create index BOOKINGS_PHASE_START_DATE_IDX on BOOKINGS (PHASE, START_DATE);
+create index BOOKINGS_PHASE_END_DATE_IDX on BOOKINGS (PHASE, END_DATE);
+
+-- ItemRepository.findAllByOwner (сортировка по id), findIdsByOwner, deleteAllByOwner,
+-- списки и выгрузка броней владельца (BookingRepository.findAllByItemOwner..., streamAllByItemOwner).
+create index ITEMS_OWNER_ID_ID_IDX on ITEMS (OWNER_ID, ID);
+
+-- Вещи, откликнувшиеся на запросы (ItemRepository.findAllByRequestIn).
+create index ITEMS_REQUEST_ID_IDX on ITEMS (REQUEST_ID);
+
+-- CommentRepository.findAllByItemIdIn.
+create index COMMENTS_ITEM_ID_IDX on COMMENTS (ITEM_ID);
+
+-- ItemRepository.findAllShowingUser (комментарии пользователя), заодно каскадное удаление автора.
+create index COMMENTS_AUTHOR_ID_IDX on COMMENTS (AUTHOR_ID);
+
+-- ItemRequestRepository.findAllByRequestorOrderByCreatedDesc.
+create index REQUESTS_REQUESTOR_ID_CREATED_IDX on REQUESTS (REQUESTOR_ID, CREATED desc);
+
+-- ItemRequestRepository.findAllByRequestorNot и keyset-лента findAllByRequestorNotBefore: чужих
+-- запросов большинство, поэтому идем по (created desc, id desc) целиком из индекса.
+create index REQUESTS_CREATED_ID_IDX on REQUESTS (CREATED desc, ID desc);
@@ -0,0 +1,15 @@
+-- Только для Postgres (профиль docker), выполняется после V1__init_schema.sql.
+-- Подтвержденные брони одной вещи не могут пересекаться, даже при параллельных запросах.
+create extension if not exists btree_gist;
+
+alter table BOOKINGS
+    add constraint "BOOKINGS_no_overlap_approved"
+        exclude using gist (ITEM_ID with =, tsrange(START_DATE, END_DATE) with &&)
+        where (STATUS = 'APPROVED');
+
+
+-- Триграммные индексы для поиска вещей по подстроке (shareit.search.engine: trigram).
+create extension if not exists pg_trgm;
+
+create index ITEMS_NAME_TRGM_IDX on ITEMS using gin (lower(NAME) gin_trgm_ops);
+create index ITEMS_DESCRIPTION_TRGM_IDX on ITEMS using gin (lower(DESCRIPTION) gin_trgm_ops);
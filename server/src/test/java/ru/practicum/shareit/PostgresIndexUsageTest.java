@@ -0,0 +1,275 @@
+package ru.practicum.shareit;
+
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.practicum.shareit.booking.model.Phase;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.util.OffsetBasedPageRequest;
+import ru.practicum.shareit.util.QueryCountConfig;
+import ru.practicum.shareit.util.QueryCounter;
+
+import java.lang.reflect.InvocationTargetException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Планы запросов репозиториев на Postgres из docker-compose: каждый запрос идет по индексу,
+ * заведенному под него в V4__access_path_indexes.sql. Методы репозиториев вызываются по-настоящему,
+ * SQL и параметры, которые построил Hibernate, записывает {@link QueryCounter}, и для них же
+ * строится EXPLAIN. Изменяющие методы выполняются в откатываемой транзакции.
+ * Планировщик не подталкивается настройками: таблицы заполнены по объему и распределению похоже
+ * на рабочие (у пользователя десяток вещей и сотня броней, брони вещи не пересекаются) и
+ * проанализированы, а страницы запрашиваются так же, как в сервисах.
+ * Если запрос одинаково обслуживают несколько индексов, они перечислены через "|".
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(QueryCountConfig.class)
+@Testcontainers(disabledWithoutDocker = true)
+class PostgresIndexUsageTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>(
+            "postgres:13.7-alpine");
+
+    private static final int USERS = 2000;
+    private static final int ITEMS = 20000;
+    private static final int BOOKINGS_PER_ITEM = 10;
+    private static final int COMMENTS = 50000;
+    private static final int REQUESTS = 5000;
+    private static boolean filled;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private QueryCounter queryCounter;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.driverClassName", POSTGRES::getDriverClassName);
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.flyway.locations",
+                () -> "classpath:db/migration/common,classpath:db/migration/postgresql");
+    }
+
+    @BeforeEach
+    void fill() {
+        if (filled) {
+            return;
+        }
+        /*Вещь g у владельца g % USERS + 1, каждая десятая недоступна и откликнулась на запрос.
+         * Брони вещи идут через 30 дней по 2 дня, поэтому одобренные не пересекаются*/
+        jdbcTemplate.execute("insert into USERS (NAME, EMAIL)"
+                + " select 'User ' || g, 'user' || g || '@mail.com'"
+                + " from generate_series(1, " + USERS + ") g");
+        jdbcTemplate.execute("insert into REQUESTS (DESCRIPTION, REQUESTOR_ID, CREATED)"
+                + " select 'Нужна вещь ' || g, g % " + USERS + " + 1, localtimestamp - g * interval '1 hour'"
+                + " from generate_series(1, " + REQUESTS + ") g");
+        jdbcTemplate.execute("insert into ITEMS (OWNER_ID, NAME, DESCRIPTION, AVAILABLE, REQUEST_ID)"
+                + " select g % " + USERS + " + 1, 'Вещь ' || g,"
+                + " 'Описание вещи номер ' || g || ': ' || repeat('состояние, комплектация, условия; ', 6),"
+                + " g % 10 <> 0,"
+                + " case when g % 10 = 0 then g / 10 % " + REQUESTS + " + 1 end"
+                + " from generate_series(1, " + ITEMS + ") g");
+        jdbcTemplate.execute("insert into BOOKINGS (ITEM_ID, BOOKER_ID, STATUS, START_DATE, END_DATE, PHASE)"
+                + " select i, (i * 7 + k * 13) % " + USERS + " + 1,"
+                + " case k % 5 when 3 then 'WAITING' when 4 then 'REJECTED' else 'APPROVED' end,"
+                + " s, s + interval '2 days',"
+                + " case when s + interval '2 days' < localtimestamp then 'PAST'"
+                + " when s > localtimestamp then 'FUTURE' else 'CURRENT' end"
+                + " from generate_series(1, " + ITEMS + ") i, generate_series(0, " + (BOOKINGS_PER_ITEM - 1) + ") k,"
+                + " lateral (select localtimestamp - interval '150 days' + k * interval '30 days'"
+                + " + i % 24 * interval '1 hour' as s) d");
+        jdbcTemplate.execute("insert into COMMENTS (TEXT, ITEM_ID, AUTHOR_ID, CREATED_DATE)"
+                + " select 'Отзыв ' || g, g % " + ITEMS + " + 1, g % " + USERS + " + 1, localtimestamp"
+                + " from generate_series(1, " + COMMENTS + ") g");
+        jdbcTemplate.execute("analyze");
+        filled = true;
+    }
+
+    static Stream<Arguments> repositoryMethods() {
+        LocalDateTime now = LocalDateTime.now();
+        Pageable page = PageRequest.of(2, 10);
+        Pageable first = PageRequest.of(0, 10);
+        List<Long> itemIds = List.of(1L, 2001L, 4001L);
+        return Stream.of(
+                call("BookingRepository.findAllByBookerIdOrderByStartDesc",
+                        "BOOKINGS_BOOKER_ID_START_DATE_ID_IDX",
+                        t -> t.bookingRepository.findAllByBookerIdOrderByStartDesc(1L, page)),
+                call("BookingRepository.findAllByBookerIdAndStatusOrderByStartDesc",
+                        "BOOKINGS_BOOKER_ID_START_DATE_ID_IDX",
+                        t -> t.bookingRepository.findAllByBookerIdAndStatusOrderByStartDesc(1L,
+                                Status.WAITING, first)),
+                call("BookingRepository.findAllByBookerIdBefore", "BOOKINGS_BOOKER_ID_START_DATE_ID_IDX",
+                        t -> t.bookingRepository.findAllByBookerIdBefore(1L, now, 100L, first)),
+                call("BookingRepository.findAllByBookerIdAndPhaseOrderByStartDesc",
+                        "BOOKINGS_BOOKER_ID_PHASE_START_DATE_ID_IDX",
+                        t -> t.bookingRepository.findAllByBookerIdAndPhaseOrderByStartDesc(1L,
+                                Phase.FUTURE, first)),
+                call("BookingRepository.findAllByBookerIdAndPhaseBefore",
+                        "BOOKINGS_BOOKER_ID_PHASE_START_DATE_ID_IDX",
+                        t -> t.bookingRepository.findAllByBookerIdAndPhaseBefore(1L, Phase.PAST, now,
+                                100L, first)),
+                call("BookingRepository.findAllByItemOwnerOrderByStartDesc", "ITEMS_OWNER_ID_ID_IDX",
+                        t -> t.bookingRepository.findAllByItemOwnerOrderByStartDesc(1L, page)),
+                call("BookingRepository.findAllByItemOwnerAndStatusOrderByStartDesc",
+                        "BOOKINGS_ITEM_ID_STATUS_START_DATE_IDX",
+                        t -> t.bookingRepository.findAllByItemOwnerAndStatusOrderByStartDesc(1L,
+                                Status.WAITING, first)),
+                call("BookingRepository.findAllByItemOwnerAndPhaseOrderByStartDesc",
+                        "BOOKINGS_ITEM_ID_PHASE_START_DATE_IDX",
+                        t -> t.bookingRepository.findAllByItemOwnerAndPhaseOrderByStartDesc(1L,
+                                Phase.CURRENT, first)),
+                call("BookingRepository.findAllByItemOwnerBefore", "ITEMS_OWNER_ID_ID_IDX",
+                        t -> t.bookingRepository.findAllByItemOwnerBefore(1L, now, 100L, first)),
+                call("BookingRepository.streamAllByBookerId",
+                        "BOOKINGS_BOOKER_ID_START_DATE_ID_IDX|BOOKINGS_BOOKER_ID_PHASE_START_DATE_ID_IDX",
+                        t -> t.bookingRepository.streamAllByBookerId(1L)
+                                .close()),
+                call("BookingRepository.streamAllByItemOwner", "ITEMS_OWNER_ID_ID_IDX",
+                        t -> t.bookingRepository.streamAllByItemOwner(1L)
+                                .close()),
+                call("BookingRepository.findFirstByBookerIdAndItemIdAndEndIsBefore",
+                        "BOOKINGS_BOOKER_ID_START_DATE_ID_IDX|BOOKINGS_ITEM_ID_PHASE_START_DATE_IDX",
+                        t -> t.bookingRepository.findFirstByBookerIdAndItemIdAndEndIsBefore(8L, 1L, now)),
+                call("BookingRepository.existsOverlapping", "BOOKINGS_ITEM_ID_STATUS_START_DATE_IDX",
+                        t -> t.bookingRepository.existsOverlapping(1L, now, now.plusDays(1),
+                                Status.APPROVED)),
+                call("BookingRepository.findLastBookingsByItemIds", "BOOKINGS_ITEM_ID_STATUS_START_DATE_IDX",
+                        t -> t.bookingRepository.findLastBookingsByItemIds(itemIds, now, Status.APPROVED)),
+                call("BookingRepository.findNextBookingsByItemIds", "BOOKINGS_ITEM_ID_STATUS_START_DATE_IDX",
+                        t -> t.bookingRepository.findNextBookingsByItemIds(itemIds, now, Status.APPROVED)),
+                call("BookingRepository.approveIfWaiting", "BOOKINGS_ITEM_ID_STATUS_START_DATE_IDX",
+                        t -> t.bookingRepository.approveIfWaiting(4L, 2L)),
+                call("BookingRepository.markStarted", "BOOKINGS_PHASE_START_DATE_IDX",
+                        t -> t.bookingRepository.markStarted(now)),
+                call("BookingRepository.markFinished", "BOOKINGS_PHASE_END_DATE_IDX",
+                        t -> t.bookingRepository.markFinished(now)),
+                call("ItemRepository.findAllByOwner", "ITEMS_OWNER_ID_ID_IDX",
+                        t -> t.itemRepository.findAllByOwner(1L, first)),
+                call("ItemRepository.findIdsByOwner", "ITEMS_OWNER_ID_ID_IDX",
+                        t -> t.itemRepository.findIdsByOwner(1L)),
+                call("ItemRepository.deleteAllByOwner", "ITEMS_OWNER_ID_ID_IDX",
+                        t -> t.itemRepository.deleteAllByOwner(1L)),
+                call("ItemRepository.findAllWithApprovedBookingStartedBy", "BOOKINGS_PHASE_START_DATE_IDX",
+                        t -> t.itemRepository.findAllWithApprovedBookingStartedBy(now)),
+                call("ItemRepository.findAllShowingUser",
+                        "COMMENTS_AUTHOR_ID_IDX", t -> t.itemRepository.findAllShowingUser(1L)),
+                call("ItemRepository.findAllByRequestIn", "ITEMS_REQUEST_ID_IDX",
+                        t -> t.itemRepository.findAllByRequestIn(List.of(1L, 2L, 3L))),
+                call("ItemRepository.findAllByAvailableTrueAndIdGreaterThanOrderByIdAsc", "ITEM_pk_id",
+                        t -> t.itemRepository.findAllByAvailableTrueAndIdGreaterThanOrderByIdAsc(1000L,
+                                PageRequest.of(0, 1000))),
+                call("ItemRepository.searchRankedByTrigram", "ITEMS_NAME_TRGM_IDX",
+                        t -> t.itemRepository.searchRankedByTrigram("щь 1234", first)),
+                call("CommentRepository.findAllByItemIdIn", "COMMENTS_ITEM_ID_IDX",
+                        t -> t.commentRepository.findAllByItemIdIn(itemIds)),
+                call("ItemRequestRepository.findAllByRequestorOrderByCreatedDesc",
+                        "REQUESTS_REQUESTOR_ID_CREATED_IDX",
+                        t -> t.itemRequestRepository.findAllByRequestorOrderByCreatedDesc(1L)),
+                call("ItemRequestRepository.findAllByRequestorNot", "REQUESTS_CREATED_ID_IDX",
+                        t -> t.itemRequestRepository.findAllByRequestorNot(1L,
+                                new OffsetBasedPageRequest(20, 10, Sort.by(Sort.Direction.DESC, "created")))),
+                call("ItemRequestRepository.findAllByRequestorNotBefore", "REQUESTS_CREATED_ID_IDX",
+                        t -> t.itemRequestRepository.findAllByRequestorNotBefore(1L, now, 100L, first))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("repositoryMethods")
+    void query_UsesIndex(String repositoryMethod,
+                         String index,
+                         Consumer<PostgresIndexUsageTest> call) {
+        List<QueryInfo> statements = queryCounter.record(() -> transactionTemplate.executeWithoutResult(
+                status -> {
+                    call.accept(this);
+                    status.setRollbackOnly();
+                }));
+        assertFalse(statements.isEmpty(), repositoryMethod + " sent no SQL");
+        String plans = statements.stream()
+                .map(this::explain)
+                .collect(Collectors.joining(System.lineSeparator()));
+
+        assertTrue(Stream.of(index.split("\\|"))
+                        .anyMatch(name -> plans.toLowerCase()
+                                .contains(name.toLowerCase())),
+                String.format("%s does not use %s:%n%s", repositoryMethod, index, plans));
+    }
+
+    private static Arguments call(String repositoryMethod,
+                                  String index,
+                                  Consumer<PostgresIndexUsageTest> call) {
+        return Arguments.of(repositoryMethod, index, call);
+    }
+
+    /**
+     * EXPLAIN того же выражения с теми же параметрами, что передал Hibernate
+     */
+    private String explain(QueryInfo statement) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement explain = connection.prepareStatement("explain " + statement.getQuery())) {
+                if (!statement.getParametersList()
+                        .isEmpty()) {
+                    for (ParameterSetOperation operation : statement.getParametersList()
+                            .get(0)) {
+                        operation.getMethod()
+                                .invoke(explain, operation.getArgs());
+                    }
+                }
+                StringJoiner plan = new StringJoiner(System.lineSeparator());
+                try (ResultSet resultSet = explain.executeQuery()) {
+                    while (resultSet.next()) {
+                        plan.add(resultSet.getString(1));
+                    }
+                }
+                return plan.toString();
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException("Cannot bind parameters of " + statement.getQuery(), e);
+            }
+        });
+    }
+}
@@ -0,0 +1,166 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.ResourceNotFoundException;
+import ru.practicum.shareit.item.dto.CommentDtoIn;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.IItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.IUserService;
+import ru.practicum.shareit.util.QueryCountConfig;
+import ru.practicum.shareit.util.QueryCounter;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Кэш второго уровня для User и Item: повторные чтения по id не идут в БД,
+ * а изменения и удаления через сервисы не оставляют в кэше устаревших данных.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import(QueryCountConfig.class)
+@Sql(scripts = "classpath:db/clear-db.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class SecondLevelCacheTest {
+
+    @Autowired
+    private IUserService userService;
+    @Autowired
+    private IItemService itemService;
+    @Autowired
+    private QueryCounter queryCounter;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private UserDto owner;
+    private ItemDto item;
+
+    @BeforeEach
+    void setUp() {
+        owner = userService.create(UserDto.builder()
+                .name("Alex")
+                .email("alex@mail.com")
+                .build());
+        item = itemService.create(owner.getId(), ItemDto.builder()
+                .name("Дрель")
+                .description("Аккумуляторная дрель")
+                .available(true)
+                .build());
+    }
+
+    @Test
+    void getById_WhenUserCached_NoQueries() {
+        userService.getById(owner.getId());
+
+        queryCounter.assertAtMost(0, () -> userService.getById(owner.getId()));
+        assertTrue(meterRegistry.get("hibernate.second.level.cache.requests")
+                .tags("region", "users", "result", "hit")
+                .functionCounter()
+                .count() > 0);
+    }
+
+    @Test
+    void update_WhenUserCached_ReturnUpdatedUserWithoutQueries() {
+        userService.getById(owner.getId());
+
+        userService.update(owner.getId(), UserDto.builder()
+                .name("Oleg")
+                .build());
+
+        queryCounter.assertAtMost(0, () -> assertEquals("Oleg", userService.getById(owner.getId())
+                .getName()));
+    }
+
+    @Test
+    void delete_WhenUserCached_UserNotFound() {
+        userService.getById(owner.getId());
+
+        userService.delete(owner.getId());
+
+        assertThrows(ResourceNotFoundException.class, () -> userService.getById(owner.getId()));
+    }
+
+    @Test
+    void delete_WhenOwnerItemsCached_ItemsNotFound() {
+        itemService.getById(item.getId(), owner.getId());
+
+        userService.delete(owner.getId());
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> itemService.getById(item.getId(), owner.getId()));
+    }
+
+    @Test
+    void update_WhenItemCached_ReturnUpdatedItem() {
+        itemService.getById(item.getId(), owner.getId());
+
+        itemService.update(owner.getId(), item.getId(), ItemDto.builder()
+                .name("Перфоратор")
+                .build());
+
+        assertEquals("Перфоратор", itemService.getById(item.getId(), owner.getId())
+                .getName());
+    }
+
+    @Test
+    void update_WhenItemCached_LoadItemAndOwnerFromCache() {
+        itemService.getById(item.getId(), owner.getId());
+
+        /*Остаются только UPDATE вещи: проверка пользователя и владельца идут из кэша*/
+        queryCounter.assertAtMost(1, () -> itemService.update(owner.getId(), item.getId(),
+                ItemDto.builder()
+                        .available(false)
+                        .build()));
+    }
+
+    @Test
+    void addComment_WhenItemCached_ItemStillUpdatable() {
+        User booker = userRepository.save(User.builder()
+                .name("Oleg")
+                .email("oleg@mail.com")
+                .build());
+        bookingRepository.save(Booking.builder()
+                .item(itemRepository.findById(item.getId())
+                        .orElseThrow())
+                .booker(booker)
+                .start(LocalDateTime.now()
+                        .minusDays(2))
+                .end(LocalDateTime.now()
+                        .minusDays(1))
+                .status(Status.APPROVED)
+                .build());
+        itemService.getById(item.getId(), owner.getId());
+
+        /*Комментарий поднимает версию вещи в БД, в кэше не должна остаться старая*/
+        itemService.addComment(item.getId(), booker.getId(), CommentDtoIn.builder()
+                .text("Отличная дрель")
+                .build());
+
+        assertEquals("Перфоратор", itemService.update(owner.getId(), item.getId(), ItemDto.builder()
+                        .name("Перфоратор")
+                        .build())
+                .getName());
+    }
+}
@@ -1,12 +1,18 @@
 package ru.practicum.shareit.booking.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.booking.dto.BookingDtoIn;
@@ -20,9 +26,13 @@ import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -35,6 +45,8 @@ class BookingControllerTest {
     @Autowired
     private MockMvc mockMvc;
     @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
     private UserRepository userRepository;
     @Autowired
     private ItemRepository itemRepository;
@@ -199,7 +211,7 @@ class BookingControllerTest {
     }
 
     @Test
-    void updateBooking_WhenNotWaiting_ReturnBadRequest() {
+    void updateBooking_WhenNotWaiting_ReturnConflict() {
         User savedOwner = userRepository.save(ownerOfFirstItem);
         User savedBooker = userRepository.save(bookerOfFirstItem);
         itemOfFirstUser.setOwner(savedOwner.getId());
@@ -216,7 +228,7 @@ class BookingControllerTest {
                 .header(requestHeader, String.valueOf(savedOwner.getId()))
                 .exchange()
                 .expectStatus()
-                .isBadRequest();
+                .isEqualTo(HttpStatus.CONFLICT);
     }
 
     @Test
@@ -289,6 +301,89 @@ class BookingControllerTest {
         assertEquals(savedBooking.getStatus(), bookingDtoOut.getStatus());
     }
 
+    @Test
+    void getBooking_WhenETagMatches_ReturnNotModifiedUntilApproved() {
+        User savedOwner = userRepository.save(ownerOfFirstItem);
+        User savedBooker = userRepository.save(bookerOfFirstItem);
+        itemOfFirstUser.setOwner(savedOwner.getId());
+        Item savedItem = itemRepository.save(itemOfFirstUser);
+        bookingOfFirstItem.setItem(savedItem);
+        bookingOfFirstItem.setBooker(savedBooker);
+        Booking savedBooking = bookingRepository.save(bookingOfFirstItem);
+
+        String eTag = webTestClient.get()
+                .uri("/bookings/{bookingId}", savedBooking.getId())
+                .header(requestHeader, String.valueOf(savedBooker.getId()))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .valueEquals(HttpHeaders.VARY, requestHeader)
+                .returnResult(BookingDtoOut.class)
+                .getResponseHeaders()
+                .getETag();
+        assertNotNull(eTag);
+
+        webTestClient.get()
+                .uri("/bookings/{bookingId}", savedBooking.getId())
+                .header(requestHeader, String.valueOf(savedBooker.getId()))
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus()
+                .isNotModified()
+                .expectBody()
+                .isEmpty();
+
+        webTestClient.patch()
+                .uri(uriBuilder -> uriBuilder.path("/bookings/{bookingId}")
+                        .queryParam("approved", "true")
+                        .build(savedBooking.getId()))
+                .header(requestHeader, String.valueOf(savedOwner.getId()))
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        BookingDtoOut bookingDtoOut = webTestClient.get()
+                .uri("/bookings/{bookingId}", savedBooking.getId())
+                .header(requestHeader, String.valueOf(savedBooker.getId()))
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(BookingDtoOut.class)
+                .returnResult()
+                .getResponseBody();
+        assertEquals(Status.APPROVED, bookingDtoOut.getStatus());
+    }
+
+    @Test
+    void getBooking_WhenETagOfOtherUser_ReturnNotFound() {
+        User savedOwner = userRepository.save(ownerOfFirstItem);
+        User savedBooker = userRepository.save(bookerOfFirstItem);
+        itemOfFirstUser.setOwner(savedOwner.getId());
+        Item savedItem = itemRepository.save(itemOfFirstUser);
+        bookingOfFirstItem.setItem(savedItem);
+        bookingOfFirstItem.setBooker(savedBooker);
+        Booking savedBooking = bookingRepository.save(bookingOfFirstItem);
+        User otherUser = userRepository.save(otherUser1);
+        String eTag = webTestClient.get()
+                .uri("/bookings/{bookingId}", savedBooking.getId())
+                .header(requestHeader, String.valueOf(savedBooker.getId()))
+                .exchange()
+                .returnResult(BookingDtoOut.class)
+                .getResponseHeaders()
+                .getETag();
+
+        /*Чужой пользователь с подсмотренным ETag не получает 304 вместо 404*/
+        webTestClient.get()
+                .uri("/bookings/{bookingId}", savedBooking.getId())
+                .header(requestHeader, String.valueOf(otherUser.getId()))
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+    }
+
     @Test
     void getAllForCurrentUser_WhenDifferentBookingState_ReturnBookings() {
         User ownerOfAllItems = userRepository.save(ownerOfFirstItem);
@@ -534,6 +629,209 @@ class BookingControllerTest {
                 .getName());
     }
 
+    @Test
+    void getAllForCurrentUser_WhenCursor_ReturnSamePagesAsOffset() {
+        User ownerOfAllItems = userRepository.save(ownerOfFirstItem);
+        User bookerForAllItems = userRepository.save(bookerOfFirstItem);
+        setItemsAndBookingsForCurrentUserTest(ownerOfAllItems, bookerForAllItems);
+
+        List<Long> offsetIds = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/bookings")
+                        .build())
+                .header(requestHeader, String.valueOf(bookerForAllItems.getId()))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(BookingDtoOut.class)
+                .returnResult()
+                .getResponseBody()
+                .stream()
+                .map(BookingDtoOut::getId)
+                .collect(Collectors.toList());
+
+        /*Листаем по 2 с курсором: 2 + 2 + 1, у последней страницы нет курсора*/
+        List<Long> cursorIds = new ArrayList<>();
+        String cursor = "";
+        List<Integer> pageSizes = new ArrayList<>();
+        while (cursor != null) {
+            String currentCursor = cursor;
+            EntityExchangeResult<List<BookingDtoOut>> page = webTestClient.get()
+                    .uri(uriBuilder -> uriBuilder.path("/bookings")
+                            .queryParam("size", 2)
+                            .queryParam("cursor", currentCursor)
+                            .build())
+                    .header(requestHeader, String.valueOf(bookerForAllItems.getId()))
+                    .exchange()
+                    .expectStatus()
+                    .isOk()
+                    .expectBodyList(BookingDtoOut.class)
+                    .returnResult();
+            pageSizes.add(page.getResponseBody()
+                    .size());
+            page.getResponseBody()
+                    .forEach(booking -> cursorIds.add(booking.getId()));
+            cursor = page.getResponseHeaders()
+                    .getFirst("X-Next-Cursor");
+        }
+
+        assertEquals(List.of(2, 2, 1), pageSizes);
+        assertEquals(offsetIds, cursorIds);
+    }
+
+    @Test
+    void getAllForOwner_WhenCursorAndState_ReturnBookingsAfterCursor() {
+        User ownerOfAllItems = userRepository.save(ownerOfFirstItem);
+        User bookerForAllItems = userRepository.save(bookerOfFirstItem);
+        setItemsAndBookingsForCurrentUserTest(ownerOfAllItems, bookerForAllItems);
+
+        /*Будущих броней три: первая страница полная и отдает курсор, вторая последняя*/
+        EntityExchangeResult<List<BookingDtoOut>> firstPage = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/bookings/owner")
+                        .queryParam("state", "FUTURE")
+                        .queryParam("size", 2)
+                        .queryParam("cursor", "")
+                        .build())
+                .header(requestHeader, String.valueOf(ownerOfAllItems.getId()))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(BookingDtoOut.class)
+                .returnResult();
+        String nextCursor = firstPage.getResponseHeaders()
+                .getFirst("X-Next-Cursor");
+
+        assertEquals(2, firstPage.getResponseBody()
+                .size());
+        assertNotNull(nextCursor);
+
+        EntityExchangeResult<List<BookingDtoOut>> secondPage = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/bookings/owner")
+                        .queryParam("state", "FUTURE")
+                        .queryParam("size", 2)
+                        .queryParam("cursor", nextCursor)
+                        .build())
+                .header(requestHeader, String.valueOf(ownerOfAllItems.getId()))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(BookingDtoOut.class)
+                .returnResult();
+
+        assertEquals(1, secondPage.getResponseBody()
+                .size());
+        assertNull(secondPage.getResponseHeaders()
+                .getFirst("X-Next-Cursor"));
+    }
+
+    @Test
+    void getAllForCurrentUser_WhenCursorInvalid_ReturnBadRequest() {
+        User savedBooker = userRepository.save(bookerOfFirstItem);
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/bookings")
+                        .queryParam("cursor", "not-a-cursor")
+                        .build())
+                .header(requestHeader, String.valueOf(savedBooker.getId()))
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    void exportForCurrentUser_WhenBookings_ReturnNdjsonInListOrder() {
+        User ownerOfAllItems = userRepository.save(ownerOfFirstItem);
+        User bookerForAllItems = userRepository.save(bookerOfFirstItem);
+        setItemsAndBookingsForCurrentUserTest(ownerOfAllItems, bookerForAllItems);
+
+        List<Long> listIds = getBookingIds("/bookings", bookerForAllItems.getId());
+        List<BookingDtoOut> exported = exportBookings("/bookings/export",
+                bookerForAllItems.getId());
+
+        assertEquals(5, exported.size());
+        assertEquals(listIds, exported.stream()
+                .map(BookingDtoOut::getId)
+                .collect(Collectors.toList()));
+        assertEquals(bookerForAllItems.getId(), exported.get(0)
+                .getBooker()
+                .getId());
+    }
+
+    @Test
+    void exportForOwner_WhenBookings_ReturnNdjsonInListOrder() {
+        User ownerOfAllItems = userRepository.save(ownerOfFirstItem);
+        User bookerForAllItems = userRepository.save(bookerOfFirstItem);
+        setItemsAndBookingsForCurrentUserTest(ownerOfAllItems, bookerForAllItems);
+
+        List<Long> listIds = getBookingIds("/bookings/owner", ownerOfAllItems.getId());
+        List<BookingDtoOut> exported = exportBookings("/bookings/owner/export",
+                ownerOfAllItems.getId());
+
+        assertEquals(listIds, exported.stream()
+                .map(BookingDtoOut::getId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void exportForCurrentUser_WhenNoBookings_ReturnEmptyNdjson() {
+        User savedBooker = userRepository.save(bookerOfFirstItem);
+
+        assertEquals(List.of(), exportBookings("/bookings/export", savedBooker.getId()));
+    }
+
+    @Test
+    void exportForCurrentUser_WhenUserNotFound_ReturnResourceNotFound() {
+        webTestClient.get()
+                .uri("/bookings/export")
+                .header(requestHeader, "100")
+                .exchange()
+                .expectStatus()
+                .isNotFound()
+                .expectHeader()
+                .contentType(MediaType.APPLICATION_JSON);
+    }
+
+    private List<Long> getBookingIds(String path,
+                                     Long userId) {
+        return webTestClient.get()
+                .uri(path)
+                .header(requestHeader, String.valueOf(userId))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(BookingDtoOut.class)
+                .returnResult()
+                .getResponseBody()
+                .stream()
+                .map(BookingDtoOut::getId)
+                .collect(Collectors.toList());
+    }
+
+    private List<BookingDtoOut> exportBookings(String path,
+                                               Long userId) {
+        String body = webTestClient.get()
+                .uri(path)
+                .header(requestHeader, String.valueOf(userId))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+        if (body == null) {
+            return List.of();
+        }
+        return body.lines()
+                .map(line -> {
+                    try {
+                        return objectMapper.readValue(line, BookingDtoOut.class);
+                    } catch (JsonProcessingException exception) {
+                        throw new IllegalStateException(exception);
+                    }
+                })
+                .collect(Collectors.toList());
+    }
+
     private void setItemsAndBookingsForCurrentUserTest(User ownerOfItems,
                                                        User bookerOfItems) {
         /*Создадим 5 вещей для последующего бронирования.*/
@@ -0,0 +1,153 @@
+package ru.practicum.shareit.booking.phase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Phase;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.util.QueryCountConfig;
+import ru.practicum.shareit.util.QueryCounter;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Фаза бронирования: проставляется при сохранении и двигается {@link BookingPhaseUpdater}.
+ * Плановый запуск отложен на час, тесты вызывают обновление сами.
+ */
+@SpringBootTest(properties = {"shareit.bookings.phase-refresh.enabled=true",
+        "shareit.bookings.phase-refresh.interval=PT1H"})
+@ActiveProfiles("test")
+@Import(QueryCountConfig.class)
+@Sql(scripts = "classpath:db/clear-db.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class BookingPhaseUpdaterTest {
+
+    @Autowired
+    private BookingPhaseUpdater bookingPhaseUpdater;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private QueryCounter queryCounter;
+
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        User owner = userRepository.save(User.builder()
+                .name("Alex")
+                .email("alex@mail.com")
+                .build());
+        booker = userRepository.save(User.builder()
+                .name("Oleg")
+                .email("oleg@mail.com")
+                .build());
+        item = itemRepository.save(Item.builder()
+                .owner(owner.getId())
+                .name("Дрель")
+                .description("Аккумуляторная дрель")
+                .available(true)
+                .build());
+    }
+
+    @Test
+    void save_WhenPhaseNotSet_SetPhaseByDates() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertEquals(Phase.PAST, save(now.minusDays(2), now.minusDays(1), null).getPhase());
+        assertEquals(Phase.CURRENT, save(now.minusDays(1), now.plusDays(1), null).getPhase());
+        assertEquals(Phase.FUTURE, save(now.plusDays(1), now.plusDays(2), null).getPhase());
+    }
+
+    @Test
+    void refresh_WhenPhasesStale_MoveForward() {
+        LocalDateTime now = LocalDateTime.now();
+        Booking started = save(now.minusHours(1), now.plusDays(1), Phase.FUTURE);
+        Booking finished = save(now.minusDays(2), now.minusDays(1), Phase.CURRENT);
+        Booking missed = save(now.minusDays(2), now.minusDays(1), Phase.FUTURE);
+        Booking future = save(now.plusDays(1), now.plusDays(2), Phase.FUTURE);
+
+        bookingPhaseUpdater.refresh();
+
+        assertEquals(Phase.CURRENT, phaseOf(started));
+        assertEquals(Phase.PAST, phaseOf(finished));
+        assertEquals(Phase.PAST, phaseOf(missed));
+        assertEquals(Phase.FUTURE, phaseOf(future));
+    }
+
+    @Test
+    void refresh_WhenBookingStarted_IncrementItemVersion() {
+        LocalDateTime now = LocalDateTime.now();
+        save(now.minusHours(1), now.plusDays(1), Phase.FUTURE);
+        Item otherItem = itemRepository.save(Item.builder()
+                .owner(item.getOwner())
+                .name("Перфоратор")
+                .description("Перфоратор с набором буров")
+                .available(true)
+                .build());
+        bookingRepository.save(Booking.builder()
+                .start(now.plusDays(1))
+                .end(now.plusDays(2))
+                .item(otherItem)
+                .booker(booker)
+                .status(Status.APPROVED)
+                .build());
+
+        bookingPhaseUpdater.refresh();
+
+        /*Начавшаяся бронь переходит из следующих в последние, ETag карточки вещи меняется*/
+        assertEquals(item.getVersion() + 1, versionOf(item));
+        assertEquals(otherItem.getVersion(), versionOf(otherItem));
+    }
+
+    @Test
+    void refresh_WhenManyBookingsOfOneItem_FourQueries() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 10; i++) {
+            save(now.minusDays(2L * i + 2), now.minusDays(2L * i + 1), Phase.FUTURE);
+        }
+
+        /*Вещи начавшихся броней, версия вещи и два UPDATE фаз*/
+        queryCounter.assertAtMost(4, () -> bookingPhaseUpdater.refresh());
+    }
+
+    private Booking save(LocalDateTime start,
+                         LocalDateTime end,
+                         Phase phase) {
+        return bookingRepository.save(Booking.builder()
+                .start(start)
+                .end(end)
+                .item(item)
+                .booker(booker)
+                .status(Status.APPROVED)
+                .phase(phase)
+                .build());
+    }
+
+    private Long versionOf(Item item) {
+        return itemRepository.findById(item.getId())
+                .orElseThrow()
+                .getVersion();
+    }
+
+    private Phase phaseOf(Booking booking) {
+        return bookingRepository.findById(booking.getId())
+                .orElseThrow()
+                .getPhase();
+    }
+}
@@ -0,0 +1,214 @@
+package ru.practicum.shareit.booking.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.booking.dto.BookingDtoIn;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.IBookingService;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Нагрузочные тесты на параллельное бронирование одной вещи и решения по одной брони.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Sql(scripts = "classpath:db/clear-db.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class BookingConcurrencyTest {
+
+    private static final int ATTEMPTS = 2000;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private IBookingService bookingService;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private User owner;
+    private User booker;
+    private Item item;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(User.builder()
+                .name("Alex")
+                .email("alex@mail.com")
+                .build());
+        booker = userRepository.save(User.builder()
+                .name("Oleg")
+                .email("oleg@mail.com")
+                .build());
+        item = itemRepository.save(Item.builder()
+                .owner(owner.getId())
+                .name("Дрель")
+                .description("Аккумуляторная дрель")
+                .available(true)
+                .build());
+        start = LocalDateTime.now()
+                .plusDays(1)
+                .withNano(0);
+    }
+
+    @Test
+    void update_WhenManyOverlappingApprovedInParallel_OnlyOneApproved() throws Exception {
+        /*Все брони пересекаются друг с другом, подтвердить можно только одну*/
+        List<Booking> waitingBookings = new ArrayList<>();
+        for (int i = 0; i < ATTEMPTS; i++) {
+            waitingBookings.add(Booking.builder()
+                    .item(item)
+                    .booker(booker)
+                    .start(start.plusMinutes(i % 30))
+                    .end(start.plusHours(1))
+                    .status(Status.WAITING)
+                    .build());
+        }
+        List<Long> bookingIds = bookingRepository.saveAll(waitingBookings)
+                .stream()
+                .map(Booking::getId)
+                .collect(Collectors.toList());
+
+        List<Callable<Boolean>> attempts = bookingIds.stream()
+                .map(bookingId -> (Callable<Boolean>) () -> {
+                    bookingService.update(bookingId, true, owner.getId());
+                    return true;
+                })
+                .collect(Collectors.toList());
+
+        List<Outcome> outcomes = runInParallel(attempts);
+
+        assertEquals(1, outcomes.stream()
+                .filter(outcome -> outcome == Outcome.SUCCESS)
+                .count());
+        assertEquals(ATTEMPTS - 1, outcomes.stream()
+                .filter(outcome -> outcome == Outcome.CONFLICT)
+                .count());
+        assertEquals(1, bookingRepository.findAll()
+                .stream()
+                .filter(booking -> booking.getStatus() == Status.APPROVED)
+                .count());
+    }
+
+    @Test
+    void update_WhenSameBookingApprovedAndRejectedInParallel_OnlyFirstDecisionApplied()
+            throws Exception {
+        Booking waiting = bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(booker)
+                .start(start)
+                .end(start.plusHours(1))
+                .status(Status.WAITING)
+                .build());
+
+        List<Callable<Boolean>> attempts = IntStream.range(0, THREADS * 4)
+                .mapToObj(i -> (Callable<Boolean>) () -> {
+                    bookingService.update(waiting.getId(), i % 2 == 0, owner.getId());
+                    return i % 2 == 0;
+                })
+                .collect(Collectors.toList());
+
+        List<Outcome> outcomes = runInParallel(attempts);
+
+        /*И проигравшие гонку, и пришедшие после решения получают один и тот же конфликт*/
+        assertEquals(1, outcomes.stream()
+                .filter(outcome -> outcome == Outcome.SUCCESS)
+                .count());
+        assertEquals(THREADS * 4 - 1, outcomes.stream()
+                .filter(outcome -> outcome == Outcome.CONFLICT)
+                .count());
+        Booking decided = bookingRepository.findById(waiting.getId())
+                .orElseThrow();
+        assertTrue(decided.getStatus() == Status.APPROVED
+                || decided.getStatus() == Status.REJECTED);
+        assertEquals(waiting.getVersion() + 1, decided.getVersion());
+    }
+
+    @Test
+    void create_WhenApprovedExistsAndManyAttemptsInParallel_RejectOnlyOverlapping() throws Exception {
+        bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(booker)
+                .start(start)
+                .end(start.plusHours(1))
+                .status(Status.APPROVED)
+                .build());
+
+        /*Четные попытки пересекаются с подтвержденной бронью, нечетные идут после нее*/
+        List<Callable<Boolean>> attempts = IntStream.range(0, ATTEMPTS)
+                .mapToObj(i -> (Callable<Boolean>) () -> {
+                    LocalDateTime attemptStart = i % 2 == 0 ? start.plusMinutes(i % 60)
+                            : start.plusHours(1)
+                            .plusMinutes(i);
+                    bookingService.create(booker.getId(), BookingDtoIn.builder()
+                            .itemId(item.getId())
+                            .start(attemptStart)
+                            .end(attemptStart.plusMinutes(30))
+                            .build());
+                    return true;
+                })
+                .collect(Collectors.toList());
+
+        List<Outcome> outcomes = runInParallel(attempts);
+
+        assertEquals(ATTEMPTS / 2, outcomes.stream()
+                .filter(outcome -> outcome == Outcome.SUCCESS)
+                .count());
+        assertEquals(ATTEMPTS / 2, outcomes.stream()
+                .filter(outcome -> outcome == Outcome.CONFLICT)
+                .count());
+    }
+
+    private List<Outcome> runInParallel(List<Callable<Boolean>> attempts) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Outcome> outcomes = new ArrayList<>();
+            for (Future<Boolean> future : executor.invokeAll(attempts)) {
+                try {
+                    future.get();
+                    outcomes.add(Outcome.SUCCESS);
+                } catch (ExecutionException exception) {
+                    assertTrue(exception.getCause() instanceof ConflictException,
+                            "Unexpected failure: " + exception.getCause());
+                    outcomes.add(Outcome.CONFLICT);
+                }
+            }
+            return outcomes;
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private enum Outcome {
+        SUCCESS,
+        CONFLICT
+    }
+}
@@ -0,0 +1,142 @@
+package ru.practicum.shareit.booking.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.practicum.shareit.booking.dto.BookingDtoIn;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.State;
+import ru.practicum.shareit.booking.service.IBookingService;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.util.QueryCountFixture;
+import ru.practicum.shareit.util.QueryCountTest;
+import ru.practicum.shareit.util.QueryCounter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Количество SQL запросов на вызов методов сервиса бронирований.
+ * Списки проверяются на странице из {@link #ROWS} бронирований разных вещей.
+ */
+@QueryCountTest
+class BookingServiceQueryCountTest {
+
+    private static final int ROWS = 100;
+
+    @Autowired
+    private IBookingService bookingService;
+    @Autowired
+    private QueryCountFixture fixture;
+    @Autowired
+    private QueryCounter queryCounter;
+
+    private User owner;
+    private User booker;
+    private List<Item> items;
+    private List<Booking> bookings;
+
+    @BeforeEach
+    void setUp() {
+        owner = fixture.user("Alex");
+        booker = fixture.user("Oleg");
+        items = fixture.items(owner, ROWS);
+        bookings = fixture.bookingsInEveryState(items, booker);
+    }
+
+    @Test
+    void create() {
+        LocalDateTime start = LocalDateTime.now()
+                .plusMonths(1);
+        queryCounter.assertAtMost(4, () -> bookingService.create(booker.getId(),
+                BookingDtoIn.builder()
+                        .itemId(items.get(0)
+                                .getId())
+                        .start(start)
+                        .end(start.plusDays(1))
+                        .build()));
+    }
+
+    /*Блокировка вещи, условный update, чтение брони для ответа и версия вещи*/
+    @Test
+    void updateApprove() {
+        Booking waiting = bookings.get(2);
+        queryCounter.assertAtMost(4,
+                () -> bookingService.update(waiting.getId(), true, owner.getId()));
+    }
+
+    @Test
+    void updateReject() {
+        Booking waiting = bookings.get(2);
+        queryCounter.assertAtMost(2,
+                () -> bookingService.update(waiting.getId(), false, owner.getId()));
+    }
+
+    @Test
+    void getBookingById() {
+        queryCounter.assertAtMost(1, () -> bookingService.getBookingById(bookings.get(0)
+                .getId(), booker.getId()));
+    }
+
+    @Test
+    void getVersionTag() {
+        queryCounter.assertAtMost(1, () -> bookingService.getVersionTag(bookings.get(0)
+                .getId(), booker.getId()));
+    }
+
+    /*Проверка пользователя и одна страница, сколько бы строк в ней ни было*/
+    @ParameterizedTest
+    @EnumSource(State.class)
+    void getAllBookingsForCurrentUserId(State state) {
+        queryCounter.assertAtMost(2, () -> bookingService.getAllBookingsForCurrentUserId(
+                booker.getId(), 0, ROWS, state));
+    }
+
+    @ParameterizedTest
+    @EnumSource(State.class)
+    void getAllItemBookingsForOwnerId(State state) {
+        queryCounter.assertAtMost(2, () -> bookingService.getAllItemBookingsForOwnerId(
+                owner.getId(), 0, ROWS, state));
+    }
+
+    @ParameterizedTest
+    @EnumSource(State.class)
+    void getAllBookingsForCurrentUserIdAfter(State state) {
+        queryCounter.assertAtMost(2,
+                () -> bookingService.getAllBookingsForCurrentUserIdAfter(booker.getId(), null,
+                        ROWS, state));
+    }
+
+    @ParameterizedTest
+    @EnumSource(State.class)
+    void getAllItemBookingsForOwnerIdAfter(State state) {
+        queryCounter.assertAtMost(2,
+                () -> bookingService.getAllItemBookingsForOwnerIdAfter(owner.getId(), null, ROWS,
+                        state));
+    }
+
+    /*Выгрузка читает все строки одним запросом, без запросов на строку*/
+    @Test
+    void exportAllBookingsForCurrentUserId() {
+        List<Long> exportedIds = new ArrayList<>();
+        queryCounter.assertAtMost(2,
+                () -> bookingService.exportAllBookingsForCurrentUserId(booker.getId(),
+                        booking -> exportedIds.add(booking.getId())));
+        assertEquals(ROWS, exportedIds.size());
+    }
+
+    @Test
+    void exportAllItemBookingsForOwnerId() {
+        List<Long> exportedIds = new ArrayList<>();
+        queryCounter.assertAtMost(2,
+                () -> bookingService.exportAllItemBookingsForOwnerId(owner.getId(),
+                        booking -> exportedIds.add(booking.getId())));
+        assertEquals(ROWS, exportedIds.size());
+    }
+}
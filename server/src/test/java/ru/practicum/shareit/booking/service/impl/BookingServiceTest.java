@@ -12,9 +12,12 @@ import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.ResourceNotFoundException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.version.ItemVersionIncrementer;
+import ru.practicum.shareit.user.existence.UserExistenceFilter;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
@@ -34,9 +37,13 @@ class BookingServiceTest {
     @Mock
     private UserRepository userRepository;
     @Mock
+    private UserExistenceFilter userExistenceFilter;
+    @Mock
     private ItemRepository itemRepository;
     @Mock
     private BookingMapper bookingMapper;
+    @Mock
+    private ItemVersionIncrementer itemVersionIncrementer;
     @InjectMocks
     private BookingService bookingService;
     @Captor
@@ -120,19 +127,68 @@ class BookingServiceTest {
                 .start(LocalDateTime.now())
                 .end(LocalDateTime.now()
                         .plusDays(1))
-                .status(Status.WAITING)
+                .status(Status.APPROVED)
                 .build();
         Boolean approved = true;
 
+        when(bookingRepository.approveIfWaiting(bookingId, ownerId)).thenReturn(1);
         when(bookingRepository.findById(1L)).thenReturn(Optional.of(existingBooking));
 
         bookingService.update(bookingId, approved, ownerId);
-        verify(bookingRepository).save(bookingArgumentCaptor.capture());
+        verify(itemRepository).findByBookingIdForUpdate(bookingId);
+        verify(itemVersionIncrementer).increment(existingItem);
+        verify(bookingMapper).toBookingDtoOut(bookingArgumentCaptor.capture());
 
         Booking updatedBooking = bookingArgumentCaptor.getValue();
         assertEquals(Status.APPROVED, updatedBooking.getStatus());
     }
 
+    @Test
+    void update_WhenAlreadyDecided_ThrowConflict() {
+        Long ownerId = 1L;
+        Long bookingId = 1L;
+        Booking existingBooking = Booking.builder()
+                .id(bookingId)
+                .booker(User.builder()
+                        .id(2L)
+                        .build())
+                .item(Item.builder()
+                        .id(1L)
+                        .owner(ownerId)
+                        .build())
+                .status(Status.APPROVED)
+                .build();
+
+        /*Условный update ничего не изменил, причину выясняем по броне*/
+        when(bookingRepository.rejectIfWaiting(bookingId, ownerId)).thenReturn(0);
+        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(existingBooking));
+
+        assertThrows(ConflictException.class,
+                () -> bookingService.update(bookingId, false, ownerId));
+    }
+
+    @Test
+    void update_WhenNotOwner_ThrowResourceNotFound() {
+        Long bookingId = 1L;
+        Booking existingBooking = Booking.builder()
+                .id(bookingId)
+                .booker(User.builder()
+                        .id(2L)
+                        .build())
+                .item(Item.builder()
+                        .id(1L)
+                        .owner(1L)
+                        .build())
+                .status(Status.WAITING)
+                .build();
+
+        when(bookingRepository.rejectIfWaiting(bookingId, 3L)).thenReturn(0);
+        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(existingBooking));
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> bookingService.update(bookingId, false, 3L));
+    }
+
     @Test
     void getBookingById_WhenGetsOwner_ReturnBooking() {
         Long ownerId = 1L;
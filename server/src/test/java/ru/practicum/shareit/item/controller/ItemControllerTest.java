@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.reactive.server.WebTestClient;
@@ -400,6 +401,91 @@ class ItemControllerTest {
                 .size());
     }
 
+    @Test
+    void getItemById_WhenETagMatches_ReturnNotModifiedUntilChanged() {
+        Long ownerId = userRepository.save(user1)
+                .getId();
+        User booker = userRepository.save(user2);
+        Long otherUserId = userRepository.save(user3)
+                .getId();
+        Long itemId = webTestClient.post()
+                .uri("/items")
+                .header("X-Sharer-User-Id", String.valueOf(ownerId))
+                .bodyValue(itemDto1)
+                .exchange()
+                .expectBody(ItemDto.class)
+                .returnResult()
+                .getResponseBody()
+                .getId();
+        String ownerETag = getItemETag(itemId, ownerId);
+        String otherUserETag = getItemETag(itemId, otherUserId);
+
+        webTestClient.get()
+                .uri("/items/{itemId}", itemId)
+                .header("X-Sharer-User-Id", String.valueOf(ownerId))
+                .header(HttpHeaders.IF_NONE_MATCH, ownerETag)
+                .exchange()
+                .expectStatus()
+                .isNotModified();
+
+        /*Бронь, сохраненная в обход сервиса и еще не подтвержденная, в карточке не видна*/
+        Booking booking = bookingRepository.save(Booking.builder()
+                .start(LocalDateTime.now()
+                        .plusDays(1))
+                .end(LocalDateTime.now()
+                        .plusDays(2))
+                .item(itemRepository.findById(itemId)
+                        .orElseThrow())
+                .booker(booker)
+                .status(Status.WAITING)
+                .build());
+        assertEquals(ownerETag, getItemETag(itemId, ownerId));
+
+        /*Подтвержденная бронь становится следующей в карточке владельца*/
+        webTestClient.patch()
+                .uri("/bookings/{bookingId}?approved=true", booking.getId())
+                .header("X-Sharer-User-Id", String.valueOf(ownerId))
+                .exchange()
+                .expectStatus()
+                .isOk();
+        assertNotEquals(ownerETag, getItemETag(itemId, ownerId));
+        assertNotEquals(getItemETag(itemId, ownerId), getItemETag(itemId, otherUserId));
+
+        webTestClient.patch()
+                .uri("/items/{itemId}", itemId)
+                .header("X-Sharer-User-Id", String.valueOf(ownerId))
+                .bodyValue(ItemDto.builder()
+                        .name("Клей Моментальный")
+                        .build())
+                .exchange()
+                .expectStatus()
+                .isOk();
+        ItemDto itemDtoGet = webTestClient.get()
+                .uri("/items/{itemId}", itemId)
+                .header("X-Sharer-User-Id", String.valueOf(otherUserId))
+                .header(HttpHeaders.IF_NONE_MATCH, otherUserETag)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(ItemDto.class)
+                .returnResult()
+                .getResponseBody();
+        assertEquals("Клей Моментальный", itemDtoGet.getName());
+    }
+
+    private String getItemETag(Long itemId,
+                               Long userId) {
+        return webTestClient.get()
+                .uri("/items/{itemId}", itemId)
+                .header("X-Sharer-User-Id", String.valueOf(userId))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(ItemDto.class)
+                .getResponseHeaders()
+                .getETag();
+    }
+
     /**
      * Метод берет предмет из БД, добавляет брони и комменты, сохраняет в БД.
      *
@@ -464,6 +550,7 @@ class ItemControllerTest {
                 .returnResult()
                 .getResponseBody();
         setBookings(itemDtoOut.getId(), userWhoBooked);
+        String eTag = getItemETag(itemDtoOut.getId(), userWhoBookedId);
 
         CommentDtoIn commentDtoIn = commentDtoIn1;
         CommentDtoIn commentDtoOut = webTestClient.post()
@@ -477,6 +564,8 @@ class ItemControllerTest {
                 .returnResult()
                 .getResponseBody();
         assertEquals(commentDtoIn.getText(), commentDtoOut.getText());
+        /*Комментарий виден в карточке вещи*/
+        assertNotEquals(eTag, getItemETag(itemDtoOut.getId(), userWhoBookedId));
     }
 
     @Test
@@ -544,6 +633,66 @@ class ItemControllerTest {
         assertEquals(2, items.size());
     }
 
+    @Test
+    void getAllOwnerItemsByOwnerId_WhenBookingsAndComments_ReturnItemsWithDetails() {
+        /*Брони и комменты есть только у первой вещи, у второй должно быть пусто*/
+        User ownerOfItem = userRepository.save(user1);
+        Long ownerId = ownerOfItem.getId();
+        User userWhoBooked = userRepository.save(user2);
+
+        ItemDto firstItem = webTestClient.post()
+                .uri("/items")
+                .header("X-Sharer-User-Id", String.valueOf(ownerId))
+                .bodyValue(itemDto1)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(ItemDto.class)
+                .returnResult()
+                .getResponseBody();
+        ItemDto secondItem = webTestClient.post()
+                .uri("/items")
+                .header("X-Sharer-User-Id", String.valueOf(ownerId))
+                .bodyValue(itemDto2)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(ItemDto.class)
+                .returnResult()
+                .getResponseBody();
+        setBookings(firstItem.getId(), userWhoBooked);
+        setComments(firstItem.getId(), userWhoBooked);
+
+        List<ItemDto> items = webTestClient.get()
+                .uri("/items?from=0&size=10")
+                .header("X-Sharer-User-Id", String.valueOf(ownerId))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(ItemDto.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertEquals(2, items.size());
+        ItemDto firstItemGet = items.get(0);
+        assertEquals(firstItem.getId(), firstItemGet.getId());
+        assertNotNull(firstItemGet.getLastBooking());
+        assertNotNull(firstItemGet.getNextBooking());
+        assertTrue(firstItemGet.getLastBooking()
+                .getStart()
+                .isBefore(firstItemGet.getNextBooking()
+                        .getStart()));
+        assertEquals(1, firstItemGet.getComments()
+                .size());
+
+        ItemDto secondItemGet = items.get(1);
+        assertEquals(secondItem.getId(), secondItemGet.getId());
+        assertNull(secondItemGet.getLastBooking());
+        assertNull(secondItemGet.getNextBooking());
+        assertTrue(secondItemGet.getComments()
+                .isEmpty());
+    }
+
     @Test
     void searchItem() {
         User ownerOfItem = userRepository.save(user1);
@@ -0,0 +1,132 @@
+package ru.practicum.shareit.item.search.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "shareit.search.engine=memory")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Sql(scripts = "classpath:db/clear-db.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class InMemoryItemSearchEngineTest {
+
+    private final String requestHeader = "X-Sharer-User-Id";
+    @Autowired
+    private WebTestClient webTestClient;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void search_WhenItemCreatedAndUpdated_IndexFollowsChanges() {
+        User owner = userRepository.save(User.builder()
+                .name("Alex")
+                .email("alex@mail.ru")
+                .build());
+        ItemDto item = webTestClient.post()
+                .uri("/items")
+                .header(requestHeader, String.valueOf(owner.getId()))
+                .bodyValue(ItemDto.builder()
+                        .name("Клей Нюхательный")
+                        .description("Подходит чтобы хорошенько откиснуть")
+                        .available(true)
+                        .build())
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(ItemDto.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertEquals(1, search(owner, "клей").size());
+
+        /*Вещь стала недоступной - из индекса пропадает*/
+        webTestClient.patch()
+                .uri("/items/" + item.getId())
+                .header(requestHeader, String.valueOf(owner.getId()))
+                .bodyValue(ItemDto.builder()
+                        .available(false)
+                        .build())
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        assertEquals(0, search(owner, "клей").size());
+    }
+
+    @Test
+    void search_WhenOwnerDeleted_ItemsLeaveIndexAndPagesStayFull() {
+        User deleted = userRepository.save(User.builder()
+                .name("Alex")
+                .email("alex@mail.ru")
+                .build());
+        User remaining = userRepository.save(User.builder()
+                .name("Oleg")
+                .email("oleg@mail.ru")
+                .build());
+        for (int i = 0; i < 3; i++) {
+            createItem(deleted, "Дрель " + i);
+        }
+        for (int i = 0; i < 3; i++) {
+            createItem(remaining, "Дрель " + i);
+        }
+
+        webTestClient.delete()
+                .uri("/users/" + deleted.getId())
+                .header(requestHeader, String.valueOf(deleted.getId()))
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        /*Удаленные вещи не занимают места в странице*/
+        List<ItemDto> page = webTestClient.get()
+                .uri("/items/search?text=дрель&from=0&size=2")
+                .header(requestHeader, String.valueOf(remaining.getId()))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(ItemDto.class)
+                .returnResult()
+                .getResponseBody();
+        assertEquals(2, page.size());
+        assertEquals(3, search(remaining, "дрель").size());
+    }
+
+    private void createItem(User owner,
+                            String name) {
+        webTestClient.post()
+                .uri("/items")
+                .header(requestHeader, String.valueOf(owner.getId()))
+                .bodyValue(ItemDto.builder()
+                        .name(name)
+                        .description("Аккумуляторная")
+                        .available(true)
+                        .build())
+                .exchange()
+                .expectStatus()
+                .isOk();
+    }
+
+    private List<ItemDto> search(User user,
+                                 String text) {
+        return webTestClient.get()
+                .uri("/items/search?text=" + text + "&from=0&size=10")
+                .header(requestHeader, String.valueOf(user.getId()))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(ItemDto.class)
+                .returnResult()
+                .getResponseBody();
+    }
+}
@@ -0,0 +1,156 @@
+package ru.practicum.shareit.item.search.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TrigramIndexTest {
+
+    @Test
+    void search_WhenSubstringInAnyField_ReturnMatchesInIdOrder() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(3L, "Клей Нюхательный", "Подходит чтобы хорошенько откиснуть");
+        index.put(1L, "Дрель", "Аккумуляторная дрель с клеем в комплекте");
+        index.put(2L, "Отвертка", "Крестовая");
+
+        assertEquals(List.of(1L, 3L), index.search("КЛЕ", 0, 10));
+        assertEquals(List.of(3L), index.search("хорошенько", 0, 10));
+        assertEquals(List.of(), index.search("пила", 0, 10));
+    }
+
+    @Test
+    void search_WhenAllTrigramsPresentButNotSubstring_ReturnNothing() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1L, "abcd xbcy", "");
+
+        /*Триграммы "abc" и "bcy" есть, но подстроки "abcy" нет*/
+        assertEquals(List.of(), index.search("abcy", 0, 10));
+    }
+
+    @Test
+    void search_WhenQueryShorterThanTrigram_ScanAllDocuments() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1L, "Дрель", "");
+        index.put(2L, "Отвертка", "");
+
+        assertEquals(List.of(1L), index.search("др", 0, 10));
+    }
+
+    @Test
+    void search_WhenOffsetAndLimit_ReturnPage() {
+        TrigramIndex index = new TrigramIndex();
+        for (long id = 1; id <= 5; id++) {
+            index.put(id, "Дрель " + id, "");
+        }
+
+        assertEquals(List.of(3L, 4L), index.search("дрель", 2, 2));
+    }
+
+    @Test
+    void put_WhenReplaced_OldTextNotFound() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1L, "Дрель", "");
+        index.put(1L, "Отвертка", "");
+
+        assertEquals(List.of(), index.search("дрель", 0, 10));
+        assertEquals(List.of(1L), index.search("отвертка", 0, 10));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void loader_WhenFinished_ReplaceContentWithLoadedDocuments() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(9L, "Пила", "");
+        TrigramIndex.Loader loader = index.loader();
+        for (long id = 5; id >= 1; id--) {
+            loader.add(id, "Дрель " + id, "");
+        }
+
+        assertEquals(List.of(9L), index.search("пила", 0, 10));
+        loader.finish();
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), index.search("дрель", 0, 10));
+        assertEquals(List.of(3L, 4L), index.search("др", 2, 2));
+        assertEquals(List.of(), index.search("пила", 0, 10));
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    void loader_WhenChangedDuringLoad_KeepNewerState() {
+        TrigramIndex index = new TrigramIndex();
+        TrigramIndex.Loader loader = index.loader();
+        loader.add(1L, "Дрель", "");
+        loader.add(2L, "Дрель ударная", "");
+        /*Пока шла загрузка, вещь 1 переименовали, вещь 2 стала недоступной, появилась вещь 3*/
+        index.put(1L, "Отвертка", "");
+        index.remove(2L);
+        index.put(3L, "Дрель новая", "");
+        loader.finish();
+
+        assertEquals(List.of(3L), index.search("дрель", 0, 10));
+        assertEquals(List.of(1L), index.search("отвертка", 0, 10));
+        assertEquals(2, index.size());
+
+        /*После загрузки одиночные изменения работают как обычно*/
+        index.remove(3L);
+        assertEquals(List.of(), index.search("дрель", 0, 10));
+    }
+
+    @Test
+    void search_WhenTurkishDefaultLocale_LowerCaseIndependently() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            TrigramIndex index = new TrigramIndex();
+            index.put(1L, "IRON", "");
+
+            assertEquals(List.of(1L), index.search("iron", 0, 10));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    void put_WhenParallelWritersShareTrigrams_KeepEveryDocument() {
+        TrigramIndex index = new TrigramIndex();
+        int writers = 4;
+        int perWriter = 500;
+        /*Все документы делят триграммы "дре" и "рел": писатели меняют одни и те же списки*/
+        CompletableFuture.allOf(LongStream.range(0, writers)
+                        .mapToObj(writer -> CompletableFuture.runAsync(() -> {
+                            for (long i = 0; i < perWriter; i++) {
+                                long id = writer * perWriter + i + 1;
+                                index.put(id, "Дрель " + id, "");
+                                if (id % 2 == 0) {
+                                    index.remove(id);
+                                }
+                            }
+                        }))
+                        .toArray(CompletableFuture[]::new))
+                .join();
+
+        List<Long> odd = LongStream.rangeClosed(1, writers * perWriter)
+                .filter(id -> id % 2 == 1)
+                .boxed()
+                .collect(Collectors.toList());
+        assertEquals(odd, index.search("дрель", 0, writers * perWriter));
+        assertEquals(odd.size(), index.size());
+    }
+
+    @Test
+    void remove_WhenRemoved_NotFound() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1L, "Дрель", "");
+        index.put(2L, "Дрель ударная", "");
+        index.remove(1L);
+
+        assertEquals(List.of(2L), index.search("дрель", 0, 10));
+        assertEquals(1, index.size());
+    }
+}
@@ -0,0 +1,91 @@
+package ru.practicum.shareit.item.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.practicum.shareit.item.dto.CommentDtoIn;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.util.QueryCountFixture;
+import ru.practicum.shareit.util.QueryCountTest;
+import ru.practicum.shareit.util.QueryCounter;
+
+import java.util.List;
+
+/**
+ * Количество SQL запросов на вызов методов сервиса вещей.
+ * У каждой из {@link #ROWS} вещей есть прошедшее и будущее бронирование и комментарий.
+ */
+@QueryCountTest
+class ItemServiceQueryCountTest {
+
+    private static final int ROWS = 100;
+
+    @Autowired
+    private IItemService itemService;
+    @Autowired
+    private QueryCountFixture fixture;
+    @Autowired
+    private QueryCounter queryCounter;
+
+    private User owner;
+    private User booker;
+    private List<Item> items;
+
+    @BeforeEach
+    void setUp() {
+        owner = fixture.user("Alex");
+        booker = fixture.user("Oleg");
+        items = fixture.items(owner, ROWS);
+        fixture.bookingsAndComments(items, booker);
+    }
+
+    @Test
+    void create() {
+        queryCounter.assertAtMost(2, () -> itemService.create(owner.getId(), ItemDto.builder()
+                .name("Отвертка")
+                .description("Крестовая отвертка")
+                .available(true)
+                .build()));
+    }
+
+    @Test
+    void update() {
+        queryCounter.assertAtMost(3, () -> itemService.update(owner.getId(), items.get(0)
+                .getId(), ItemDto.builder()
+                .available(false)
+                .build()));
+    }
+
+    @Test
+    void getById() {
+        queryCounter.assertAtMost(4, () -> itemService.getById(items.get(0)
+                .getId(), owner.getId()));
+    }
+
+    @Test
+    void getVersionTag() {
+        queryCounter.assertAtMost(1, () -> itemService.getVersionTag(items.get(0)
+                .getId(), owner.getId()));
+    }
+
+    @Test
+    void getAllOwnerItemsByOwnerId() {
+        queryCounter.assertAtMost(4,
+                () -> itemService.getAllOwnerItemsByOwnerId(owner.getId(), 0, ROWS));
+    }
+
+    @Test
+    void search() {
+        queryCounter.assertAtMost(1, () -> itemService.search("дрель", 0, ROWS));
+    }
+
+    @Test
+    void addComment() {
+        queryCounter.assertAtMost(5, () -> itemService.addComment(items.get(0)
+                .getId(), booker.getId(), CommentDtoIn.builder()
+                .text("Еще раз брал, все хорошо")
+                .build()));
+    }
+}
@@ -20,7 +20,9 @@ import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.IItemSearchEngine;
 import ru.practicum.shareit.item.service.impl.ItemService;
+import ru.practicum.shareit.user.existence.UserExistenceFilter;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
@@ -43,6 +45,8 @@ class ItemServiceTest {
     @Mock
     private UserRepository userRepository;
     @Mock
+    private UserExistenceFilter userExistenceFilter;
+    @Mock
     private BookingRepository bookingRepository;
 
     @Mock
@@ -53,6 +57,8 @@ class ItemServiceTest {
     private CommentRepository commentRepository;
     @Mock
     private CommentMapper commentMapper;
+    @Mock
+    private IItemSearchEngine itemSearchEngine;
     @InjectMocks
     private ItemService itemService;
 
@@ -68,7 +74,9 @@ class ItemServiceTest {
                 .available(true)
                 .build();
 
-        when(userRepository.existsById(userId)).thenReturn(true);
+        when(userRepository.findById(userId)).thenReturn(Optional.of(User.builder()
+                .id(userId)
+                .build()));
         when(itemMapper.toItem(itemDtoToSave)).thenCallRealMethod();
 
         itemService.create(userId, itemDtoToSave);
@@ -82,7 +90,7 @@ class ItemServiceTest {
         assertEquals(itemDtoToSave.getAvailable(), actualSavedItemDto.getAvailable());
         assertEquals(userId, actualSavedItemDto.getOwner());
 
-        verify(userRepository, times(1)).existsById(userId);
+        verify(userRepository, times(1)).findById(userId);
         verify(itemRepository, times(1)).save(actualSavedItemDto);
     }
 
@@ -95,12 +103,12 @@ class ItemServiceTest {
                 .available(true)
                 .build();
 
-        when(userRepository.existsById(userId)).thenReturn(false);
+        when(userRepository.findById(userId)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class,
                 () -> itemService.create(userId, itemDtoToSave));
 
-        verify(userRepository, times(1)).existsById(userId);
+        verify(userRepository, times(1)).findById(userId);
         verify(itemRepository, never()).save(any(Item.class));
     }
 
@@ -115,13 +123,15 @@ class ItemServiceTest {
                 .build();
         Item existingItem = Item.builder()
                 .id(itemId)
+                .owner(userId)
                 .name("Клей Нюхательный")
                 .description("Подходит чтобы хорошенько откиснуть")
                 .available(true)
                 .build();
-        when(userRepository.existsById(userId)).thenReturn(true);
+        when(userRepository.findById(userId)).thenReturn(Optional.of(User.builder()
+                .id(userId)
+                .build()));
         when(itemRepository.findById(itemId)).thenReturn(Optional.ofNullable(existingItem));
-        when(itemRepository.existsByIdAndOwner(itemId, userId)).thenReturn(true);
 
         itemService.update(userId, itemId, itemDtoToUpdate);
 
@@ -131,7 +141,7 @@ class ItemServiceTest {
         assertEquals(itemDtoToUpdate.getDescription(), actualUpdatedItem.getDescription());
         assertEquals(itemDtoToUpdate.getAvailable(), actualUpdatedItem.getAvailable());
 
-        verify(userRepository, times(1)).existsById(userId);
+        verify(userRepository, times(1)).findById(userId);
         verify(itemRepository, times(1)).findById(itemId);
         verify(itemRepository, times(1)).save(actualUpdatedItem);
     }
@@ -146,12 +156,12 @@ class ItemServiceTest {
                 .available(true)
                 .build();
 
-        when(userRepository.existsById(userId)).thenReturn(false);
+        when(userRepository.findById(userId)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class,
                 () -> itemService.update(userId, itemId, itemDtoToUpdate));
 
-        verify(userRepository, times(1)).existsById(userId);
+        verify(userRepository, times(1)).findById(userId);
         verify(itemRepository, never()).save(any(Item.class));
     }
 
@@ -162,12 +172,14 @@ class ItemServiceTest {
         ItemDto itemDtoToUpdate = ItemDto.builder()
                 .build();
 
-        when(userRepository.existsById(userId)).thenReturn(true);
+        when(userRepository.findById(userId)).thenReturn(Optional.of(User.builder()
+                .id(userId)
+                .build()));
 
         assertThrows(BadRequestException.class,
                 () -> itemService.update(userId, itemId, itemDtoToUpdate));
 
-        verify(userRepository, times(1)).existsById(userId);
+        verify(userRepository, times(1)).findById(userId);
         verify(itemRepository, never()).save(any(Item.class));
     }
 
@@ -0,0 +1,98 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.exception.ResourceNotFoundException;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.IUserService;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Метрики сервисов и репозиториев из {@link ServiceMetricsAspect} и их выдача в /actuator/prometheus.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMetrics
+@AutoConfigureMockMvc
+@Sql(scripts = "classpath:db/clear-db.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class ServiceMetricsAspectTest {
+
+    @Autowired
+    private IUserService userService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        userService.create(UserDto.builder()
+                .name("Alex")
+                .email("alex@mail.com")
+                .build());
+        userService.create(UserDto.builder()
+                .name("Oleg")
+                .email("oleg@mail.com")
+                .build());
+    }
+
+    @Test
+    void getAll_WhenCalled_RecordTimerAndResultSizes() {
+        double callsBefore = meterRegistry.timer("shareit.service.calls", "service", "UserService",
+                        "method", "getAll", "outcome", "success", "exception", "none")
+                .count();
+
+        userService.getAll(0, 10);
+
+        assertEquals(callsBefore + 1, meterRegistry.get("shareit.service.calls")
+                .tags("service", "UserService", "method", "getAll", "outcome", "success")
+                .timer()
+                .count());
+        assertEquals(2, meterRegistry.get("shareit.service.result.size")
+                .tags("service", "UserService", "method", "getAll")
+                .summary()
+                .max());
+        assertEquals(2, meterRegistry.get("shareit.repository.result.size")
+                .tags("repository", "UserRepository", "method",
+                        "findAllByIdGreaterThanOrderByIdAsc")
+                .summary()
+                .max());
+    }
+
+    @Test
+    void getById_WhenNotFound_RecordErrorOutcome() {
+        assertThrows(ResourceNotFoundException.class, () -> userService.getById(-1L));
+
+        assertTrue(meterRegistry.get("shareit.service.calls")
+                .tags("service", "UserService", "method", "getById", "outcome", "error",
+                        "exception", "ResourceNotFoundException")
+                .timer()
+                .count() > 0);
+    }
+
+    @Test
+    void prometheus_WhenScraped_ContainServiceMetrics() throws Exception {
+        userService.getAll(0, 10);
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("shareit_service_calls_seconds_bucket")))
+                .andExpect(content().string(
+                        containsString("spring_data_repository_invocations_seconds_bucket")));
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
@@ -18,7 +19,9 @@ import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -213,6 +216,57 @@ class ItemRequestControllerTest {
         assertEquals(3, itemRequestDtoOuts.size());
     }
 
+    @Test
+    void getAllRequests_WhenCursor_ReturnSamePagesAsOffset() {
+        User firstRequestorWithOneRequest = userRepository.save(requestor1);
+        User secondRequestorWithTwoRequest = userRepository.save(requestor2);
+        User ownerOfAllItems = userRepository.save(ownerOfItems);
+        User otherUser = userRepository.save(userWithNoRequestsAndItems);
+        setRequestorOwnersAndItems(firstRequestorWithOneRequest, secondRequestorWithTwoRequest,
+                ownerOfAllItems);
+
+        List<Long> offsetIds = webTestClient.get()
+                .uri("/requests/all")
+                .header("X-Sharer-User-Id", String.valueOf(otherUser.getId()))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(ItemRequestDtoOut.class)
+                .returnResult()
+                .getResponseBody()
+                .stream()
+                .map(ItemRequestDtoOut::getId)
+                .collect(Collectors.toList());
+
+        /*Листаем по 2 с курсором: 2 + 1, у последней страницы нет курсора*/
+        List<Long> cursorIds = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = "";
+        while (cursor != null) {
+            String currentCursor = cursor;
+            EntityExchangeResult<List<ItemRequestDtoOut>> page = webTestClient.get()
+                    .uri(uriBuilder -> uriBuilder.path("/requests/all")
+                            .queryParam("size", 2)
+                            .queryParam("cursor", currentCursor)
+                            .build())
+                    .header("X-Sharer-User-Id", String.valueOf(otherUser.getId()))
+                    .exchange()
+                    .expectStatus()
+                    .isOk()
+                    .expectBodyList(ItemRequestDtoOut.class)
+                    .returnResult();
+            pageSizes.add(page.getResponseBody()
+                    .size());
+            page.getResponseBody()
+                    .forEach(request -> cursorIds.add(request.getId()));
+            cursor = page.getResponseHeaders()
+                    .getFirst("X-Next-Cursor");
+        }
+
+        assertEquals(List.of(2, 1), pageSizes);
+        assertEquals(offsetIds, cursorIds);
+    }
+
     private Long setRequestorOwnersAndItems(User firstRequestorWithOneRequest,
                                             User secondRequestorWithTwoRequest,
                                             User ownerOfAllItems) {
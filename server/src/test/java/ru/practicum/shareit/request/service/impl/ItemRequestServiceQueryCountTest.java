@@ -0,0 +1,75 @@
+package ru.practicum.shareit.request.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.practicum.shareit.request.dto.ItemRequestDtoIn;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.service.IItemRequestService;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.util.QueryCountFixture;
+import ru.practicum.shareit.util.QueryCountTest;
+import ru.practicum.shareit.util.QueryCounter;
+
+import java.util.List;
+
+/**
+ * Количество SQL запросов на вызов методов сервиса запросов вещей.
+ * У пользователя {@link #ROWS} запросов, на каждый откликнулась одна вещь.
+ */
+@QueryCountTest
+class ItemRequestServiceQueryCountTest {
+
+    private static final int ROWS = 100;
+
+    @Autowired
+    private IItemRequestService itemRequestService;
+    @Autowired
+    private QueryCountFixture fixture;
+    @Autowired
+    private QueryCounter queryCounter;
+
+    private User requestor;
+    private User owner;
+    private List<ItemRequest> requests;
+
+    @BeforeEach
+    void setUp() {
+        requestor = fixture.user("Alex");
+        owner = fixture.user("Oleg");
+        requests = fixture.answeredRequests(requestor, owner, ROWS);
+    }
+
+    @Test
+    void create() {
+        queryCounter.assertAtMost(2, () -> itemRequestService.create(ItemRequestDtoIn.builder()
+                .description("Нужна отвертка")
+                .requestorId(requestor.getId())
+                .build(), requestor.getId()));
+    }
+
+    @Test
+    void getById() {
+        queryCounter.assertAtMost(3, () -> itemRequestService.getById(requests.get(0)
+                .getId(), owner.getId()));
+    }
+
+    /*Проверка пользователя, страница запросов и ответы на всю страницу*/
+    @Test
+    void getAllByUserId() {
+        queryCounter.assertAtMost(3,
+                () -> itemRequestService.getAllByUserId(requestor.getId()));
+    }
+
+    @Test
+    void getAllFromOthers() {
+        queryCounter.assertAtMost(3,
+                () -> itemRequestService.getAllFromOthers(owner.getId(), 0, ROWS));
+    }
+
+    @Test
+    void getAllFromOthersAfter() {
+        queryCounter.assertAtMost(3,
+                () -> itemRequestService.getAllFromOthersAfter(owner.getId(), null, ROWS));
+    }
+}
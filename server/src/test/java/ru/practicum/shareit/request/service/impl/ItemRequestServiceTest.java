@@ -8,12 +8,15 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.practicum.shareit.exception.ResourceNotFoundException;
+import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.dto.ItemRequestDtoIn;
 import ru.practicum.shareit.request.dto.ItemRequestDtoOut;
 import ru.practicum.shareit.request.mapper.RequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.existence.UserExistenceFilter;
+import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.util.List;
@@ -33,9 +36,13 @@ class ItemRequestServiceTest {
     @Mock
     private UserRepository userRepository;
     @Mock
+    private UserExistenceFilter userExistenceFilter;
+    @Mock
     private ItemRequestRepository itemRequestRepository;
     @Mock
     private RequestMapper requestMapper;
+    @Mock
+    private ItemMapper itemMapper;
     @InjectMocks
     private ItemRequestService itemRequestService;
     @Captor
@@ -48,7 +55,7 @@ class ItemRequestServiceTest {
                 .description("Нужно мыло, чтобы повеситься, срочно!")
                 .requestorId(userId)
                 .build();
-        when(userRepository.existsById(userId)).thenReturn(false);
+        when(userRepository.findById(userId)).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class,
                 () -> itemRequestService.create(itemRequestDtoIn, userId));
     }
@@ -60,7 +67,9 @@ class ItemRequestServiceTest {
                 .description("Нужно мыло, чтобы повеситься, срочно!")
                 .requestorId(userId)
                 .build();
-        when(userRepository.existsById(userId)).thenReturn(true);
+        when(userRepository.findById(userId)).thenReturn(Optional.of(User.builder()
+                .id(userId)
+                .build()));
         when(requestMapper.fromDtoIn(any(ItemRequestDtoIn.class))).thenCallRealMethod();
 
         itemRequestService.create(itemRequestDtoIn, userId);
@@ -75,7 +84,7 @@ class ItemRequestServiceTest {
     void getById_WhenUserNotFound_ThrowResourceNotFound() {
         Long userId = 1L;
         Long requestId = 1L;
-        when(userRepository.existsById(userId)).thenReturn(false);
+        when(userRepository.findById(userId)).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class,
                 () -> itemRequestService.getById(requestId, userId));
     }
@@ -84,7 +93,9 @@ class ItemRequestServiceTest {
     void getById_WhenRequestNotFound_ThrowResourceNotFound() {
         Long userId = 1L;
         Long requestId = 1L;
-        when(userRepository.existsById(userId)).thenReturn(true);
+        when(userRepository.findById(userId)).thenReturn(Optional.of(User.builder()
+                .id(userId)
+                .build()));
         when(itemRequestRepository.findById(requestId)).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class,
                 () -> itemRequestService.getById(requestId, userId));
@@ -99,7 +110,9 @@ class ItemRequestServiceTest {
                 .description("Нужно мыло, чтобы повеситься, срочно!")
                 .requestor(userId)
                 .build();
-        when(userRepository.existsById(userId)).thenReturn(true);
+        when(userRepository.findById(userId)).thenReturn(Optional.of(User.builder()
+                .id(userId)
+                .build()));
         when(itemRequestRepository.findById(requestId)).thenReturn(Optional.of(itemRequest));
         when(requestMapper.toDtoOut(any(ItemRequest.class))).thenCallRealMethod();
 
@@ -114,7 +127,7 @@ class ItemRequestServiceTest {
     @Test
     void getAllByUserId_WhenUserNotFound_ThrowResourceNotFound() {
         Long userId = 1L;
-        when(userRepository.existsById(userId)).thenReturn(false);
+        when(userRepository.findById(userId)).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class,
                 () -> itemRequestService.getAllByUserId(userId));
     }
@@ -127,7 +140,9 @@ class ItemRequestServiceTest {
                 .description("Нужно мыло, чтобы повеситься, срочно!")
                 .requestor(userId)
                 .build();
-        when(userRepository.existsById(userId)).thenReturn(true);
+        when(userRepository.findById(userId)).thenReturn(Optional.of(User.builder()
+                .id(userId)
+                .build()));
         when(itemRequestRepository.findAllByRequestorOrderByCreatedDesc(userId)).thenReturn(
                 List.of(itemRequest));
         when(requestMapper.toDtoOut(any(ItemRequest.class))).thenCallRealMethod();
@@ -140,7 +155,7 @@ class ItemRequestServiceTest {
     @Test
     void getAllFromOthers_WhenUserNotFound_ThrowResourceNotFound() {
         Long userId = 1L;
-        when(userRepository.existsById(userId)).thenReturn(false);
+        when(userRepository.findById(userId)).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class,
                 () -> itemRequestService.getAllFromOthers(userId, 0, 10));
     }
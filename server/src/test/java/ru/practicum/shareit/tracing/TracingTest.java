@@ -0,0 +1,128 @@
+package ru.practicum.shareit.tracing;
+
+import brave.Span;
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.IItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.IUserService;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Трасса от шлюза продолжается на сервере: спан запроса, спан сервиса и спаны SQL
+ * получают trace id из заголовка b3 и атрибуты пользователя и страницы.
+ */
+@SpringBootTest(properties = {"spring.sleuth.sampler.probability=1.0",
+        "spring.sleuth.jdbc.enabled=true"})
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@Sql(scripts = "classpath:db/clear-db.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class TracingTest {
+
+    private static final String TRACE_ID = "463ac35c9f6413ad48485a3953bb6124";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private IUserService userService;
+    @Autowired
+    private IItemService itemService;
+    @Autowired
+    private Queue<MutableSpan> finishedSpans;
+
+    private UserDto owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = userService.create(UserDto.builder()
+                .name("Alex")
+                .email("alex@mail.com")
+                .build());
+        itemService.create(owner.getId(), ItemDto.builder()
+                .name("Дрель")
+                .description("Аккумуляторная дрель")
+                .available(true)
+                .build());
+        finishedSpans.clear();
+    }
+
+    @Test
+    void getOwnerItems_WhenTraceHeaderPresent_ContinueTraceDownToSql() throws Exception {
+        mockMvc.perform(get("/items?from=0&size=5").header("X-Sharer-User-Id", owner.getId())
+                        .header("b3", TRACE_ID + "-a2fb4a1d1a96d312-1"))
+                .andExpect(status().isOk());
+
+        List<MutableSpan> spans = finishedSpans.stream()
+                .filter(span -> TRACE_ID.equals(span.traceId()))
+                .collect(Collectors.toList());
+        MutableSpan server = findSpan(spans, Span.Kind.SERVER, "GET /items");
+        assertEquals(owner.getId()
+                .toString(), server.tag(ServiceTracingAspect.USER_ID_TAG));
+        assertEquals("5", server.tag(ServiceTracingAspect.SIZE_TAG));
+
+        MutableSpan service = findSpan(spans, null, "ItemService.getAllOwnerItemsByOwnerId");
+        assertEquals(server.id(), service.parentId());
+        assertEquals(owner.getId()
+                .toString(), service.tag(ServiceTracingAspect.USER_ID_TAG));
+        assertEquals("0", service.tag(ServiceTracingAspect.FROM_TAG));
+
+        /*Транзакция открывается внутри спана сервиса, поэтому SQL под ним*/
+        MutableSpan connection = findSpan(spans, Span.Kind.CLIENT, "connection");
+        assertEquals(service.id(), connection.parentId());
+        assertTrue(spans.stream()
+                .anyMatch(span -> connection.id()
+                        .equals(span.parentId()) && span.tag("jdbc.query") != null));
+    }
+
+    private static MutableSpan findSpan(List<MutableSpan> spans,
+                                        Span.Kind kind,
+                                        String name) {
+        return spans.stream()
+                .filter(span -> span.kind() == kind && name.equals(span.name()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @TestConfiguration
+    static class SpanCollectorConfig {
+
+        @Bean
+        public Queue<MutableSpan> finishedSpans() {
+            return new ConcurrentLinkedQueue<>();
+        }
+
+        @Bean
+        public SpanHandler collectingSpanHandler(Queue<MutableSpan> finishedSpans) {
+            return new SpanHandler() {
+                @Override
+                public boolean end(TraceContext context,
+                                   MutableSpan span,
+                                   Cause cause) {
+                    finishedSpans.add(span);
+                    return true;
+                }
+            };
+        }
+    }
+}
@@ -6,15 +6,22 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.impl.UserService;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(UserController.class)
@@ -104,13 +111,78 @@ class UserControllerTest {
                 new UserDto(1L, "AlexPositive", "AlexPositive@gmail.com"),
                 new UserDto(2L, "JohnDoe", "JohnDoe@gmail.com"),
                 new UserDto(3L, "JaneSmith", "JaneSmith@gmail.com"));
-        when(userService.getAll()).thenReturn(userDtoOut);
+        doAnswer(invocation -> {
+            Consumer<UserDto> consumer = invocation.getArgument(0);
+            userDtoOut.forEach(consumer);
+            return null;
+        }).when(userService)
+                .getAll(any());
 
         String result = mockMvc.perform(get("/users"))
                 .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andReturn()
                 .getResponse()
                 .getContentAsString();
         assertEquals(objectMapper.writeValueAsString(userDtoOut), result);
     }
-}
\ No newline at end of file
+
+    @Test
+    @SneakyThrows
+    void getAllUsers_WhenNoUsers_ReturnEmptyArray() {
+        String result = mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        assertEquals("[]", result);
+    }
+
+    @Test
+    @SneakyThrows
+    void getAllUsers_WhenFullPage_ReturnNextCursor() {
+        List<UserDto> page = List.of(
+                new UserDto(1L, "AlexPositive", "AlexPositive@gmail.com"),
+                new UserDto(2L, "JohnDoe", "JohnDoe@gmail.com"));
+        when(userService.getAll(0, 2)).thenReturn(page);
+
+        MockHttpServletResponse response = mockMvc.perform(get("/users").param("from", "0")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+        assertEquals(objectMapper.writeValueAsString(page), response.getContentAsString());
+        assertEquals("2", response.getHeader("X-Next-Cursor"));
+    }
+
+    @Test
+    @SneakyThrows
+    void getAllUsers_WhenLastPageByCursor_ReturnWithoutNextCursor() {
+        List<UserDto> page = List.of(new UserDto(3L, "JaneSmith", "JaneSmith@gmail.com"));
+        when(userService.getAllAfter(2L, 2)).thenReturn(page);
+
+        MockHttpServletResponse response = mockMvc.perform(get("/users").param("size", "2")
+                        .param("cursor", "2"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+        assertEquals(objectMapper.writeValueAsString(page), response.getContentAsString());
+        assertNull(response.getHeader("X-Next-Cursor"));
+        verify(userService, never()).getAll(anyInt(), anyInt());
+    }
+
+    @Test
+    @SneakyThrows
+    void getAllUsers_WhenCursorWithoutSize_ReturnDefaultPage() {
+        List<UserDto> page = List.of(new UserDto(3L, "JaneSmith", "JaneSmith@gmail.com"));
+        when(userService.getAllAfter(2L, 10)).thenReturn(page);
+
+        String result = mockMvc.perform(get("/users").param("cursor", "2"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        assertEquals(objectMapper.writeValueAsString(page), result);
+        verify(userService, never()).getAll(any());
+    }
+}
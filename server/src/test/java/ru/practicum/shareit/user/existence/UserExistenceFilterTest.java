@@ -0,0 +1,58 @@
+package ru.practicum.shareit.user.existence;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.booking.model.State;
+import ru.practicum.shareit.booking.service.IBookingService;
+import ru.practicum.shareit.exception.ResourceNotFoundException;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.util.QueryCountConfig;
+import ru.practicum.shareit.util.QueryCounter;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(QueryCountConfig.class)
+@Sql(scripts = "classpath:db/clear-db.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class UserExistenceFilterTest {
+
+    @Autowired
+    private UserExistenceFilter userExistenceFilter;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private IBookingService bookingService;
+    @Autowired
+    private QueryCounter queryCounter;
+
+    @Test
+    void isDefinitelyAbsent_WhenUserSavedByRepository_ReturnFalse() {
+        User user = userRepository.save(User.builder()
+                .name("Alex")
+                .email("alex@mail.com")
+                .build());
+
+        assertFalse(userExistenceFilter.isDefinitelyAbsent(user.getId()));
+    }
+
+    @Test
+    void isDefinitelyAbsent_WhenUserNeverExisted_ReturnTrue() {
+        assertTrue(userExistenceFilter.isDefinitelyAbsent(-1L));
+    }
+
+    @Test
+    void getAllBookings_WhenUserNeverExisted_ThrowWithoutQueries() {
+        queryCounter.assertAtMost(0,
+                () -> assertThrows(ResourceNotFoundException.class,
+                        () -> bookingService.getAllBookingsForCurrentUserId(-1L, 0, 10,
+                                State.ALL)));
+    }
+}
@@ -0,0 +1,91 @@
+package ru.practicum.shareit.user.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.user.mapper.UserMapper;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Параллельное изменение одного пользователя: проигравший запрос получает 409, а не 500.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@Sql(scripts = "classpath:db/clear-db.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class UserConcurrencyTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @SpyBean
+    private UserMapper userMapper;
+
+    @Test
+    void update_WhenUserChangedBetweenReadAndCommit_ReturnConflict() throws Exception {
+        User user = userRepository.save(User.builder()
+                .name("Alex")
+                .email("alex@mail.com")
+                .build());
+
+        /*Первый PATCH прочитал пользователя и ждет перед коммитом, пока второй закоммитит свой*/
+        CountDownLatch firstRead = new CountDownLatch(1);
+        CountDownLatch secondCommitted = new CountDownLatch(1);
+        AtomicBoolean first = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            if (first.compareAndSet(true, false)) {
+                firstRead.countDown();
+                assertTrue(secondCommitted.await(10, TimeUnit.SECONDS));
+            }
+            return invocation.callRealMethod();
+        }).when(userMapper)
+                .toUserDto(any(User.class));
+
+        CompletableFuture<MvcResult> slow = CompletableFuture.supplyAsync(
+                () -> patchName(user.getId(), "Slow"));
+        assertTrue(firstRead.await(10, TimeUnit.SECONDS));
+        mockMvc.perform(patch("/users/" + user.getId()).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Fast\"}"))
+                .andExpect(status().isOk());
+        secondCommitted.countDown();
+
+        assertEquals(409, slow.get(10, TimeUnit.SECONDS)
+                .getResponse()
+                .getStatus());
+        assertEquals("Fast", userRepository.findById(user.getId())
+                .orElseThrow()
+                .getName());
+    }
+
+    private MvcResult patchName(Long userId,
+                                String name) {
+        try {
+            return mockMvc.perform(patch("/users/" + userId).contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"name\":\"" + name + "\"}"))
+                    .andReturn();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package ru.practicum.shareit.user.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.IUserService;
+import ru.practicum.shareit.util.QueryCountFixture;
+import ru.practicum.shareit.util.QueryCountTest;
+import ru.practicum.shareit.util.QueryCounter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Количество SQL запросов на вызов методов сервиса пользователей при {@link #ROWS} пользователях.
+ */
+@QueryCountTest
+class UserServiceQueryCountTest {
+
+    private static final int ROWS = 100;
+
+    @Autowired
+    private IUserService userService;
+    @Autowired
+    private QueryCountFixture fixture;
+    @Autowired
+    private QueryCounter queryCounter;
+
+    private List<User> users;
+
+    @BeforeEach
+    void setUp() {
+        users = fixture.users(ROWS);
+    }
+
+    @Test
+    void create() {
+        queryCounter.assertAtMost(1, () -> userService.create(UserDto.builder()
+                .name("Alex")
+                .email("alex@mail.com")
+                .build()));
+    }
+
+    /*Новое имя видно в чужих карточках вещей: их ищем отдельным запросом*/
+    @Test
+    void update() {
+        queryCounter.assertAtMost(3, () -> userService.update(users.get(0)
+                .getId(), UserDto.builder()
+                .name("Oleg")
+                .build()));
+    }
+
+    @Test
+    void delete() {
+        /*Вещи пользователя удаляются отдельным запросом ради кэша второго уровня,
+         * чужие вещи с его комментариями и бронями ищутся ради их ETag*/
+        queryCounter.assertAtMost(4, () -> userService.delete(users.get(0)
+                .getId()));
+    }
+
+    @Test
+    void getById() {
+        queryCounter.assertAtMost(1, () -> userService.getById(users.get(0)
+                .getId()));
+    }
+
+    @Test
+    void getAll() {
+        List<UserDto> result = new ArrayList<>();
+        queryCounter.assertAtMost(1, () -> userService.getAll(result::add));
+        assertEquals(ROWS, result.size());
+    }
+
+    @Test
+    void getAllPage() {
+        queryCounter.assertAtMost(1, () -> userService.getAll(ROWS / 2, 10));
+    }
+
+    @Test
+    void getAllAfter() {
+        queryCounter.assertAtMost(1, () -> userService.getAllAfter(users.get(ROWS / 2)
+                .getId(), 10));
+    }
+}
@@ -5,12 +5,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.practicum.shareit.exception.ResourceNotFoundException;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.IItemSearchEngine;
+import ru.practicum.shareit.item.version.ItemVersionIncrementer;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -23,6 +29,12 @@ class UserServiceTest {
     private UserRepository userRepository;
     @Mock
     private UserMapper userMapper;
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private IItemSearchEngine itemSearchEngine;
+    @Mock
+    private ItemVersionIncrementer itemVersionIncrementer;
     @InjectMocks
     private UserService userService;
     @Captor
@@ -76,6 +88,7 @@ class UserServiceTest {
                 .findById(userId);
         inOrder.verify(userRepository)
                 .save(existingUser);
+        verify(itemRepository).findAllShowingUser(userId);
     }
 
     @Test
@@ -107,6 +120,7 @@ class UserServiceTest {
                 .findById(userId);
         inOrder.verify(userRepository)
                 .save(existingUser);
+        verifyNoInteractions(itemRepository);
     }
 
     @Test
@@ -164,6 +178,10 @@ class UserServiceTest {
 
         Long userId = 1L;
         userService.delete(userId);
+        verify(itemSearchEngine, only()).removeAllByOwner(userId);
+        verify(itemRepository).findAllShowingUser(userId);
+        verify(itemRepository).deleteAllByOwner(userId);
+        verifyNoMoreInteractions(itemRepository);
         verify(userRepository, only()).deleteById(userId);
     }
 
@@ -201,7 +219,33 @@ class UserServiceTest {
 
     @Test
     void getAll() {
-        userService.getAll();
-        verify(userRepository, only()).findAll();
+        User user = User.builder()
+                .id(1L)
+                .name("Alex")
+                .email("firstUser@gmail.com")
+                .build();
+        UserDto userDto = new UserDto(1L, "Alex", "firstUser@gmail.com");
+        when(userRepository.streamAll()).thenReturn(Stream.of(user));
+        when(userMapper.toUserDto(user)).thenReturn(userDto);
+        List<UserDto> result = new ArrayList<>();
+
+        userService.getAll(result::add);
+
+        assertEquals(List.of(userDto), result);
+        verify(userRepository, only()).streamAll();
+    }
+
+    @Test
+    void getAll_WhenPage_ReturnUsersAfterZeroId() {
+        userService.getAll(10, 5);
+        verify(userRepository, only()).findAllByIdGreaterThanOrderByIdAsc(eq(0L),
+                argThat(pageable -> pageable.getOffset() == 10 && pageable.getPageSize() == 5));
+    }
+
+    @Test
+    void getAllAfter_ReturnUsersAfterCursor() {
+        userService.getAllAfter(7L, 5);
+        verify(userRepository, only()).findAllByIdGreaterThanOrderByIdAsc(eq(7L),
+                argThat(pageable -> pageable.getOffset() == 0 && pageable.getPageSize() == 5));
     }
 }
\ No newline at end of file
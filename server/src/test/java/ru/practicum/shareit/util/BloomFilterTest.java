@@ -0,0 +1,39 @@
+package ru.practicum.shareit.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    private static final int VALUES = 100_000;
+
+    @Test
+    void mightContain_WhenValueAdded_ReturnTrue() {
+        BloomFilter filter = new BloomFilter(VALUES, 0.01);
+        for (long value = 1; value <= VALUES; value++) {
+            filter.put(value);
+        }
+
+        for (long value = 1; value <= VALUES; value++) {
+            assertTrue(filter.mightContain(value), "False negative for " + value);
+        }
+    }
+
+    @Test
+    void mightContain_WhenValueNotAdded_FalsePositivesWithinProbability() {
+        BloomFilter filter = new BloomFilter(VALUES, 0.01);
+        for (long value = 1; value <= VALUES; value++) {
+            filter.put(value);
+        }
+
+        int falsePositives = 0;
+        for (long value = VALUES + 1; value <= 2L * VALUES; value++) {
+            if (filter.mightContain(value)) {
+                falsePositives++;
+            }
+        }
+        /*С запасом: ожидается около 1%*/
+        assertTrue(falsePositives < VALUES * 0.02, "False positives: " + falsePositives);
+    }
+}
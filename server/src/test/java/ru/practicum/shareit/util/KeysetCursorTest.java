@@ -0,0 +1,39 @@
+package ru.practicum.shareit.util;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exception.BadRequestException;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorTest {
+
+    @Test
+    void decode_WhenEncoded_ShouldReturnSameCursor() {
+        KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(2023, 5, 1, 12, 30, 15, 123000000),
+                42L);
+
+        assertEquals(cursor, KeysetCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void decode_WhenNullOrBlank_ShouldReturnFirst() {
+        assertEquals(KeysetCursor.FIRST, KeysetCursor.decode(null));
+        assertEquals(KeysetCursor.FIRST, KeysetCursor.decode(" "));
+    }
+
+    @Test
+    void decode_WhenCorrupted_ShouldThrowException() {
+        assertThrows(BadRequestException.class, () -> KeysetCursor.decode("not-a-cursor"));
+        assertThrows(BadRequestException.class, () -> KeysetCursor.decode("%%%"));
+    }
+
+    @Test
+    void encode_ShouldBeUrlSafe() {
+        String encoded = new KeysetCursor(LocalDateTime.of(2023, 5, 1, 12, 30), Long.MAX_VALUE)
+                .encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+    }
+}
@@ -0,0 +1,55 @@
+package ru.practicum.shareit.util;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.sql.DataSource;
+
+/**
+ * Оборачивает источник данных в прокси, который считает SQL выражения.
+ * Подключается к тесту через {@code @Import(QueryCountConfig.class)} или {@link QueryCountTest}.
+ */
+@TestConfiguration
+public class QueryCountConfig {
+
+    @Bean
+    public QueryCounter queryCounter() {
+        return new QueryCounter();
+    }
+
+    @Bean
+    public QueryCountFixture queryCountFixture(UserRepository userRepository,
+                                               ItemRepository itemRepository,
+                                               BookingRepository bookingRepository,
+                                               CommentRepository commentRepository,
+                                               ItemRequestRepository itemRequestRepository) {
+        return new QueryCountFixture(userRepository, itemRepository, bookingRepository,
+                commentRepository, itemRequestRepository);
+    }
+
+    @Bean
+    public static BeanPostProcessor queryCountingDataSourcePostProcessor(
+            ObjectProvider<QueryCounter> queryCounter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean,
+                                                         String beanName) {
+                if (bean instanceof DataSource) {
+                    return ProxyDataSourceBuilder.create((DataSource) bean)
+                            .name("query-count")
+                            .listener(queryCounter.getObject())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,157 @@
+package ru.practicum.shareit.util;
+
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Наполнение БД для тестов количества запросов: строки сохраняются пачками через репозитории,
+ * и на их число проверки не влияют. Подключается вместе с {@link QueryCountConfig}.
+ */
+@RequiredArgsConstructor
+public class QueryCountFixture {
+
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final CommentRepository commentRepository;
+    private final ItemRequestRepository itemRequestRepository;
+
+    /**
+     * Пользователь с почтой name@mail.com в нижнем регистре
+     */
+    public User user(String name) {
+        return userRepository.save(User.builder()
+                .name(name)
+                .email(name.toLowerCase() + "@mail.com")
+                .build());
+    }
+
+    public List<User> users(int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(User.builder()
+                    .name("User " + i)
+                    .email("user" + i + "@mail.com")
+                    .build());
+        }
+        return userRepository.saveAll(users);
+    }
+
+    /**
+     * Доступные вещи владельца с разными названиями, все находятся поиском по "дрель"
+     */
+    public List<Item> items(User owner,
+                            int count) {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(Item.builder()
+                    .owner(owner.getId())
+                    .name("Дрель " + i)
+                    .description("Аккумуляторная дрель")
+                    .available(true)
+                    .build());
+        }
+        return itemRepository.saveAll(items);
+    }
+
+    /**
+     * По одной брони на вещь: поровну прошедших, текущих и будущих, будущие ожидают решения
+     * или отклонены, чтобы каждый state что-то вернул
+     */
+    public List<Booking> bookingsInEveryState(List<Item> items,
+                                              User booker) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            LocalDateTime start = i % 3 == 0 ? now.minusDays(2)
+                    : i % 3 == 1 ? now.minusHours(1) : now.plusDays(1);
+            bookings.add(Booking.builder()
+                    .item(items.get(i))
+                    .booker(booker)
+                    .start(start.plusMinutes(i))
+                    .end(start.plusDays(1))
+                    .status(i % 3 != 2 ? Status.APPROVED : i % 2 == 0 ? Status.WAITING
+                            : Status.REJECTED)
+                    .build());
+        }
+        return bookingRepository.saveAll(bookings);
+    }
+
+    /**
+     * У каждой вещи прошедшее и будущее одобренное бронирование и комментарий арендатора
+     */
+    public void bookingsAndComments(List<Item> items,
+                                    User booker) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> bookings = new ArrayList<>();
+        List<Comment> comments = new ArrayList<>();
+        for (Item item : items) {
+            bookings.add(Booking.builder()
+                    .item(item)
+                    .booker(booker)
+                    .start(now.minusDays(2))
+                    .end(now.minusDays(1))
+                    .status(Status.APPROVED)
+                    .build());
+            bookings.add(Booking.builder()
+                    .item(item)
+                    .booker(booker)
+                    .start(now.plusDays(1))
+                    .end(now.plusDays(2))
+                    .status(Status.APPROVED)
+                    .build());
+            comments.add(Comment.builder()
+                    .item(item)
+                    .author(booker)
+                    .text("Отличная дрель")
+                    .created(now.minusDays(1))
+                    .build());
+        }
+        bookingRepository.saveAll(bookings);
+        commentRepository.saveAll(comments);
+    }
+
+    /**
+     * Запросы пользователя, на каждый владелец откликнулся одной вещью
+     */
+    public List<ItemRequest> answeredRequests(User requestor,
+                                              User owner,
+                                              int count) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ItemRequest> requests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            requests.add(ItemRequest.builder()
+                    .description("Нужна дрель " + i)
+                    .requestor(requestor.getId())
+                    .created(now.minusMinutes(i))
+                    .build());
+        }
+        requests = itemRequestRepository.saveAll(requests);
+        List<Item> items = new ArrayList<>();
+        for (ItemRequest request : requests) {
+            items.add(Item.builder()
+                    .owner(owner.getId())
+                    .name("Дрель")
+                    .description("Аккумуляторная дрель")
+                    .available(true)
+                    .request(request.getId())
+                    .build());
+        }
+        itemRepository.saveAll(items);
+        return requests;
+    }
+}
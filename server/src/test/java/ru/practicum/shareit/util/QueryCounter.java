@@ -0,0 +1,81 @@
+package ru.practicum.shareit.util;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Считает SQL выражения, которые приложение отправило в БД через источник данных
+ * из {@link QueryCountConfig}. Пакетное выполнение считается одним выражением.
+ * Может и записать сами выражения с параметрами, см. {@link #record(Runnable)}.
+ */
+public class QueryCounter implements QueryExecutionListener {
+
+    private final AtomicInteger count = new AtomicInteger();
+    private final List<QueryInfo> recorded = new CopyOnWriteArrayList<>();
+    private volatile boolean recording;
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo,
+                            List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo,
+                           List<QueryInfo> queryInfoList) {
+        count.incrementAndGet();
+        if (recording) {
+            recorded.addAll(queryInfoList);
+        }
+    }
+
+    /**
+     * Выполнить действие и посчитать выражения, отправленные за время его выполнения
+     *
+     * @param action действие, обычно вызов метода сервиса
+     * @return количество SQL выражений
+     */
+    public int count(Runnable action) {
+        count.set(0);
+        action.run();
+        return count.get();
+    }
+
+    /**
+     * Выполнить действие и записать выражения, отправленные за время его выполнения:
+     * SQL, который построил Hibernate, и вызовы set* с параметрами
+     *
+     * @param action действие, обычно вызов метода репозитория
+     * @return выражения в порядке выполнения
+     */
+    public List<QueryInfo> record(Runnable action) {
+        recorded.clear();
+        recording = true;
+        try {
+            action.run();
+        } finally {
+            recording = false;
+        }
+        return List.copyOf(recorded);
+    }
+
+    /**
+     * Проверить, что действие обходится не больше чем заданным числом SQL выражений
+     *
+     * @param maxStatements допустимое количество выражений
+     * @param action        действие, обычно вызов метода сервиса
+     */
+    public void assertAtMost(int maxStatements,
+                             Runnable action) {
+        int statements = count(action);
+        assertTrue(statements <= maxStatements,
+                String.format("Expected at most %d SQL statements, but was %d", maxStatements,
+                        statements));
+    }
+}
@@ -0,0 +1,34 @@
+package ru.practicum.shareit.util;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.test.context.TestContext;
+import org.springframework.test.context.TestExecutionListener;
+import org.springframework.test.context.jdbc.SqlScriptsTestExecutionListener;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Очищает кэш второго уровня после каждого теста, вместе с db/clear-db.sql: скрипт удаляет строки
+ * в обход Hibernate, и без очистки следующий тест читал бы из кэша удаленные сущности.
+ * Подключен через META-INF/spring.factories ко всем тестам с контекстом приложения.
+ */
+public class SecondLevelCacheCleaner implements TestExecutionListener, Ordered {
+
+    @Override
+    public void afterTestMethod(TestContext testContext) {
+        if (!testContext.hasApplicationContext()) {
+            return;
+        }
+        ApplicationContext context = testContext.getApplicationContext();
+        context.getBeanProvider(EntityManagerFactory.class)
+                .ifAvailable(entityManagerFactory -> entityManagerFactory.getCache()
+                        .evictAll());
+    }
+
+    /*after-методы слушателей вызываются в обратном порядке: кэш очищается до скрипта*/
+    @Override
+    public int getOrder() {
+        return new SqlScriptsTestExecutionListener().getOrder() + 1;
+    }
+}